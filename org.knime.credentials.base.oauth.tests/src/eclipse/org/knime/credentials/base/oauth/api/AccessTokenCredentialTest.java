@@ -0,0 +1,173 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link AccessTokenCredential}.
+ *
+ * @author agent
+ */
+class AccessTokenCredentialTest {
+
+    private static AccessTokenCredential createCredential(final Duration lifetime,
+            final AtomicInteger refreshCount) {
+
+        return new AccessTokenCredential("token0", //
+                Instant.now().plus(lifetime), //
+                "Bearer", //
+                () -> new AccessTokenCredential("token" + refreshCount.incrementAndGet(), //
+                        Instant.now().plus(Duration.ofHours(1)), //
+                        "Bearer", //
+                        null));
+    }
+
+    @Test
+    void refreshesProactivelyIfTokenExpiresWithinMinRemainingValidity() throws IOException {
+        final var refreshCount = new AtomicInteger();
+        final var credential = createCredential(Duration.ofMinutes(5), refreshCount);
+
+        assertEquals("token0", credential.getAccessToken());
+        assertEquals("token0", credential.getAccessToken(Duration.ofMinutes(1)));
+        assertEquals("token1", credential.getAccessToken(Duration.ofMinutes(10)));
+        assertEquals("token1", credential.getAccessToken(Duration.ofMinutes(10)));
+        assertEquals(1, refreshCount.get());
+    }
+
+    @Test
+    void usesGivenClockToDetermineExpiry() throws IOException {
+        final var refreshCount = new AtomicInteger();
+        final var clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        final var credential = new AccessTokenCredential("token0", //
+                clock.instant().plus(Duration.ofHours(1)), //
+                "Bearer", //
+                Set.of(), //
+                () -> new AccessTokenCredential("token" + refreshCount.incrementAndGet(), //
+                        clock.instant().plus(Duration.ofHours(1)), //
+                        "Bearer", //
+                        null), //
+                clock);
+
+        clock.advance(Duration.ofMinutes(59));
+        assertEquals("token0", credential.getAccessToken());
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals("token1", credential.getAccessToken());
+        assertEquals(1, refreshCount.get());
+    }
+
+    @Test
+    void concurrentCallersShareOneRefresh() throws Exception {
+        final var refreshCount = new AtomicInteger();
+        final var refreshStarted = new CountDownLatch(1);
+        final var releaseRefresh = new CountDownLatch(1);
+
+        final var credential = new AccessTokenCredential("token0", //
+                Instant.now().plusSeconds(1), //
+                "Bearer", //
+                () -> {
+                    refreshStarted.countDown();
+                    try {
+                        releaseRefresh.await();
+                    } catch (InterruptedException e) { // NOSONAR
+                        Thread.currentThread().interrupt();
+                    }
+                    return new AccessTokenCredential("token" + refreshCount.incrementAndGet(), //
+                            Instant.now().plus(Duration.ofHours(1)), //
+                            "Bearer", //
+                            null);
+                });
+
+        final var pool = Executors.newFixedThreadPool(8);
+        try {
+            final var results = new ArrayList<Future<String>>();
+            for (var i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> credential.getAccessToken(Duration.ofMinutes(10))));
+            }
+            assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+            // give the other callers a chance to queue up behind the in-flight refresh
+            Thread.sleep(100);
+            releaseRefresh.countDown();
+
+            for (final var result : results) {
+                assertEquals("token1", result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, refreshCount.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failsIfTokenExpiresWithinMinRemainingValidityAndIsNotRefreshable() throws IOException {
+        final var credential = new AccessTokenCredential("token0", //
+                Instant.now().plus(Duration.ofMinutes(5)), //
+                "Bearer", //
+                null);
+
+        assertEquals("token0", credential.getAccessToken(Duration.ofMinutes(1)));
+        assertThrows(IOException.class, () -> credential.getAccessToken(Duration.ofMinutes(10)));
+        assertThrows(IllegalArgumentException.class, () -> credential.getAccessToken(Duration.ofMinutes(-1)));
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link AccessTokenWithScopesCredential}.
+ *
+ * @author agent
+ */
+class AccessTokenWithScopesCredentialTest {
+
+    private static AccessTokenCredential createToken(final Set<String> scopes) {
+        return new AccessTokenCredential("token-" + String.join("-", scopes), //
+                Instant.now().plusSeconds(3600), //
+                "Bearer", //
+                scopes, //
+                null);
+    }
+
+    @Test
+    void cachesTokenPerScopeSet() throws IOException {
+        final var fetchCount = new AtomicInteger();
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            fetchCount.incrementAndGet();
+            return createToken(scopes);
+        });
+
+        final var first = credential.getAccessTokenWithScopes(Set.of("read"));
+        final var second = credential.getAccessTokenWithScopes(Set.of("read"));
+        credential.getAccessTokenWithScopes(Set.of("read", "write"));
+
+        assertSame(first, second);
+        assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    void concurrentRequestsForSameScopesShareOneFetch() throws Exception {
+        final var fetchCount = new AtomicInteger();
+        final var fetchStarted = new CountDownLatch(1);
+        final var releaseFetch = new CountDownLatch(1);
+
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            fetchCount.incrementAndGet();
+            fetchStarted.countDown();
+            await(releaseFetch);
+            return createToken(scopes);
+        });
+
+        final var pool = Executors.newFixedThreadPool(8);
+        try {
+            final var results = new ArrayList<Future<AccessTokenAccessor>>();
+            for (var i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> credential.getAccessTokenWithScopes(Set.of("read"))));
+            }
+            assertTrue(fetchStarted.await(10, TimeUnit.SECONDS));
+            releaseFetch.countDown();
+
+            final var expected = results.get(0).get(10, TimeUnit.SECONDS);
+            for (final var result : results) {
+                assertSame(expected, result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, fetchCount.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void slowFetchDoesNotBlockOtherScopes() throws Exception {
+        final var slowFetchStarted = new CountDownLatch(1);
+        final var releaseSlowFetch = new CountDownLatch(1);
+
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            if (scopes.contains("slow")) {
+                slowFetchStarted.countDown();
+                await(releaseSlowFetch);
+            }
+            return createToken(scopes);
+        });
+
+        final var pool = Executors.newSingleThreadExecutor();
+        try {
+            final var slow = pool.submit(() -> credential.getAccessTokenWithScopes(Set.of("slow")));
+            assertTrue(slowFetchStarted.await(10, TimeUnit.SECONDS));
+
+            // must return while the other fetch is still in flight
+            assertEquals("token-fast", credential.getAccessTokenWithScopes(Set.of("fast")).getAccessToken());
+
+            releaseSlowFetch.countDown();
+            assertEquals("token-slow", slow.get(10, TimeUnit.SECONDS).getAccessToken());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedFetchIsNotCached() throws IOException {
+        final var fetchCount = new AtomicInteger();
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            if (fetchCount.incrementAndGet() == 1) {
+                throw new UncheckedIOException(new IOException("IdP unavailable"));
+            }
+            return createToken(scopes);
+        });
+
+        final var ex = assertThrows(IOException.class, () -> credential.getAccessTokenWithScopes(Set.of("read")));
+        assertEquals("IdP unavailable", ex.getMessage());
+
+        assertEquals("token-read", credential.getAccessTokenWithScopes(Set.of("read")).getAccessToken());
+        assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    void reusesSupersetTokensIfEnabled() throws IOException {
+        final var fetchCount = new AtomicInteger();
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            fetchCount.incrementAndGet();
+            return createToken(scopes);
+        }, true);
+
+        final var readWrite = credential.getAccessTokenWithScopes(Set.of("read", "write"));
+        assertSame(readWrite, credential.getAccessTokenWithScopes(Set.of("read")));
+        assertEquals(1, fetchCount.get());
+
+        credential.getAccessTokenWithScopes(Set.of("admin"));
+        assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    void doesNotReuseSupersetTokensByDefault() throws IOException {
+        final var fetchCount = new AtomicInteger();
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            fetchCount.incrementAndGet();
+            return createToken(scopes);
+        });
+
+        credential.getAccessTokenWithScopes(Set.of("read", "write"));
+        credential.getAccessTokenWithScopes(Set.of("read"));
+        assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    void doesNotReuseExpiredSupersetTokens() throws IOException {
+        final var credential = new AccessTokenWithScopesCredential(scopes -> new AccessTokenCredential(
+                "token-" + String.join("-", scopes), //
+                scopes.size() > 1 ? Instant.now().minusSeconds(1) : Instant.now().plusSeconds(3600), //
+                "Bearer", //
+                scopes, //
+                null), true);
+
+        final var expired = credential.getAccessTokenWithScopes(Set.of("read", "write"));
+        assertNotSame(expired, credential.getAccessTokenWithScopes(Set.of("read")));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedTokens() throws IOException {
+        final var fetchCount = new AtomicInteger();
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            fetchCount.incrementAndGet();
+            return createToken(scopes);
+        }, false, 2);
+
+        credential.getAccessTokenWithScopes(Set.of("a"));
+        credential.getAccessTokenWithScopes(Set.of("b"));
+        credential.getAccessTokenWithScopes(Set.of("a"));
+        credential.getAccessTokenWithScopes(Set.of("c")); // evicts "b"
+        assertEquals(3, fetchCount.get());
+
+        credential.getAccessTokenWithScopes(Set.of("a"));
+        credential.getAccessTokenWithScopes(Set.of("c"));
+        assertEquals(3, fetchCount.get());
+
+        credential.getAccessTokenWithScopes(Set.of("b"));
+        assertEquals(4, fetchCount.get());
+
+        final var stats = credential.getCacheStatistics();
+        assertEquals(2, stats.size());
+        assertEquals(3, stats.hits());
+        assertEquals(4, stats.misses());
+        assertEquals(2, stats.evictions());
+    }
+
+    @Test
+    void dropsExpiredTokens() throws IOException {
+        final var fetchCount = new AtomicInteger();
+        final var credential = new AccessTokenWithScopesCredential(scopes -> new AccessTokenCredential(
+                "token-" + fetchCount.incrementAndGet(), //
+                Instant.now().minusSeconds(1), //
+                "Bearer", //
+                scopes, //
+                null));
+
+        assertEquals("token-1", credential.getAccessTokenWithScopes(Set.of("read")).getAccessToken());
+        assertEquals("token-2", credential.getAccessTokenWithScopes(Set.of("read")).getAccessToken());
+        assertEquals(1, credential.getCacheStatistics().evictions());
+    }
+
+    @Test
+    void sweepsExpiredTokensBelowMaximumSize() throws IOException {
+        final var clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        final var credential = new AccessTokenWithScopesCredential(scopes -> new AccessTokenCredential(
+                "token-" + String.join("-", scopes), //
+                clock.instant().plus(scopes.contains("short") ? Duration.ofMinutes(1) : Duration.ofHours(1)), //
+                "Bearer", //
+                scopes, //
+                null), false, AccessTokenWithScopesCredential.DEFAULT_MAX_CACHED_TOKENS, clock);
+
+        credential.getAccessTokenWithScopes(Set.of("short"));
+        credential.getAccessTokenWithScopes(Set.of("long"));
+        assertEquals(2, credential.getCacheStatistics().size());
+
+        clock.advance(Duration.ofMinutes(2));
+        // an access to another token sweeps the expired one
+        credential.getAccessTokenWithScopes(Set.of("long"));
+        assertEquals(1, credential.getCacheStatistics().size());
+        assertEquals(1, credential.getCacheStatistics().evictions());
+    }
+
+    @Test
+    void prefetchesInParallel() throws IOException {
+        final var fetchCount = new AtomicInteger();
+        // all three fetches have to be in flight at the same time to pass the barrier
+        final var barrier = new CyclicBarrier(3);
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            fetchCount.incrementAndGet();
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) { // NOSONAR
+                throw new UncheckedIOException(new IOException("Fetches did not run in parallel", e));
+            }
+            return createToken(scopes);
+        });
+
+        credential.prefetch(List.of(Set.of("a"), Set.of("b"), Set.of("c"), Set.of("a")));
+        assertEquals(3, fetchCount.get());
+
+        credential.getAccessTokenWithScopes(Set.of("a"));
+        credential.getAccessTokenWithScopes(Set.of("b"));
+        credential.getAccessTokenWithScopes(Set.of("c"));
+        assertEquals(3, fetchCount.get());
+    }
+
+    @Test
+    void prefetchSkipsCachedScopesAndReportsFailures() throws IOException {
+        final var fetchCount = new AtomicInteger();
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            fetchCount.incrementAndGet();
+            if (scopes.contains("bad1") || scopes.contains("bad2")) {
+                throw new UncheckedIOException(new IOException("invalid_scope " + scopes));
+            }
+            return createToken(scopes);
+        });
+
+        credential.getAccessTokenWithScopes(Set.of("a"));
+
+        final var ex = assertThrows(IOException.class,
+                () -> credential.prefetch(List.of(Set.of("a"), Set.of("b"), Set.of("bad1"), Set.of("bad2"))));
+        assertTrue(ex.getMessage().startsWith("invalid_scope"));
+        assertEquals(1, ex.getSuppressed().length);
+        assertEquals(4, fetchCount.get());
+
+        credential.getAccessTokenWithScopes(Set.of("b"));
+        assertEquals(4, fetchCount.get());
+    }
+
+    @Test
+    void refetchesTokensThatExpireWithinMinRemainingValidity() throws IOException {
+        final var fetchCount = new AtomicInteger();
+        final var credential = new AccessTokenWithScopesCredential(scopes -> {
+            fetchCount.incrementAndGet();
+            return createToken(scopes);
+        });
+
+        final var first = credential.getAccessTokenWithScopes(Set.of("read"), Duration.ofMinutes(30));
+        final var second = credential.getAccessTokenWithScopes(Set.of("read"), Duration.ofMinutes(30));
+        final var third = credential.getAccessTokenWithScopes(Set.of("read"), Duration.ofHours(2));
+
+        assertSame(first, second);
+        assertNotSame(second, third);
+        assertEquals(2, fetchCount.get());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) { // NOSONAR
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for {@link JWKSVerifier}, which serve the key set from a local HTTP
+ * server.
+ *
+ * @author agent
+ */
+class JWKSVerifierTest {
+
+    private HttpServer m_server;
+
+    private volatile String m_jwks;
+
+    private final AtomicInteger m_jwksRequests = new AtomicInteger();
+
+    private final MutableClock m_clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    @BeforeEach
+    void startServer() throws IOException {
+        m_server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        m_server.createContext("/jwks", exchange -> {
+            m_jwksRequests.incrementAndGet();
+            final var body = m_jwks.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        m_server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        m_server.stop(0);
+    }
+
+    private JWKSVerifier createVerifier() throws IOException {
+        final var url = new URL("http://localhost:" + m_server.getAddress().getPort() + "/jwks");
+        return new JWKSVerifier(() -> JWKSet.load(url), JWKSVerifier.DEFAULT_MAX_AGE, m_clock);
+    }
+
+    private void publish(final JWK... keys) {
+        m_jwks = new JWKSet(List.of(keys)).toString();
+    }
+
+    private static JWK rsaKey(final String keyId) throws JOSEException {
+        return new RSAKeyGenerator(2048).keyID(keyId).generate();
+    }
+
+    private static JWK ecKey(final String keyId) throws JOSEException {
+        return new ECKeyGenerator(Curve.P_256).keyID(keyId).generate();
+    }
+
+    private static JWT sign(final JWK key, final String subject) throws JOSEException, ParseException {
+        final JWSSigner signer;
+        final JWSAlgorithm algorithm;
+        if (key.getKeyType().getValue().equals("RSA")) {
+            signer = new RSASSASigner(key.toRSAKey());
+            algorithm = JWSAlgorithm.RS256;
+        } else {
+            signer = new ECDSASigner(key.toECKey());
+            algorithm = JWSAlgorithm.ES256;
+        }
+
+        final var jwt = new SignedJWT(new JWSHeader.Builder(algorithm).keyID(key.getKeyID()).build(),
+                new JWTClaimsSet.Builder().subject(subject).expirationTime(Date.from(Instant.now())).build());
+        jwt.sign(signer);
+        return new JWT(jwt.serialize());
+    }
+
+    @Test
+    void verifiesRS256AndES256Tokens() throws Exception {
+        final var rsa = rsaKey("rsa1");
+        final var ec = ecKey("ec1");
+        publish(rsa.toPublicJWK(), ec.toPublicJWK());
+        final var verifier = createVerifier();
+
+        for (var i = 0; i < 10; i++) {
+            assertTrue(sign(rsa, "user" + i).verifySignature(verifier));
+            assertTrue(sign(ec, "user" + i).verifySignature(verifier));
+        }
+        assertEquals(1, m_jwksRequests.get());
+    }
+
+    @Test
+    void rejectsInvalidSignatures() throws Exception {
+        final var rsa = rsaKey("rsa1");
+        final var foreign = rsaKey("rsa1");
+        publish(rsa.toPublicJWK());
+        final var verifier = createVerifier();
+
+        final var token = sign(rsa, "user").asString();
+        final var tampered = new JWT(token.substring(0, token.length() - 4) + "AAAA");
+
+        assertFalse(tampered.verifySignature(verifier));
+        assertFalse(sign(foreign, "user").verifySignature(verifier));
+        assertFalse(new JWT(TestTokens.createToken("{\"alg\":\"none\"}", "{}")).verifySignature(verifier));
+        assertFalse(new JWT(TestTokens.createAzureLikeToken(1)).verifySignature(verifier));
+    }
+
+    @Test
+    void refetchesKeySetOnKeyRotation() throws Exception {
+        final var oldKey = rsaKey("old");
+        final var newKey = ecKey("new");
+        publish(oldKey.toPublicJWK());
+        final var verifier = createVerifier();
+        assertTrue(sign(oldKey, "user").verifySignature(verifier));
+
+        publish(newKey.toPublicJWK());
+
+        // unknown key IDs do not trigger a refetch right after a fetch
+        assertFalse(sign(newKey, "user").verifySignature(verifier));
+        assertEquals(1, m_jwksRequests.get());
+
+        m_clock.advance(JWKSVerifier.MIN_REFETCH_INTERVAL.plusSeconds(1));
+        assertTrue(sign(newKey, "user").verifySignature(verifier));
+        assertEquals(2, m_jwksRequests.get());
+
+        // the old key has been rotated out
+        assertFalse(sign(oldKey, "user").verifySignature(verifier));
+
+        // the key set is fetched again once it has reached its maximum age
+        m_clock.advance(JWKSVerifier.DEFAULT_MAX_AGE.plusSeconds(1));
+        assertTrue(sign(newKey, "user").verifySignature(verifier));
+        assertEquals(3, m_jwksRequests.get());
+    }
+
+    @Test
+    void readsKeySetFromFile(@TempDir final Path tempDir) throws Exception {
+        final var ec = ecKey("ec1");
+        final var jwksFile = tempDir.resolve("jwks.json");
+        Files.writeString(jwksFile, new JWKSet(ec.toPublicJWK()).toString());
+
+        assertTrue(sign(ec, "user").verifySignature(JWKSVerifier.fromFile(jwksFile)));
+    }
+
+    @Test
+    void verifiesBatchesInParallel() throws Exception {
+        final var rsa = rsaKey("rsa1");
+        final var ec = ecKey("ec1");
+        publish(rsa.toPublicJWK(), ec.toPublicJWK());
+        final var verifier = createVerifier();
+
+        for (final var key : List.of(rsa, ec)) {
+            final var tokens = new ArrayList<JWT>();
+            for (var i = 0; i < 500; i++) {
+                tokens.add(sign(key, "user" + i));
+            }
+            tokens.add(sign(rsaKey("unknown"), "intruder"));
+
+            final var results = verifier.verifyAll(tokens);
+
+            assertEquals(tokens.size(), results.size());
+            assertEquals(500, results.stream().filter(Boolean::booleanValue).count());
+            assertFalse(results.get(results.size() - 1));
+        }
+        assertEquals(1, m_jwksRequests.get());
+    }
+}
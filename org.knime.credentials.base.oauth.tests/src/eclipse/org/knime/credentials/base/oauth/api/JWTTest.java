@@ -0,0 +1,152 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jwt.JWTParser;
+
+/**
+ * Tests for {@link JWT}.
+ *
+ * @author agent
+ */
+class JWTTest {
+
+    @Test
+    void classifiesTokensStructurally() throws JOSEException {
+        assertTrue(JWT.looksLikeJWT(TestTokens.createAzureLikeToken(10)));
+        assertTrue(JWT.looksLikeJWT(TestTokens.createToken("{\"alg\":\"none\"}", "{}")));
+
+        assertFalse(JWT.looksLikeJWT(null));
+        assertFalse(JWT.looksLikeJWT(""));
+        assertFalse(JWT.looksLikeJWT("2YotnFZFEjr1zCsicMWpAA"));
+        assertFalse(JWT.looksLikeJWT("abc.def"));
+        assertFalse(JWT.looksLikeJWT("abc..ghi"));
+        assertFalse(JWT.looksLikeJWT("abc.def.ghi.jkl"));
+        assertFalse(JWT.looksLikeJWT("abc.d+f.ghi"));
+    }
+
+    @Test
+    void lazyClaimsMatchFullyParsedClaims() throws Exception {
+        final var token = TestTokens.createAzureLikeToken(200);
+        final var expected = JWTParser.parse(token).getJWTClaimsSet();
+
+        final var jwt = new JWT(token);
+        assertEquals(Optional.of(expected.getExpirationTime().toInstant()), jwt.getExpirationTime());
+        assertEquals(Optional.of(List.of("openid", "profile", "User.Read", "offline_access")), jwt.getScopes());
+        assertEquals(ScopeSet.of("openid", "profile", "User.Read", "offline_access"), jwt.getScopeSet());
+        assertSame(jwt.getScopeSet(), jwt.getScopeSet());
+
+        assertEquals(expected.getClaims(), jwt.getAllClaims());
+        assertEquals(expected.getClaim("groups"), jwt.getClaim("groups"));
+        assertEquals(Optional.of(expected.getIssuer()), jwt.getIssuer());
+        assertEquals(Optional.of(expected.getSubject()), jwt.getSubject());
+        assertEquals(Optional.of(Instant.ofEpochSecond(1_767_225_600L)), jwt.getIssuedAt());
+    }
+
+    @Test
+    void handlesMissingOptionalClaims() throws ParseException {
+        final var jwt = new JWT(TestTokens.createToken("{\"alg\":\"none\"}", "{\"sub\":\"foo\",\"scope\":42}"));
+
+        assertEquals(Optional.empty(), jwt.getExpirationTime());
+        assertEquals(Optional.empty(), jwt.getScopes());
+        assertTrue(jwt.getScopeSet().isEmpty());
+        assertEquals(Optional.of("foo"), jwt.getSubject());
+    }
+
+    @Test
+    void looksUpClaimValues() throws Exception {
+        final var token = TestTokens.createAzureLikeToken(500);
+        final var jwt = new JWT(token);
+        @SuppressWarnings("unchecked")
+        final var groups = (List<String>)JWTParser.parse(token).getJWTClaimsSet().getClaim("groups");
+
+        for (final var group : groups) {
+            assertTrue(jwt.hasClaimValue("groups", group));
+        }
+        assertFalse(jwt.hasClaimValue("groups", "not-a-group"));
+        assertTrue(jwt.hasClaimValue("roles", "Writer"));
+        assertTrue(jwt.hasClaimValue("name", "Jane Doe"));
+        assertFalse(jwt.hasClaimValue("name", "John Doe"));
+        assertFalse(jwt.hasClaimValue("no-such-claim", "foo"));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        final var unsecured = "{\"alg\":\"none\"}";
+        assertThrows(ParseException.class, () -> new JWT("2YotnFZFEjr1zCsicMWpAA"));
+        assertThrows(ParseException.class, () -> new JWT(TestTokens.createToken("{\"typ\":\"JWT\"}", "{}")));
+        assertThrows(ParseException.class, () -> new JWT(TestTokens.createToken(unsecured, "not json")));
+        assertThrows(ParseException.class, () -> new JWT(TestTokens.createToken(unsecured, "[1,2]")));
+        assertThrows(ParseException.class, () -> new JWT(TestTokens.createToken(unsecured, "{\"exp\":\"soon\"}")));
+        assertThrows(ParseException.class, () -> new JWT(TestTokens.createToken(unsecured, "{\"iss\":1}")));
+        // dates beyond the supported range
+        assertThrows(ParseException.class,
+                () -> new JWT(TestTokens.createToken(unsecured, "{\"exp\":9223372036854775807}")));
+        assertThrows(ParseException.class, () -> new JWT(TestTokens.createToken(unsecured, "{\"exp\":1e300}")));
+        assertThrows(ParseException.class,
+                () -> new JWT(TestTokens.createToken(unsecured, "{\"iat\":10000000000000000}")));
+        assertThrows(ParseException.class,
+                () -> new JWT(TestTokens.createToken(unsecured, "{\"nbf\":-9223372036854775808}")));
+        assertThrows(ParseException.class, () -> new JWT(TestTokens.createToken(unsecured, "{}") + "c2lnbmF0dXJl"));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ScopeSet}.
+ *
+ * @author agent
+ */
+class ScopeSetTest {
+
+    @Test
+    void parsesWhitespaceSeparatedScopes() {
+        assertEquals(Set.of("openid", "profile", "email"), ScopeSet.parse(" openid\tprofile  email\n"));
+        assertTrue(ScopeSet.parse(null).isEmpty());
+        assertTrue(ScopeSet.parse("   ").isEmpty());
+        assertSame(ScopeSet.empty(), ScopeSet.parse(""));
+    }
+
+    @Test
+    void isCanonical() {
+        final var a = ScopeSet.of("write", "read", "read");
+        final var b = ScopeSet.of(List.of("read", "write"));
+
+        assertEquals(2, a.size());
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals("read write", a.toScopeString());
+        assertSame(a, ScopeSet.of(a));
+    }
+
+    @Test
+    void isEqualToOtherSets() {
+        final var scopes = ScopeSet.of("read", "write");
+
+        assertEquals(Set.of("read", "write"), scopes);
+        assertEquals(scopes, Set.of("read", "write"));
+        assertEquals(Set.of("read", "write").hashCode(), scopes.hashCode());
+    }
+
+    @Test
+    void checksSubsets() {
+        final var read = ScopeSet.of("read");
+        final var readWrite = ScopeSet.of("read", "write");
+        final var other = ScopeSet.of("admin", "write");
+
+        assertTrue(read.isSubsetOf(readWrite));
+        assertTrue(readWrite.isSupersetOf(read));
+        assertTrue(readWrite.isSubsetOf(readWrite));
+        assertTrue(ScopeSet.empty().isSubsetOf(read));
+        assertFalse(readWrite.isSubsetOf(read));
+        assertFalse(read.isSubsetOf(other));
+        assertFalse(other.isSubsetOf(readWrite));
+        assertTrue(readWrite.containsAll(Set.of("write")));
+        assertTrue(readWrite.contains("write"));
+        assertFalse(readWrite.contains("admin"));
+    }
+}
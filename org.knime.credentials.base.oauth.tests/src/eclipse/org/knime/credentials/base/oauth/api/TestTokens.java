@@ -0,0 +1,127 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * Utility methods to create realistic tokens in tests.
+ *
+ * @author agent
+ */
+public final class TestTokens {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Creates a signed JWT that resembles an Azure AD access token of a user that
+     * is member of many groups.
+     *
+     * @param numGroups
+     *            The number of groups in the "groups" claim.
+     * @return the serialized JWT.
+     * @throws JOSEException
+     */
+    public static String createAzureLikeToken(final int numGroups) throws JOSEException {
+        final var groups = new ArrayList<String>();
+        for (var i = 0; i < numGroups; i++) {
+            groups.add(UUID.randomUUID().toString());
+        }
+
+        final var claims = new JWTClaimsSet.Builder()//
+                .audience("api://knime-hub")//
+                .issuer("https://sts.windows.net/" + UUID.randomUUID() + "/")//
+                .issueTime(new Date(1_767_225_600_000L))//
+                .notBeforeTime(new Date(1_767_225_600_000L))//
+                .expirationTime(new Date(1_767_229_200_000L))//
+                .subject("Lqx0B7gSZ9SN5yU5l2fLBXvQkyk3bLmNvqX1wT8dH4o")//
+                .claim("name", "Jane Doe")//
+                .claim("preferred_username", "jane.doe@example.com")//
+                .claim("groups", groups)//
+                .claim("roles", List.of("Reader", "Writer"))//
+                .claim("scope", "openid profile User.Read offline_access")//
+                .claim("ver", "1.0")//
+                .build();
+
+        final var jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        jwt.sign(new MACSigner(SECRET));
+        return jwt.serialize();
+    }
+
+    /**
+     * Creates an unsecured token with the given (unencoded) header and payload,
+     * i.e. without signature.
+     *
+     * @param header
+     *            The JSON header.
+     * @param payload
+     *            The JSON payload.
+     * @return the serialized token.
+     */
+    public static String createToken(final String header, final String payload) {
+        final var encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".";
+    }
+
+    private TestTokens() {
+    }
+}
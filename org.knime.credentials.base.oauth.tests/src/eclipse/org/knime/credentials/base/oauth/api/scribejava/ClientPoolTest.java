@@ -0,0 +1,278 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.oauth.api.MutableClock;
+import org.knime.credentials.base.oauth.api.scribejava.ClientPool.Selection;
+
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.oauth2.clientauthentication.HttpBasicAuthenticationScheme;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for {@link ClientPool}, which run against a local stand-in for a token
+ * endpoint that issues tokens via the client credentials grant.
+ *
+ * @author agent
+ */
+class ClientPoolTest {
+
+    private static final TokenGrant GRANT = service -> new ClientCredentialsFlow(service).login(null);
+
+    private HttpServer m_server;
+
+    private ExecutorService m_serverExecutor;
+
+    private final Map<String, AtomicInteger> m_requests = new ConcurrentHashMap<>();
+
+    private final Set<String> m_throttledClients = ConcurrentHashMap.newKeySet();
+
+    private volatile CountDownLatch m_blockedClientLatch;
+
+    private volatile String m_blockedClient;
+
+    private final MutableClock m_clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    private String m_tokenUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        m_serverExecutor = Executors.newFixedThreadPool(8);
+        m_server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        m_server.setExecutor(m_serverExecutor);
+        m_server.createContext("/token", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            final var basicAuth = exchange.getRequestHeaders().getFirst("Authorization").substring("Basic ".length());
+            final var clientId = new String(Base64.getDecoder().decode(basicAuth), StandardCharsets.UTF_8)//
+                    .split(":")[0];
+            final var count = m_requests.computeIfAbsent(clientId, id -> new AtomicInteger()).incrementAndGet();
+
+            if (clientId.equals(m_blockedClient)) {
+                await(m_blockedClientLatch);
+            }
+
+            final String body;
+            final int code;
+            if (m_throttledClients.contains(clientId)) {
+                code = 429;
+                // no Retry-After, which would also hold up the client in the
+                // executor-wide TokenEndpointRateLimiter (in real time)
+                body = "{\"error\":\"rate_limited\",\"error_description\":\"Too many requests\"}";
+            } else {
+                code = 200;
+                body = String.format("{\"access_token\":\"token-%s-%d\",\"token_type\":\"Bearer\","
+                        + "\"expires_in\":3600}", clientId, count);
+            }
+
+            final var bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        m_server.start();
+        m_tokenUrl = "http://localhost:" + m_server.getAddress().getPort() + "/token";
+    }
+
+    @AfterEach
+    void stopServer() {
+        m_server.stop(0);
+        m_serverExecutor.shutdownNow();
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ClientPool createPool(final Selection selection, final String... clientIds) {
+        final var api = new CustomApi20(m_tokenUrl, "", Verb.POST, HttpBasicAuthenticationScheme.instance());
+        final var servicePool = new OAuth20ServicePool(10);
+
+        final var serviceSuppliers = new ArrayList<Supplier<OAuth20Service>>();
+        for (final var clientId : clientIds) {
+            serviceSuppliers.add(servicePool.pooled(new CustomOAuth2ServiceBuilder(clientId)//
+                    .apiSecret("secret")//
+                    .httpClient(new JavaNetHttpClient())//
+                    .build(api)));
+        }
+        return new ClientPool(serviceSuppliers, GRANT, selection, ClientPool.DEFAULT_THROTTLING_BACKOFF, m_clock);
+    }
+
+    private int requests(final String clientId) {
+        final var count = m_requests.get(clientId);
+        return count != null ? count.get() : 0;
+    }
+
+    @Test
+    void spreadsRefreshesAcrossClients() throws IOException {
+        final var pool = createPool(Selection.ROUND_ROBIN, "c1", "c2", "c3");
+
+        final var credential = pool.createCredential();
+        assertEquals("token-c1-1", credential.getAccessToken());
+
+        m_clock.advance(Duration.ofHours(2));
+        assertEquals("token-c2-1", credential.getAccessToken());
+        m_clock.advance(Duration.ofHours(2));
+        assertEquals("token-c3-1", credential.getAccessToken());
+        m_clock.advance(Duration.ofHours(2));
+        assertEquals("token-c1-2", credential.getAccessToken());
+
+        assertEquals(2, requests("c1"));
+        assertEquals(1, requests("c2"));
+        assertEquals(1, requests("c3"));
+    }
+
+    @Test
+    void reusesValidTokensOfClients() throws IOException {
+        final var pool = createPool(Selection.ROUND_ROBIN, "c1", "c2");
+
+        assertEquals("token-c1-1", pool.createCredential().getAccessToken());
+        assertEquals("token-c2-1", pool.createCredential().getAccessToken());
+        assertEquals("token-c1-1", pool.createCredential().getAccessToken());
+        assertEquals(1, requests("c1"));
+        assertEquals(1, requests("c2"));
+    }
+
+    @Test
+    void forcedRefreshNeverReturnsStaleToken() throws IOException {
+        final var pool = createPool(Selection.ROUND_ROBIN, "c1");
+
+        final var credential = pool.createCredential();
+        assertEquals("token-c1-1", credential.getAccessToken());
+        assertEquals("token-c1-2", credential.getAccessToken(true));
+    }
+
+    @Test
+    void excludesThrottledClients() throws IOException {
+        final var pool = createPool(Selection.ROUND_ROBIN, "c1", "c2", "c3");
+        m_throttledClients.add("c1");
+
+        assertEquals("token-c2-1", pool.createCredential().getAccessToken());
+        assertEquals("token-c2-1", pool.createCredential().getAccessToken());
+        assertEquals("token-c3-1", pool.createCredential().getAccessToken());
+        assertEquals(1, requests("c1"));
+
+        // the client is used again once the back-off period has passed
+        m_throttledClients.clear();
+        m_clock.advance(ClientPool.DEFAULT_THROTTLING_BACKOFF.plusSeconds(1));
+        pool.createCredential();
+        pool.createCredential();
+        pool.createCredential();
+        assertEquals(2, requests("c1"));
+    }
+
+    @Test
+    void failsWhenAllClientsAreThrottled() {
+        final var pool = createPool(Selection.ROUND_ROBIN, "c1", "c2");
+        m_throttledClients.addAll(List.of("c1", "c2"));
+
+        final var e = assertThrows(IOException.class, pool::createCredential);
+        assertTrue(e.getMessage().startsWith("All 2 clients/apps are throttled"), e.getMessage());
+
+        // during the back-off, only the client whose back-off ends first is tried
+        assertThrows(IOException.class, pool::createCredential);
+        assertEquals(3, requests("c1") + requests("c2"));
+    }
+
+    @Test
+    void leastLoadedAvoidsBusyClients() throws Exception {
+        final var pool = createPool(Selection.LEAST_LOADED, "c1", "c2");
+        m_blockedClientLatch = new CountDownLatch(1);
+        m_blockedClient = "c1";
+
+        final var executor = Executors.newSingleThreadExecutor();
+        try {
+            final var blocked = executor.submit(pool::createCredential);
+            while (requests("c1") == 0) {
+                Thread.sleep(5);
+            }
+
+            assertEquals("token-c2-1", pool.createCredential().getAccessToken());
+            // round-robin order would choose c1, which is still busy
+            assertEquals("token-c2-1", pool.createCredential().getAccessToken());
+
+            m_blockedClientLatch.countDown();
+            assertEquals("token-c1-1", blocked.get(10, TimeUnit.SECONDS).getAccessToken());
+        } finally {
+            m_blockedClientLatch.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
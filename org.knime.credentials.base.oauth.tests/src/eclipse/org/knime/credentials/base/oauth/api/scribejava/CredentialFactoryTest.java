@@ -0,0 +1,139 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.oauth.api.AccessTokenCredential;
+import org.knime.credentials.base.oauth.api.JWTCredential;
+import org.knime.credentials.base.oauth.api.ScopeSet;
+import org.knime.credentials.base.oauth.api.TestTokens;
+
+import com.github.scribejava.core.builder.ServiceBuilder;
+import com.github.scribejava.core.builder.api.DefaultApi20;
+import com.github.scribejava.core.model.OAuth2AccessToken;
+import com.github.scribejava.core.oauth.OAuth20Service;
+
+/**
+ * Tests for {@link CredentialFactory}.
+ *
+ * @author agent
+ */
+class CredentialFactoryTest {
+
+    private static final Supplier<OAuth20Service> SERVICE_SUPPLIER = () -> new ServiceBuilder("client")//
+            .build(new DefaultApi20() {
+                @Override
+                public String getAccessTokenEndpoint() {
+                    return "http://localhost:1/token";
+                }
+
+                @Override
+                protected String getAuthorizationBaseUrl() {
+                    return "http://localhost:1/authorize";
+                }
+            });
+
+    private static OAuth2AccessToken expiredToken(final String accessToken) {
+        return new OAuth2AccessToken(accessToken, "Bearer", -10, null, "scope1", null);
+    }
+
+    @Test
+    void testTokenWithoutRefreshTokenAndGrantIsNotRefreshable() {
+        var credential = (AccessTokenCredential)CredentialFactory.fromScribeToken(expiredToken("token1"),
+                SERVICE_SUPPLIER);
+
+        assertThrows(IOException.class, () -> credential.getAccessToken(true));
+    }
+
+    @Test
+    void testTokenWithoutRefreshTokenIsReacquiredWithGrant() throws IOException {
+        var grantCount = new AtomicInteger();
+        TokenGrant grant = service -> expiredToken("token" + (grantCount.incrementAndGet() + 1));
+
+        var credential = (AccessTokenCredential)CredentialFactory.fromScribeToken(expiredToken("token1"),
+                SERVICE_SUPPLIER, grant);
+
+        assertEquals("token2", credential.getAccessToken());
+        assertEquals("token3", credential.getAccessToken());
+        assertEquals(2, grantCount.get());
+    }
+
+    @Test
+    void testClassifiesOpaqueAndJWTAccessTokens() throws Exception {
+        final var jwt = new OAuth2AccessToken(TestTokens.createAzureLikeToken(10), "Bearer", 3600, null, null, null);
+        assertInstanceOf(JWTCredential.class, CredentialFactory.fromScribeToken(jwt, SERVICE_SUPPLIER));
+
+        final var opaque = new OAuth2AccessToken("2YotnFZFEjr1zCsicMWpAA", "Bearer", 3600, null, "a b", null);
+        final var credential = CredentialFactory.fromScribeToken(opaque, SERVICE_SUPPLIER);
+        assertInstanceOf(AccessTokenCredential.class, credential);
+        assertEquals(ScopeSet.of("a", "b"), ((AccessTokenCredential)credential).getScopes());
+    }
+
+    @Test
+    void testGrantFailureIsReportedAsIOException() {
+        TokenGrant grant = service -> {
+            throw new Exception("invalid_client");
+        };
+
+        var credential = (AccessTokenCredential)CredentialFactory.fromScribeToken(expiredToken("token1"),
+                SERVICE_SUPPLIER, grant);
+
+        var e = assertThrows(IOException.class, credential::getAccessToken);
+        assertFalse(e.getMessage().isEmpty());
+    }
+}
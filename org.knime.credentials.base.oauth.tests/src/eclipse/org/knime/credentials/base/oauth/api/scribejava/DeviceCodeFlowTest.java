@@ -0,0 +1,213 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.scribejava.core.model.DeviceAuthorization;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.oauth2.clientauthentication.RequestBodyAuthenticationScheme;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for {@link DeviceCodeFlow}, which run against a local stand-in for the
+ * device authorization and token endpoints.
+ *
+ * @author agent
+ */
+class DeviceCodeFlowTest {
+
+    private static final String TOKEN_RESPONSE =
+            "{\"access_token\":\"abc\",\"token_type\":\"Bearer\",\"expires_in\":3600}";
+
+    private HttpServer m_server;
+
+    private ExecutorService m_serverExecutor;
+
+    private volatile int m_expiresIn = 60;
+
+    /** Responses of the token endpoint: error codes, or null for success. */
+    private final Queue<String> m_tokenErrors = new ConcurrentLinkedQueue<>();
+
+    /** Arrival times of the token requests, in nanoseconds. */
+    private final List<Long> m_tokenRequests = new CopyOnWriteArrayList<>();
+
+    private volatile String m_lastTokenRequestBody;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        m_serverExecutor = Executors.newFixedThreadPool(4);
+        m_server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        m_server.setExecutor(m_serverExecutor);
+        m_server.createContext("/device", exchange -> sendJson(exchange, 200, String.format(
+                "{\"device_code\":\"dc1\",\"user_code\":\"ABCD-EFGH\",\"verification_uri\":\"%s\","
+                        + "\"expires_in\":%d,\"interval\":1}", url("/verify"), m_expiresIn)));
+        m_server.createContext("/token", exchange -> {
+            m_tokenRequests.add(System.nanoTime());
+            m_lastTokenRequestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            final var error = m_tokenErrors.poll();
+            if (error == null) {
+                sendJson(exchange, 200, TOKEN_RESPONSE);
+            } else {
+                sendJson(exchange, 400, "{\"error\":\"" + error + "\"}");
+            }
+        });
+        m_server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        m_server.stop(0);
+        m_serverExecutor.shutdownNow();
+    }
+
+    private static void sendJson(final HttpExchange exchange, final int code, final String json)
+            throws IOException {
+        final var body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, body.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private String url(final String path) {
+        return "http://localhost:" + m_server.getAddress().getPort() + path;
+    }
+
+    private OAuth20Service createService() {
+        final var api = new CustomApi20(url("/token"), "", Verb.POST, RequestBodyAuthenticationScheme.instance(),
+                List.of(), false, null, url("/device"));
+        return new CustomOAuth2ServiceBuilder("client").build(api);
+    }
+
+    @Test
+    void pollsUntilAuthorized() throws Exception {
+        m_tokenErrors.add("authorization_pending");
+        m_tokenErrors.add("authorization_pending");
+        final var prompts = new CopyOnWriteArrayList<DeviceAuthorization>();
+
+        final var token = new DeviceCodeFlow(createService(), prompts::add).login("read");
+
+        assertEquals("abc", token.getAccessToken());
+        assertEquals(1, prompts.size());
+        assertEquals("ABCD-EFGH", prompts.get(0).getUserCode());
+        assertEquals(url("/verify"), prompts.get(0).getVerificationUri());
+        assertEquals(3, m_tokenRequests.size());
+        assertTrue(m_lastTokenRequestBody.contains("device_code=dc1"), m_lastTokenRequestBody);
+    }
+
+    @Test
+    void slowsDownWhenAsked() throws Exception {
+        m_tokenErrors.add("slow_down");
+
+        new DeviceCodeFlow(createService(), authorization -> {
+        }).login(null);
+
+        assertEquals(2, m_tokenRequests.size());
+        final var gap = m_tokenRequests.get(1) - m_tokenRequests.get(0);
+        assertTrue(gap >= TimeUnit.SECONDS.toNanos(1L + DeviceCodeFlow.SLOW_DOWN_INCREMENT_SECONDS),
+                "polled again after " + TimeUnit.NANOSECONDS.toMillis(gap) + " ms");
+    }
+
+    @Test
+    void failsWhenUserDeclines() {
+        m_tokenErrors.add("authorization_pending");
+        m_tokenErrors.add("access_denied");
+
+        final var e = assertThrows(IOException.class, () -> new DeviceCodeFlow(createService(), authorization -> {
+        }).login(null));
+        assertTrue(e.getMessage().contains("access_denied"), e.getMessage());
+    }
+
+    @Test
+    void failsWhenUserCodeExpires() {
+        m_expiresIn = 1;
+        m_tokenErrors.add("authorization_pending");
+
+        final var e = assertThrows(IOException.class, () -> new DeviceCodeFlow(createService(), authorization -> {
+        }).login(null));
+        assertTrue(e.getMessage().contains("expired"), e.getMessage());
+    }
+
+    @Test
+    void stopsPollingWhenCanceled() throws Exception {
+        for (var i = 0; i < 10; i++) {
+            m_tokenErrors.add("authorization_pending");
+        }
+
+        final var login = new DeviceCodeFlow(createService(), authorization -> {
+        }).loginAsync(null);
+        Thread.sleep(1500);
+        login.cancel(true);
+        final var polls = m_tokenRequests.size();
+
+        Thread.sleep(2500);
+        assertEquals(polls, m_tokenRequests.size());
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.scribejava.core.httpclient.HttpClient;
+import com.github.scribejava.core.model.OAuthAsyncRequestCallback;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.oauth2.clientauthentication.HttpBasicAuthenticationScheme;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for {@link JavaNetHttpClient}, which run against a local stand-in for a
+ * token endpoint.
+ *
+ * @author agent
+ */
+class JavaNetHttpClientTest {
+
+    private static final String TOKEN_RESPONSE =
+            "{\"access_token\":\"abc\",\"token_type\":\"Bearer\",\"expires_in\":3600,\"scope\":\"read\"}";
+
+    private HttpServer m_server;
+
+    private ExecutorService m_serverExecutor;
+
+    private final AtomicInteger m_tokenRequests = new AtomicInteger();
+
+    private volatile String m_lastRequestBody;
+
+    private volatile String m_lastAuthorization;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        m_serverExecutor = Executors.newFixedThreadPool(16);
+        m_server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        m_server.setExecutor(m_serverExecutor);
+        m_server.createContext("/token", exchange -> {
+            m_tokenRequests.incrementAndGet();
+            m_lastRequestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            m_lastAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+            final var body = TOKEN_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        m_server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) { // NOSONAR
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        m_server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        m_server.stop(0);
+        m_serverExecutor.shutdownNow();
+    }
+
+    private String url(final String path) {
+        return "http://localhost:" + m_server.getAddress().getPort() + path;
+    }
+
+    private OAuth20Service createService(final HttpClient client) {
+        final var api = new CustomApi20(url("/token"), "", Verb.POST, HttpBasicAuthenticationScheme.instance());
+        return new CustomOAuth2ServiceBuilder("client")//
+                .apiSecret("secret")//
+                .httpClient(client)//
+                .build(api);
+    }
+
+    @Test
+    void fetchesToken() throws Exception {
+        final var service = createService(new JavaNetHttpClient());
+
+        final var token = service.getAccessTokenClientCredentialsGrant("read");
+
+        assertEquals("abc", token.getAccessToken());
+        assertEquals(3600, token.getExpiresIn());
+        assertEquals("read", token.getScope());
+        assertTrue(m_lastRequestBody.contains("grant_type=client_credentials"), m_lastRequestBody);
+        assertTrue(m_lastAuthorization.startsWith("Basic "), m_lastAuthorization);
+    }
+
+    @Test
+    void sendsAuthorizationHeaderDespiteDefaultAuthenticator() throws Exception {
+        final var previous = Authenticator.getDefault();
+        Authenticator.setDefault(new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication("proxyuser", "proxypassword".toCharArray());
+            }
+        });
+        try {
+            final var service = createService(new JavaNetHttpClient());
+
+            assertEquals("abc", service.getAccessTokenClientCredentialsGrant("read").getAccessToken());
+            assertTrue(m_lastAuthorization.startsWith("Basic "), m_lastAuthorization);
+        } finally {
+            Authenticator.setDefault(previous);
+        }
+    }
+
+    @Test
+    void dropsClientsOfPreviousDefaultAuthenticator() {
+        final var previous = Authenticator.getDefault();
+        final var first = new Authenticator() {
+        };
+        Authenticator.setDefault(first);
+        try {
+            final var client = new JavaNetHttpClient().getUnderlyingClient();
+            assertSame(client, new JavaNetHttpClient().getUnderlyingClient());
+
+            Authenticator.setDefault(new Authenticator() {
+            });
+            assertNotSame(client, new JavaNetHttpClient().getUnderlyingClient());
+
+            // the client built with the first authenticator has not been kept
+            Authenticator.setDefault(first);
+            assertNotSame(client, new JavaNetHttpClient().getUnderlyingClient());
+        } finally {
+            Authenticator.setDefault(previous);
+        }
+    }
+
+    @Test
+    void appliesReadTimeout() {
+        final var client = new JavaNetHttpClient(JavaNetHttpClientConfig.defaultConfig()//
+                .withReadTimeout(Duration.ofMillis(200)));
+
+        final var e = assertThrows(ExecutionException.class,
+                () -> client.execute(null, Map.of(), Verb.GET, url("/slow"), (byte[])null));
+        assertInstanceOf(HttpTimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void enforcesDeadline() {
+        final var api = new CustomApi20(url("/slow"), "", Verb.POST, HttpBasicAuthenticationScheme.instance());
+        final var service = new CustomOAuth2ServiceBuilder("client")//
+                .apiSecret("secret")//
+                .httpClient(new JavaNetHttpClient(JavaNetHttpClientConfig.defaultConfig()//
+                        .withDeadline(Duration.ofMillis(500))))//
+                .build(api);
+
+        final var start = System.nanoTime();
+        final var e = assertThrows(IOException.class, () -> service.getAccessTokenClientCredentialsGrant("read"));
+        assertTrue(e.getMessage().contains("did not complete within 500 ms"), e.getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1400));
+    }
+
+    @Test
+    void executesRequestsAsynchronously() throws Exception {
+        final var client = new JavaNetHttpClient();
+        final var requests = 100;
+        final var completed = new CountDownLatch(requests);
+        final var failures = new AtomicInteger();
+
+        final var futures = new ArrayList<Future<Integer>>();
+        for (var i = 0; i < requests; i++) {
+            futures.add(client.executeAsync(null, Map.of(), Verb.POST, url("/token"), "grant_type=test",
+                    new OAuthAsyncRequestCallback<Integer>() {
+                        @Override
+                        public void onCompleted(final Integer response) {
+                            completed.countDown();
+                        }
+
+                        @Override
+                        public void onThrowable(final Throwable t) {
+                            failures.incrementAndGet();
+                            completed.countDown();
+                        }
+                    }, Response::getCode));
+        }
+
+        assertTrue(completed.await(30, TimeUnit.SECONDS));
+        assertEquals(0, failures.get());
+        for (final var future : futures) {
+            assertEquals(200, future.get());
+        }
+        assertEquals(requests, m_tokenRequests.get());
+        assertEquals("grant_type=test", m_lastRequestBody);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.oauth.api.IdentityProviderException;
+import org.knime.credentials.base.oauth.api.MutableClock;
+
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.oauth2.clientauthentication.HttpBasicAuthenticationScheme;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for {@link NegativeResponseCache}, partly against a local stand-in for a
+ * token endpoint.
+ *
+ * @author agent
+ */
+class NegativeResponseCacheTest {
+
+    private HttpServer m_server;
+
+    private ExecutorService m_serverExecutor;
+
+    private final AtomicInteger m_requests = new AtomicInteger();
+
+    private volatile String m_errorResponse;
+
+    private volatile int m_errorCode;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        m_serverExecutor = Executors.newFixedThreadPool(2);
+        m_server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        m_server.setExecutor(m_serverExecutor);
+        m_server.createContext("/token", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            m_requests.incrementAndGet();
+
+            final var bytes = m_errorResponse.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(m_errorCode, bytes.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        m_server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        m_server.stop(0);
+        m_serverExecutor.shutdownNow();
+    }
+
+    private OAuth20Service createService(final String clientSecret) {
+        final var api = new CustomApi20("http://localhost:" + m_server.getAddress().getPort() + "/token", "",
+                Verb.POST, HttpBasicAuthenticationScheme.instance());
+        return new CustomOAuth2ServiceBuilder("client")//
+                .apiSecret(clientSecret)//
+                .httpClient(new JavaNetHttpClient())//
+                .build(api);
+    }
+
+    private void respondWith(final int code, final String error) {
+        m_errorCode = code;
+        m_errorResponse = String.format("{\"error\":\"%s\",\"error_description\":\"Failed with %s\","
+                + "\"error_uri\":\"https://idp.example.com/errors\"}", error, error);
+    }
+
+    @Test
+    void repliesDeterministicErrorsLocally() {
+        respondWith(401, "invalid_client");
+        final var service = createService("revoked");
+
+        for (var i = 0; i < 3; i++) {
+            final var e = assertThrows(IdentityProviderException.class,
+                    () -> new ClientCredentialsFlow(service).login("read"));
+            assertEquals("invalid_client", e.getIdpResponseCode().orElseThrow());
+            assertEquals("Failed with invalid_client", e.getIdpResponseDescription().orElseThrow());
+            assertEquals("https://idp.example.com/errors", e.getIdpResonseUri().orElseThrow());
+        }
+        assertEquals(1, m_requests.get());
+    }
+
+    @Test
+    void sendsRequestAgainWhenSettingsChange() {
+        respondWith(400, "invalid_scope");
+
+        assertThrows(IdentityProviderException.class,
+                () -> new ClientCredentialsFlow(createService("secret")).login("bad"));
+        assertThrows(IdentityProviderException.class,
+                () -> new ClientCredentialsFlow(createService("secret")).login("bad"));
+        assertEquals(1, m_requests.get());
+
+        assertThrows(IdentityProviderException.class,
+                () -> new ClientCredentialsFlow(createService("secret")).login("other"));
+        assertThrows(IdentityProviderException.class,
+                () -> new ClientCredentialsFlow(createService("new-secret")).login("bad"));
+        assertEquals(3, m_requests.get());
+    }
+
+    @Test
+    void doesNotCacheTransientErrors() {
+        respondWith(503, "temporarily_unavailable");
+        final var service = createService("secret");
+
+        assertThrows(IdentityProviderException.class, () -> new ClientCredentialsFlow(service).login("read"));
+        assertThrows(IdentityProviderException.class, () -> new ClientCredentialsFlow(service).login("read"));
+        assertEquals(2, m_requests.get());
+    }
+
+    @Test
+    void expiresAfterTimeToLive() throws IOException {
+        final var clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        final var cache = new NegativeResponseCache(Duration.ofSeconds(60), 10, clock);
+
+        cache.record("a", new Response(400, "Bad Request", Map.of(), "{\"error\":\"invalid_grant\"}"));
+        cache.record("b", new Response(400, "Bad Request", Map.of(), "{\"error\":\"authorization_pending\"}"));
+        cache.record("c", new Response(400, "Bad Request", Map.of(), "not json"));
+        cache.record("d", new Response(500, "Server Error", Map.of(), "{\"error\":\"invalid_grant\"}"));
+        assertEquals(1, cache.size());
+
+        final var replayed = cache.lookup("a").orElseThrow();
+        assertEquals(400, replayed.getCode());
+        assertEquals("{\"error\":\"invalid_grant\"}", replayed.getBody());
+
+        clock.advance(Duration.ofSeconds(60));
+        assertTrue(cache.lookup("a").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void fingerprintIgnoresClientAssertion() {
+        final var service = createService("secret");
+
+        final var first = new OAuthRequest(Verb.POST, "https://idp.example.com/token");
+        first.addBodyParameter("grant_type", "client_credentials");
+        first.addBodyParameter("client_assertion", "assertion-1");
+
+        final var second = new OAuthRequest(Verb.POST, "https://idp.example.com/token");
+        second.addBodyParameter("grant_type", "client_credentials");
+        second.addBodyParameter("client_assertion", "assertion-2");
+
+        final var third = new OAuthRequest(Verb.POST, "https://idp.example.com/token");
+        third.addBodyParameter("grant_type", "client_credentials");
+        third.addBodyParameter("scope", "read");
+
+        assertEquals(NegativeResponseCache.fingerprint(service, first),
+                NegativeResponseCache.fingerprint(service, second));
+        assertNotEquals(NegativeResponseCache.fingerprint(service, first),
+                NegativeResponseCache.fingerprint(service, third));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.oauth.api.AccessTokenCredential;
+
+import com.github.scribejava.core.httpclient.jdk.JDKHttpClient;
+import com.github.scribejava.core.httpclient.jdk.JDKHttpClientConfig;
+import com.github.scribejava.core.model.OAuth2AccessToken;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.oauth2.clientauthentication.RequestBodyAuthenticationScheme;
+
+/**
+ * Tests for {@link OAuth20ServicePool}.
+ *
+ * @author agent
+ */
+class OAuth20ServicePoolTest {
+
+    private final AtomicInteger m_closeCount = new AtomicInteger();
+
+    private OAuth20Service createService(final String tokenUrl, final String secret, final String fieldValue) {
+        final var api = new CustomApi20(tokenUrl, "", Verb.POST, RequestBodyAuthenticationScheme.instance());
+        return new CustomOAuth2ServiceBuilder("client")//
+                .apiSecret(secret)//
+                .additionalRequestBodyField("resource", fieldValue)//
+                .httpClient(new JDKHttpClient(JDKHttpClientConfig.defaultConfig()) {
+                    @Override
+                    public void close() {
+                        m_closeCount.incrementAndGet();
+                    }
+                })//
+                .build(api);
+    }
+
+    @Test
+    void poolsServicesWithSameConfiguration() {
+        final var pool = new OAuth20ServicePool(10);
+
+        final var first = pool.pooled(createService("http://localhost/token", "secret", "a"));
+        final var second = pool.pooled(createService("http://localhost/token", "secret", "a"));
+
+        assertSame(first.get(), second.get());
+        assertSame(first.get(), first.get());
+        assertEquals(1, pool.size());
+        // the redundant service has been closed
+        assertEquals(1, m_closeCount.get());
+    }
+
+    @Test
+    void fingerprintCoversConfiguration() {
+        final var reference = OAuth20ServicePool.fingerprint(createService("http://localhost/token", "secret", "a"));
+
+        assertEquals(reference,
+                OAuth20ServicePool.fingerprint(createService("http://localhost/token", "secret", "a")));
+        assertNotEquals(reference,
+                OAuth20ServicePool.fingerprint(createService("http://localhost/other", "secret", "a")));
+        assertNotEquals(reference,
+                OAuth20ServicePool.fingerprint(createService("http://localhost/token", "secret2", "a")));
+        assertNotEquals(reference,
+                OAuth20ServicePool.fingerprint(createService("http://localhost/token", "secret", "b")));
+        assertFalse(reference.contains("secret"));
+    }
+
+    @Test
+    void evictedServicesRemainUsable() {
+        final var pool = new OAuth20ServicePool(2);
+
+        final var first = pool.pooled(createService("http://localhost/token1", "secret", "a"));
+        final var service = first.get();
+        pool.pooled(createService("http://localhost/token2", "secret", "a"));
+        pool.pooled(createService("http://localhost/token3", "secret", "a"));
+        assertEquals(2, pool.size());
+
+        assertSame(service, first.get());
+        assertEquals(2, pool.size());
+        assertEquals(0, m_closeCount.get());
+    }
+
+    @Test
+    void closesEvictedServicesOnceReleased() {
+        final var pool = new OAuth20ServicePool(1);
+
+        final var first = pool.pooled(createService("http://localhost/token1", "secret", "a"));
+        final var second = pool.pooled(createService("http://localhost/token1", "secret", "a"));
+        final var other = pool.pooled(createService("http://localhost/token2", "secret", "a"));
+        assertEquals(1, pool.size());
+        // the redundant service has been closed, the evicted one is still leased
+        assertEquals(1, m_closeCount.get());
+
+        OAuth20ServicePool.release(first);
+        assertEquals(1, m_closeCount.get());
+        OAuth20ServicePool.release(second);
+        assertEquals(2, m_closeCount.get());
+
+        // services that are still pooled are not closed when released
+        OAuth20ServicePool.release(other);
+        assertEquals(2, m_closeCount.get());
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void refreshDoesNotClosePooledServices() throws IOException {
+        final var pool = new OAuth20ServicePool(10);
+        final var supplier = pool.pooled(createService("http://localhost/token", "secret", "a"));
+        final var unpooled = createService("http://localhost/token", "secret", "a");
+        final var expiredToken = new OAuth2AccessToken("token", "Bearer", -10, null, null, null);
+        final TokenGrant grant = s -> expiredToken;
+
+        final var pooledCredential =
+            (AccessTokenCredential)CredentialFactory.fromScribeToken(expiredToken, supplier, grant);
+        pooledCredential.getAccessToken(true);
+        assertEquals(0, m_closeCount.get());
+
+        final var unpooledCredential =
+            (AccessTokenCredential)CredentialFactory.fromScribeToken(expiredToken, () -> unpooled, grant);
+        unpooledCredential.getAccessToken(true);
+        assertEquals(1, m_closeCount.get());
+        assertNotSame(unpooled, supplier.get());
+    }
+}
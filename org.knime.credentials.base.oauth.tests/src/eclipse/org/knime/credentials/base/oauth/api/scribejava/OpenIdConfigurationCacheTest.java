@@ -0,0 +1,193 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.knime.credentials.base.oauth.api.MutableClock;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for {@link OpenIdConfigurationCache}, which run against a local
+ * stand-in for an OpenID Connect provider.
+ *
+ * @author agent
+ */
+class OpenIdConfigurationCacheTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private HttpServer m_server;
+
+    private ExecutorService m_serverExecutor;
+
+    private final AtomicInteger m_requests = new AtomicInteger();
+
+    private final AtomicInteger m_notModified = new AtomicInteger();
+
+    private volatile String m_issuerInDocument;
+
+    private final MutableClock m_clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    @TempDir
+    Path m_cacheDir;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        m_serverExecutor = Executors.newFixedThreadPool(4);
+        m_server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        m_server.setExecutor(m_serverExecutor);
+        m_issuerInDocument = issuer();
+        m_server.createContext("/tenant" + OpenIdConfigurationCache.WELL_KNOWN_PATH, exchange -> {
+            m_requests.incrementAndGet();
+            exchange.getResponseHeaders().add("Cache-Control", "public, max-age=600");
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                m_notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            final var body = String.format("{\"issuer\":\"%s\",\"authorization_endpoint\":\"%s/authorize\","
+                    + "\"token_endpoint\":\"%s/token\",\"jwks_uri\":\"%s/keys\","
+                    + "\"response_types_supported\":[\"code\"]}", m_issuerInDocument, issuer(), issuer(), issuer())
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        m_server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        m_server.stop(0);
+        m_serverExecutor.shutdownNow();
+    }
+
+    private String issuer() {
+        return "http://localhost:" + m_server.getAddress().getPort() + "/tenant";
+    }
+
+    private OpenIdConfigurationCache createCache() {
+        return new OpenIdConfigurationCache(m_cacheDir, new JavaNetHttpClient(), m_clock);
+    }
+
+    @Test
+    void discoversEndpoints() throws IOException {
+        final var metadata = createCache().getMetadata(issuer() + "/");
+
+        assertEquals(issuer(), metadata.issuer());
+        assertEquals(issuer() + "/authorize", metadata.authorizationEndpoint());
+        assertEquals(issuer() + "/token", metadata.tokenEndpoint());
+        assertEquals(issuer() + "/keys", metadata.jwksUri());
+        assertNull(metadata.introspectionEndpoint());
+        assertNull(metadata.deviceAuthorizationEndpoint());
+    }
+
+    @Test
+    void servesFromMemoryAndDisk() throws IOException {
+        final var cache = createCache();
+        cache.getMetadata(issuer());
+        cache.getMetadata(issuer());
+        assertEquals(1, m_requests.get());
+
+        // a new instance (e.g. after a restart) reads the persisted metadata
+        final var restarted = createCache();
+        assertEquals(issuer() + "/token", restarted.getMetadata(issuer()).tokenEndpoint());
+        assertEquals(1, m_requests.get());
+    }
+
+    @Test
+    void revalidatesStaleMetadataInBackground() throws Exception {
+        // in memory only, so that the background revalidation does not write to disk
+        final var cache = new OpenIdConfigurationCache(null, new JavaNetHttpClient(), m_clock);
+        cache.getMetadata(issuer());
+
+        m_clock.advance(Duration.ofMinutes(11));
+        // the stale metadata is returned right away
+        assertEquals(issuer() + "/token", cache.getMetadata(issuer()).tokenEndpoint());
+
+        final var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (m_notModified.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, m_notModified.get());
+        assertEquals(2, m_requests.get());
+    }
+
+    @Test
+    void rejectsMismatchingIssuer() {
+        m_issuerInDocument = "https://attacker.example.com";
+
+        final var e = assertThrows(IOException.class, () -> createCache().getMetadata(issuer()));
+        assertTrue(e.getMessage().contains("different issuer"), e.getMessage());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link RedirectListener}.
+ *
+ * @author agent
+ */
+class RedirectListenerTest {
+
+    private final HttpClient m_client = HttpClient.newHttpClient();
+
+    private int m_port;
+
+    @BeforeEach
+    void findFreePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            m_port = socket.getLocalPort();
+        }
+    }
+
+    private int redirect(final String query) throws IOException, InterruptedException {
+        final var request = HttpRequest.newBuilder(URI.create("http://localhost:" + m_port + "/?" + query)).build();
+        return m_client.send(request, BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Listeners are stopped by the thread that completes the last pending login,
+     * which may happen shortly after a waiting thread has been woken up.
+     */
+    private void assertStopped() throws InterruptedException {
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (RedirectListener.isListening(m_port) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(RedirectListener.isListening(m_port));
+    }
+
+    @Test
+    void parsesQueryOnce() {
+        final var params = RedirectListener.parseQuery("Code=a%2Bb%3D&state=s1&state=s2&empty=");
+
+        assertEquals("a+b=", params.get("code"));
+        assertEquals("s1", params.get("state"));
+        assertEquals("", params.get("empty"));
+    }
+
+    @Test
+    void routesConcurrentLoginsByState() throws Exception {
+        final var first = RedirectListener.awaitRedirect(m_port, "first");
+        final var second = RedirectListener.awaitRedirect(m_port, "second");
+
+        assertEquals(200, redirect("code=2&state=second"));
+        assertEquals("2", second.get(5, TimeUnit.SECONDS).get("code"));
+        assertFalse(first.isDone());
+
+        assertEquals(200, redirect("error=access_denied&state=first"));
+        assertEquals("access_denied", first.get(5, TimeUnit.SECONDS).get("error"));
+
+        // the port is released once no login is pending anymore
+        assertStopped();
+    }
+
+    @Test
+    void ignoresUnknownState() throws Exception {
+        final var login = RedirectListener.awaitRedirect(m_port, "known");
+        try {
+            assertEquals(400, redirect("code=1&state=unknown"));
+            assertEquals(400, redirect("code=1"));
+            assertFalse(login.isDone());
+        } finally {
+            login.cancel(false);
+        }
+        assertStopped();
+    }
+
+    @Test
+    void unregistersTimedOutLogins() throws Exception {
+        final var login = RedirectListener.awaitRedirect(m_port, "slow").orTimeout(100, TimeUnit.MILLISECONDS);
+        assertTrue(RedirectListener.isListening(m_port));
+
+        final var e = assertThrows(ExecutionException.class, () -> login.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertStopped();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.Credential;
+import org.knime.credentials.base.oauth.api.AccessTokenCredential;
+
+import com.github.scribejava.core.builder.ServiceBuilder;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth2.clientauthentication.RequestBodyAuthenticationScheme;
+
+/**
+ * Tests for {@link SharedTokenRegistry}.
+ *
+ * @author agent
+ */
+class SharedTokenRegistryTest {
+
+    private final AtomicInteger m_loads = new AtomicInteger();
+
+    private final ExecutorService m_executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdownExecutor() {
+        m_executor.shutdownNow();
+    }
+
+    private Credential load() {
+        return new AccessTokenCredential("token" + m_loads.incrementAndGet(), //
+                Instant.now().plusSeconds(3600), //
+                "Bearer", //
+                null);
+    }
+
+    private static Credential await(final SharedTokenRegistry.Lease lease) throws Exception {
+        return lease.getCredential().get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void sharesCredentialUntilLastLeaseIsClosed() throws Exception {
+        final var registry = new SharedTokenRegistry();
+
+        final var first = registry.acquire("a", this::load, m_executor);
+        final var second = registry.acquire("a", this::load, m_executor);
+        final var other = registry.acquire("b", this::load, m_executor);
+
+        assertSame(await(first), await(second));
+        assertNotSame(await(first), await(other));
+        assertEquals(2, m_loads.get());
+        assertEquals(2, registry.size());
+
+        first.close();
+        first.close();
+        assertEquals(2, registry.size());
+        second.close();
+        assertEquals(1, registry.size());
+
+        // the next lease loads a new credential
+        final var third = registry.acquire("a", this::load, m_executor);
+        assertNotSame(await(first), await(third));
+        assertEquals(3, m_loads.get());
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        final var registry = new SharedTokenRegistry();
+        final var threads = 16;
+        final var start = new CountDownLatch(1);
+        final var callers = Executors.newFixedThreadPool(threads);
+        try {
+            final var credentials = new ArrayList<Future<Credential>>();
+            for (var i = 0; i < threads; i++) {
+                credentials.add(callers.submit(() -> {
+                    start.await();
+                    return await(registry.acquire("a", () -> {
+                        Thread.sleep(50);
+                        return load();
+                    }, m_executor));
+                }));
+            }
+            start.countDown();
+
+            final var credential = credentials.get(0).get(10, TimeUnit.SECONDS);
+            for (final var other : credentials) {
+                assertSame(credential, other.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, m_loads.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void failuresAreNotShared() throws Exception {
+        final var registry = new SharedTokenRegistry();
+
+        final var failed = registry.acquire("a", () -> {
+            throw new IOException("IdP unavailable");
+        }, m_executor);
+        final var e = assertThrows(ExecutionException.class, () -> await(failed));
+        assertInstanceOf(IOException.class, e.getCause());
+        assertEquals("IdP unavailable", e.getCause().getMessage());
+        failed.close();
+        assertEquals(0, registry.size());
+
+        try (var lease = registry.acquire("a", this::load, m_executor)) {
+            assertNotNull(await(lease));
+            assertEquals(1, m_loads.get());
+        }
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void closingOneLeaseDoesNotAffectOtherWaiters() throws Exception {
+        final var registry = new SharedTokenRegistry();
+        final var proceed = new CountDownLatch(1);
+        final Callable<Credential> loader = () -> {
+            proceed.await();
+            return load();
+        };
+
+        final var canceled = registry.acquire("a", loader, m_executor);
+        final var waiting = registry.acquire("a", loader, m_executor);
+
+        // the first waiter gives up, e.g. because its node has been canceled
+        final var canceledCredential = canceled.getCredential();
+        canceledCredential.cancel(true);
+        canceled.close();
+        proceed.countDown();
+
+        assertNotNull(await(waiting));
+        assertTrue(canceledCredential.isCancelled());
+        assertEquals(1, m_loads.get());
+        assertEquals(1, registry.size());
+        waiting.close();
+    }
+
+    @Test
+    void closingLastLeaseInterruptsPendingLoad() throws Exception {
+        final var registry = new SharedTokenRegistry();
+        final var started = new CountDownLatch(1);
+        final var interrupted = new CountDownLatch(1);
+
+        final var lease = registry.acquire("a", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) { // NOSONAR
+                interrupted.countDown();
+                throw e;
+            }
+            return load();
+        }, m_executor);
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        lease.close();
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertEquals(0, registry.size());
+        assertEquals(0, m_loads.get());
+    }
+
+    @Test
+    void fingerprintCoversGrantParameters() {
+        final var service = new ServiceBuilder("client")//
+                .apiSecret("secret")//
+                .build(new CustomApi20("http://localhost/token", "", Verb.POST,
+                        RequestBodyAuthenticationScheme.instance()));
+
+        final var reference = SharedTokenRegistry.fingerprint(service,
+                Map.of("grant_type", "password", "username", "user", "password", "pa55word"));
+
+        assertEquals(reference, SharedTokenRegistry.fingerprint(service,
+                Map.of("grant_type", "password", "username", "user", "password", "pa55word")));
+        assertNotEquals(reference, SharedTokenRegistry.fingerprint(service,
+                Map.of("grant_type", "password", "username", "user", "password", "other")));
+        assertNotEquals(reference, SharedTokenRegistry.fingerprint(service,
+                Map.of("grant_type", "password", "username", "other", "password", "pa55word")));
+        assertNotEquals(reference, OAuth20ServicePool.fingerprint(service));
+        assertFalse(reference.contains("pa55word"));
+    }
+}
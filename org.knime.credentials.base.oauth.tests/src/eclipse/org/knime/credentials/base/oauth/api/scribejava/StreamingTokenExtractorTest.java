@@ -0,0 +1,173 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.oauth.api.ScopeSet;
+
+import com.github.scribejava.core.exceptions.OAuthException;
+import com.github.scribejava.core.extractors.OAuth2AccessTokenJsonExtractor;
+import com.github.scribejava.core.model.OAuth2AccessTokenErrorResponse;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.oauth2.OAuth2Error;
+
+/**
+ * Tests for {@link StreamingTokenExtractor}.
+ *
+ * @author agent
+ */
+class StreamingTokenExtractorTest {
+
+    private static final String TOKEN_RESPONSE = """
+            {
+              "access_token": "abc",
+              "token_type": "Bearer",
+              "expires_in": 3599,
+              "ext_expires_in": 3599,
+              "scope": "openid profile  email",
+              "refresh_token": "def",
+              "id_token": "ghi"
+            }""";
+
+    private static Response response(final int code, final String body) {
+        return new Response(code, null, Map.of(),
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static StreamingTokenExtractor.ParsedAccessToken extract(final String body) throws IOException {
+        return (StreamingTokenExtractor.ParsedAccessToken)StreamingTokenExtractor.instance()
+                .extract(response(200, body));
+    }
+
+    @Test
+    void extractsAllFields() throws IOException {
+        final var token = extract(TOKEN_RESPONSE);
+
+        assertEquals("abc", token.getAccessToken());
+        assertEquals("Bearer", token.getTokenType());
+        assertEquals(3599, token.getExpiresIn());
+        assertEquals("def", token.getRefreshToken());
+        assertEquals("ghi", token.getOpenIdToken());
+        assertEquals("openid profile  email", token.getScope());
+        assertEquals(ScopeSet.of("email", "openid", "profile"), token.getScopeSet());
+    }
+
+    @Test
+    void extractsSameTokenAsScribejava() throws IOException {
+        final var scribeToken = OAuth2AccessTokenJsonExtractor.instance().extract(response(200, TOKEN_RESPONSE));
+        final var token = extract(TOKEN_RESPONSE);
+
+        assertEquals(scribeToken.getAccessToken(), token.getAccessToken());
+        assertEquals(scribeToken.getTokenType(), token.getTokenType());
+        assertEquals(scribeToken.getExpiresIn(), token.getExpiresIn());
+        assertEquals(scribeToken.getRefreshToken(), token.getRefreshToken());
+        assertEquals(scribeToken.getScope(), token.getScope());
+    }
+
+    @Test
+    void toleratesQuirks() throws IOException {
+        final var token = extract("""
+                {
+                  "extra": {"nested": [1, 2, {"x": null}]},
+                  "access_token": "abc",
+                  "token_type": "bearer",
+                  "expires_in": "3600",
+                  "scope": ["read", "write"],
+                  "refresh_token": null
+                }""");
+
+        assertEquals("abc", token.getAccessToken());
+        assertEquals(3600, token.getExpiresIn());
+        assertNull(token.getRefreshToken());
+        assertNull(token.getOpenIdToken());
+        assertEquals(ScopeSet.of("read", "write"), token.getScopeSet());
+        assertEquals("read write", token.getScope());
+
+        assertEquals(3600, extract("{\"access_token\":\"abc\",\"expires_in\":3600.5}").getExpiresIn());
+        assertEquals(3600, extract("{\"access_token\":\"abc\",\"expires_in\":\" 3600 \"}").getExpiresIn());
+        assertNull(extract("{\"access_token\":\"abc\",\"expires_in\":\"\"}").getExpiresIn());
+        assertEquals(ScopeSet.empty(), extract("{\"access_token\":\"abc\"}").getScopeSet());
+    }
+
+    @Test
+    void rejectsMalformedResponses() {
+        assertThrows(OAuthException.class, () -> extract("{\"token_type\":\"bearer\"}"));
+        assertThrows(OAuthException.class, () -> extract("[]"));
+        assertThrows(OAuthException.class, () -> extract("{\"access_token\":\"abc\",\"expires_in\":\"soon\"}"));
+        assertThrows(OAuthException.class, () -> extract("{\"access_token\":{\"value\":\"abc\"}}"));
+    }
+
+    @Test
+    void reportsErrorResponses() {
+        final var e = assertThrows(OAuth2AccessTokenErrorResponse.class,
+                () -> StreamingTokenExtractor.instance().extract(response(400,
+                        "{\"error\":\"invalid_grant\",\"error_description\":\"Refresh token expired\"}")));
+
+        assertEquals(OAuth2Error.INVALID_GRANT, e.getError());
+        assertEquals("Refresh token expired", e.getErrorDescription());
+    }
+
+    @Test
+    void extractsTokenFromConsumedResponse() throws IOException {
+        final var response = response(200, TOKEN_RESPONSE);
+        // e.g. scribejava's debug logging reads the body before the extractor
+        assertEquals(TOKEN_RESPONSE, response.getBody());
+
+        assertEquals("abc", StreamingTokenExtractor.instance().extract(response).getAccessToken());
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.oauth.api.scribejava.TokenEndpointRateLimiter.Config;
+
+import com.github.scribejava.core.model.Response;
+
+/**
+ * Tests for {@link TokenEndpointRateLimiter}.
+ *
+ * @author agent
+ */
+class TokenEndpointRateLimiterTest {
+
+    private static final String TOKEN_URL = "https://idp.example.com/oauth2/token";
+
+    private ExecutorService m_executor;
+
+    @BeforeEach
+    void createExecutor() {
+        m_executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void shutdownExecutor() {
+        m_executor.shutdownNow();
+    }
+
+    private static Duration elapsedSince(final long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    @Test
+    void limitsAreDisabledByDefault() {
+        final var config = Config.fromPreferences();
+        assertEquals(TokenEndpointRateLimiter.DEFAULT_RATE, config.rate());
+        assertEquals(TokenEndpointRateLimiter.DEFAULT_MAX_IN_FLIGHT, config.maxInFlight());
+        assertTrue(config.rate() <= 0 && config.maxInFlight() <= 0);
+
+        System.setProperty("knime.oauth2.tokenendpoint.maxInFlight", "4");
+        System.setProperty("knime.oauth2.tokenendpoint.rate", "fast");
+        try {
+            assertEquals(4, Config.fromPreferences().maxInFlight());
+            // invalid values are ignored
+            assertEquals(TokenEndpointRateLimiter.DEFAULT_RATE, Config.fromPreferences().rate());
+        } finally {
+            System.clearProperty("knime.oauth2.tokenendpoint.maxInFlight");
+            System.clearProperty("knime.oauth2.tokenendpoint.rate");
+        }
+    }
+
+    @Test
+    void closingPermitTwiceReleasesOnce() throws IOException {
+        final var limiter = new TokenEndpointRateLimiter(new Config(0, 1, 1, Duration.ofSeconds(5)));
+
+        final var permit = limiter.acquire(TOKEN_URL, "client");
+        permit.close();
+        permit.close();
+        assertEquals(0, limiter.getStatistics().get("idp.example.com").inFlight());
+
+        limiter.acquire(TOKEN_URL, "client").close();
+        assertEquals(2, limiter.getStatistics().get("idp.example.com").granted());
+    }
+
+    @Test
+    void limitsRateAfterBurst() throws IOException {
+        final var limiter = new TokenEndpointRateLimiter(new Config(20, 2, 0, Duration.ofSeconds(5)));
+
+        final var start = System.nanoTime();
+        for (var i = 0; i < 4; i++) {
+            limiter.acquire(TOKEN_URL, "client").close();
+        }
+
+        // two permits from the burst, then one every 50 ms
+        assertTrue(elapsedSince(start).toMillis() >= 90, "Rate limit was not enforced");
+        final var statistics = limiter.getStatistics().get("idp.example.com");
+        assertEquals(4, statistics.granted());
+        assertTrue(statistics.maxQueueTime().toMillis() >= 40);
+        assertEquals(0, statistics.inFlight());
+    }
+
+    @Test
+    void limitsPerHost() throws IOException {
+        final var limiter = new TokenEndpointRateLimiter(new Config(0.1, 1, 0, Duration.ofSeconds(5)));
+
+        limiter.acquire(TOKEN_URL, "client").close();
+        limiter.acquire("https://other.example.com/token", "client").close();
+        limiter.acquire("https://idp.example.com:8443/token", "client").close();
+        assertEquals(List.of("idp.example.com", "idp.example.com:8443", "other.example.com"),
+                new ArrayList<>(limiter.getStatistics().keySet()));
+    }
+
+    @Test
+    void dropsIdleHostsWhenThereAreTooMany() throws IOException {
+        final var limiter = new TokenEndpointRateLimiter(new Config(0, 1, 1, Duration.ofSeconds(5)), 2);
+
+        final var busy = limiter.acquire(TOKEN_URL, "client");
+        limiter.acquire("https://idle.example.com/token", "client").close();
+        assertEquals(2, limiter.getHostCount());
+
+        final var other = limiter.acquire("https://other.example.com/token", "client");
+        // the idle host is dropped, hosts with requests in flight are kept
+        assertEquals(List.of("idp.example.com", "other.example.com"),
+                new ArrayList<>(limiter.getStatistics().keySet()));
+        busy.close();
+        other.close();
+
+        // a dropped host is tracked again once it is used
+        limiter.acquire("https://idle.example.com/token", "client").close();
+        assertEquals(1, limiter.getStatistics().get("idle.example.com").granted());
+    }
+
+    @Test
+    void capsInFlightRequests() throws Exception {
+        final var limiter = new TokenEndpointRateLimiter(new Config(0, 1, 1, Duration.ofSeconds(5)));
+
+        final var first = limiter.acquire(TOKEN_URL, "client");
+        final Future<?> second = m_executor.submit(() -> {
+            limiter.acquire(TOKEN_URL, "client").close();
+            return null;
+        });
+
+        Thread.sleep(100);
+        assertFalse(second.isDone(), "Second request must wait for the first one");
+        first.close();
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(2, limiter.getStatistics().get("idp.example.com").granted());
+    }
+
+    @Test
+    void failsFastWhenDeadlineCannotBeMet() throws IOException {
+        final var limiter = new TokenEndpointRateLimiter(new Config(1, 1, 0, Duration.ofSeconds(5)));
+        limiter.acquire(TOKEN_URL, "client").close();
+
+        final var start = System.nanoTime();
+        final var e = assertThrows(IOException.class,
+                () -> limiter.acquire(TOKEN_URL, "client", Duration.ofMillis(500)));
+        assertTrue(e.getMessage().startsWith("Timed out waiting"), e.getMessage());
+        assertTrue(elapsedSince(start).toMillis() < 400, "Request should have failed right away");
+        assertEquals(1, limiter.getStatistics().get("idp.example.com").timedOut());
+    }
+
+    @Test
+    void honorsRetryAfterPerClient() throws IOException {
+        final var limiter = new TokenEndpointRateLimiter(new Config(0, 1, 0, Duration.ofSeconds(5)));
+
+        try (var permit = limiter.acquire(TOKEN_URL, "client")) {
+            permit.onResponse(new Response(429, "Too Many Requests", Map.of("retry-after", "2"), ""));
+        }
+
+        assertThrows(IOException.class, () -> limiter.acquire(TOKEN_URL, "client", Duration.ofMillis(200)));
+        // other clients are not held up
+        limiter.acquire(TOKEN_URL, "other-client", Duration.ofMillis(200)).close();
+        assertEquals(1, limiter.getStatistics().get("idp.example.com").throttled());
+    }
+
+    @Test
+    void honorsRetryAfterForHostWhenUnavailable() throws IOException {
+        final var limiter = new TokenEndpointRateLimiter(new Config(0, 1, 0, Duration.ofSeconds(5)));
+
+        try (var permit = limiter.acquire(TOKEN_URL, "client")) {
+            permit.onResponse(new Response(503, "Service Unavailable", Map.of("Retry-After", "2"), ""));
+        }
+
+        assertThrows(IOException.class, () -> limiter.acquire(TOKEN_URL, "other-client", Duration.ofMillis(200)));
+    }
+
+    @Test
+    void ignoresRetryAfterOnSuccess() throws IOException {
+        final var limiter = new TokenEndpointRateLimiter(new Config(0, 1, 0, Duration.ofSeconds(5)));
+
+        try (var permit = limiter.acquire(TOKEN_URL, "client")) {
+            permit.onResponse(new Response(200, "OK", Map.of("Retry-After", "60"), "{}"));
+        }
+        limiter.acquire(TOKEN_URL, "client", Duration.ofMillis(200)).close();
+    }
+
+    @Test
+    void grantsPermitsInFifoOrder() throws Exception {
+        final var limiter = new TokenEndpointRateLimiter(new Config(50, 1, 0, Duration.ofSeconds(5)));
+        limiter.acquire(TOKEN_URL, "client").close();
+
+        final var order = new CopyOnWriteArrayList<Integer>();
+        final var futures = new ArrayList<Future<?>>();
+        for (var i = 0; i < 5; i++) {
+            final var index = i;
+            futures.add(m_executor.submit(() -> {
+                limiter.acquire(TOKEN_URL, "client").close();
+                order.add(index);
+                return null;
+            }));
+
+            // wait until the request is queued, so that the queue order is known
+            while (futures.size() - 1 - order.size() >= limiter.getStatistics().get("idp.example.com").queued()) {
+                Thread.sleep(1);
+            }
+        }
+
+        for (var future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of(0, 1, 2, 3, 4), order);
+    }
+
+    @Test
+    void parsesRetryAfterHeader() {
+        final var now = Instant.parse("2026-01-01T00:00:00Z");
+
+        assertEquals(Optional.of(Duration.ofSeconds(30)), TokenEndpointRateLimiter
+                .getRetryAfter(new Response(429, null, Map.of("Retry-After", " 30 "), ""), now));
+        assertEquals(Optional.of(Duration.ofSeconds(90)), TokenEndpointRateLimiter.getRetryAfter(
+                new Response(503, null, Map.of("Retry-After", "Thu, 01 Jan 2026 00:01:30 GMT"), ""), now));
+        assertEquals(Optional.empty(), TokenEndpointRateLimiter
+                .getRetryAfter(new Response(429, null, Map.of("Retry-After", "soon"), ""), now));
+        assertEquals(Optional.empty(),
+                TokenEndpointRateLimiter.getRetryAfter(new Response(429, null, Map.of(), ""), now));
+    }
+}
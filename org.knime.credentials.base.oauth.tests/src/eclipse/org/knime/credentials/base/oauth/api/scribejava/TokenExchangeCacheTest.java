@@ -0,0 +1,267 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.oauth.api.AccessTokenCredential;
+import org.knime.credentials.base.oauth.api.MutableClock;
+
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.oauth2.clientauthentication.HttpBasicAuthenticationScheme;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for {@link TokenExchangeCache} and {@link TokenExchangeFlow}, which run
+ * against a local stand-in for a token endpoint.
+ *
+ * @author agent
+ */
+class TokenExchangeCacheTest {
+
+    private HttpServer m_server;
+
+    private ExecutorService m_serverExecutor;
+
+    private final AtomicInteger m_exchanges = new AtomicInteger();
+
+    private volatile Map<String, String> m_lastRequest;
+
+    private final MutableClock m_clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    private Supplier<OAuth20Service> m_serviceSupplier;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        m_serverExecutor = Executors.newFixedThreadPool(8);
+        m_server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        m_server.setExecutor(m_serverExecutor);
+        m_server.createContext("/token", exchange -> {
+            final var request = parseForm(new String(exchange.getRequestBody().readAllBytes(),
+                    StandardCharsets.UTF_8));
+            m_lastRequest = request;
+
+            final String body;
+            final int code;
+            if (request.get("subject_token").equals("invalid")) {
+                code = 400;
+                body = "{\"error\":\"invalid_grant\",\"error_description\":\"Subject token is invalid\"}";
+            } else {
+                code = 200;
+                final var token = "exchanged-" + request.get("subject_token") + "-" + m_exchanges.incrementAndGet();
+                body = String.format("{\"access_token\":\"%s\",\"issued_token_type\":\"%s\","
+                        + "\"token_type\":\"Bearer\",\"expires_in\":3600}", token, TokenExchangeFlow.ACCESS_TOKEN_TYPE);
+                sleep(50);
+            }
+
+            final var bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        m_server.start();
+
+        final var api = new CustomApi20("http://localhost:" + m_server.getAddress().getPort() + "/token", "",
+                Verb.POST, HttpBasicAuthenticationScheme.instance());
+        m_serviceSupplier = new OAuth20ServicePool(10).pooled(new CustomOAuth2ServiceBuilder("client")//
+                .apiSecret("secret")//
+                .httpClient(new JavaNetHttpClient())//
+                .build(api));
+    }
+
+    @AfterEach
+    void stopServer() {
+        m_server.stop(0);
+        m_serverExecutor.shutdownNow();
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parseForm(final String form) {
+        final var params = new HashMap<String, String>();
+        for (final var pair : form.split("&")) {
+            final var parts = pair.split("=", 2);
+            params.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                    URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private AccessTokenCredential subject(final String token, final Duration lifetime) {
+        return new AccessTokenCredential(token, m_clock.instant().plus(lifetime), "Bearer", Set.of(), null, m_clock);
+    }
+
+    @Test
+    void sendsTokenExchangeRequest() throws IOException {
+        final var cache = new TokenExchangeCache(100, m_clock);
+
+        final var token = cache.exchange(m_serviceSupplier, subject("user", Duration.ofHours(2)), "api://downstream",
+                Set.of("read"));
+
+        assertEquals("exchanged-user-1", token.getAccessToken());
+        assertEquals(TokenExchangeFlow.GRANT_TYPE, m_lastRequest.get("grant_type"));
+        assertEquals("user", m_lastRequest.get("subject_token"));
+        assertEquals(TokenExchangeFlow.ACCESS_TOKEN_TYPE, m_lastRequest.get("subject_token_type"));
+        assertEquals("api://downstream", m_lastRequest.get("audience"));
+        assertEquals("read", m_lastRequest.get("scope"));
+        assertEquals(m_clock.instant().plusSeconds(3600), token.getExpiresAfter().orElseThrow());
+    }
+
+    @Test
+    void cachesPerSubjectAudienceAndScopes() throws IOException {
+        final var cache = new TokenExchangeCache(100, m_clock);
+        final var user = subject("user", Duration.ofHours(2));
+
+        final var first = cache.exchange(m_serviceSupplier, user, "a", Set.of("read"));
+        assertEquals(first.getAccessToken(),
+                cache.exchange(m_serviceSupplier, user, "a", Set.of("read")).getAccessToken());
+        assertEquals(1, m_exchanges.get());
+
+        cache.exchange(m_serviceSupplier, user, "b", Set.of("read"));
+        cache.exchange(m_serviceSupplier, user, "a", Set.of("write"));
+        cache.exchange(m_serviceSupplier, subject("other", Duration.ofHours(2)), "a", Set.of("read"));
+        assertEquals(4, m_exchanges.get());
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    void exchangedTokensDoNotOutliveSubjectToken() throws IOException {
+        final var cache = new TokenExchangeCache(100, m_clock);
+        final var user = subject("user", Duration.ofMinutes(10));
+
+        final var token = cache.exchange(m_serviceSupplier, user, "a", Set.of("read"));
+        assertEquals(m_clock.instant().plus(Duration.ofMinutes(10)), token.getExpiresAfter().orElseThrow());
+
+        m_clock.advance(Duration.ofMinutes(10));
+        final var second = cache.exchange(m_serviceSupplier, user, "a", Set.of("read"));
+        assertNotEquals(token.getAccessToken(), second.getAccessToken());
+        assertEquals(2, m_exchanges.get());
+    }
+
+    @Test
+    void coalescesConcurrentExchanges() throws Exception {
+        final var cache = new TokenExchangeCache(100, m_clock);
+        final var user = subject("user", Duration.ofHours(2));
+        final var threads = 16;
+        final var start = new CountDownLatch(1);
+        final var executor = Executors.newFixedThreadPool(threads);
+        try {
+            final var tokens = new ArrayList<Future<String>>();
+            for (var i = 0; i < threads; i++) {
+                tokens.add(executor.submit(() -> {
+                    start.await();
+                    return cache.exchange(m_serviceSupplier, user, "a", Set.of("read")).getAccessToken();
+                }));
+            }
+            start.countDown();
+
+            for (final var token : tokens) {
+                assertEquals("exchanged-user-1", token.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, m_exchanges.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        final var cache = new TokenExchangeCache(100, m_clock);
+        final var invalid = subject("invalid", Duration.ofHours(2));
+
+        final var e = assertThrows(IOException.class,
+                () -> cache.exchange(m_serviceSupplier, invalid, "a", Set.of()));
+        assertTrue(e.getMessage().contains("invalid_grant"), e.getMessage());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void credentialExchangesPerScopes() throws IOException {
+        final var cache = new TokenExchangeCache(100, m_clock);
+        final var credential = cache.createCredential(m_serviceSupplier, subject("user", Duration.ofHours(2)), "a");
+
+        final var read = credential.getAccessTokenWithScopes(Set.of("read")).getAccessToken();
+        assertEquals(read, credential.getAccessTokenWithScopes(Set.of("read")).getAccessToken());
+        assertNotEquals(read, credential.getAccessTokenWithScopes(Set.of("write")).getAccessToken());
+        assertEquals(2, m_exchanges.get());
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.oauth.api.AccessTokenCredential;
+import org.knime.credentials.base.oauth.api.MutableClock;
+
+import com.github.scribejava.core.model.OAuth2AccessToken;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.oauth2.clientauthentication.HttpBasicAuthenticationScheme;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for {@link TokenIntrospector}, which run against a local stand-in for a
+ * token introspection endpoint.
+ *
+ * @author agent
+ */
+class TokenIntrospectorTest {
+
+    private HttpServer m_server;
+
+    private ExecutorService m_serverExecutor;
+
+    private final AtomicInteger m_introspections = new AtomicInteger();
+
+    private volatile Map<String, String> m_lastRequest;
+
+    private volatile long m_expiresAt;
+
+    private final MutableClock m_clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    private String m_introspectionUrl;
+
+    private Supplier<OAuth20Service> m_serviceSupplier;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        m_expiresAt = m_clock.instant().plus(Duration.ofHours(1)).getEpochSecond();
+        m_serverExecutor = Executors.newFixedThreadPool(8);
+        m_server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        m_server.setExecutor(m_serverExecutor);
+        m_server.createContext("/introspect", exchange -> {
+            final var request = parseForm(new String(exchange.getRequestBody().readAllBytes(),
+                    StandardCharsets.UTF_8));
+            m_lastRequest = request;
+            m_introspections.incrementAndGet();
+
+            final String body;
+            final int code;
+            final var token = request.get("token");
+            if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+                code = 401;
+                body = "{\"error\":\"invalid_client\"}";
+            } else if (token.equals("revoked")) {
+                code = 200;
+                body = "{\"active\":false}";
+            } else {
+                code = 200;
+                body = String.format("{\"active\":true,\"client_id\":\"client\",\"scope\":\"read write\","
+                        + "\"exp\":%d,\"ext\":{\"nested\":[1,2]}}", m_expiresAt);
+                sleep(50);
+            }
+
+            final var bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        m_server.start();
+
+        m_introspectionUrl = "http://localhost:" + m_server.getAddress().getPort() + "/introspect";
+        m_serviceSupplier = createServiceSupplier("secret");
+    }
+
+    private Supplier<OAuth20Service> createServiceSupplier(final String secret) {
+        final var api = new CustomApi20("http://localhost:" + m_server.getAddress().getPort() + "/token", "",
+                Verb.POST, HttpBasicAuthenticationScheme.instance(), List.of(), false, m_introspectionUrl);
+        final var builder = new CustomOAuth2ServiceBuilder("client")//
+                .httpClient(new JavaNetHttpClient());
+        if (secret != null) {
+            builder.apiSecret(secret);
+        }
+        return new OAuth20ServicePool(10).pooled(builder.build(api));
+    }
+
+    @AfterEach
+    void stopServer() {
+        m_server.stop(0);
+        m_serverExecutor.shutdownNow();
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parseForm(final String form) {
+        final var params = new HashMap<String, String>();
+        for (final var pair : form.split("&")) {
+            final var parts = pair.split("=", 2);
+            params.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                    URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    @Test
+    void sendsIntrospectionRequest() throws IOException {
+        final var introspector = new TokenIntrospector(Duration.ofMinutes(5), 100, m_clock);
+
+        final var result = introspector.introspect(m_serviceSupplier, m_introspectionUrl, "opaque");
+
+        assertTrue(result.active());
+        assertEquals(Instant.ofEpochSecond(m_expiresAt), result.expiresAfter());
+        assertEquals(Set.of("read", "write"), result.scopes());
+        assertEquals("opaque", m_lastRequest.get("token"));
+        assertEquals("access_token", m_lastRequest.get("token_type_hint"));
+
+        final var revoked = introspector.introspect(m_serviceSupplier, m_introspectionUrl, "revoked");
+        assertFalse(revoked.active());
+        assertEquals(null, revoked.expiresAfter());
+    }
+
+    @Test
+    void cachesResultsForTtlButNotBeyondExpiry() throws IOException {
+        final var introspector = new TokenIntrospector(Duration.ofMinutes(5), 100, m_clock);
+
+        introspector.introspect(m_serviceSupplier, m_introspectionUrl, "opaque");
+        introspector.introspect(m_serviceSupplier, m_introspectionUrl, "opaque");
+        assertEquals(1, m_introspections.get());
+
+        m_clock.advance(Duration.ofMinutes(5));
+        introspector.introspect(m_serviceSupplier, m_introspectionUrl, "opaque");
+        assertEquals(2, m_introspections.get());
+
+        // the token expires before the TTL has passed
+        m_expiresAt = m_clock.instant().plus(Duration.ofMinutes(1)).getEpochSecond();
+        introspector.introspect(m_serviceSupplier, m_introspectionUrl, "other");
+        m_clock.advance(Duration.ofMinutes(1));
+        introspector.introspect(m_serviceSupplier, m_introspectionUrl, "other");
+        assertEquals(4, m_introspections.get());
+    }
+
+    @Test
+    void coalescesConcurrentIntrospections() throws Exception {
+        final var introspector = new TokenIntrospector(Duration.ofMinutes(5), 100, m_clock);
+        final var threads = 16;
+        final var start = new CountDownLatch(1);
+        final var executor = Executors.newFixedThreadPool(threads);
+        try {
+            final var results = new ArrayList<Future<Boolean>>();
+            for (var i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return introspector.introspect(m_serviceSupplier, m_introspectionUrl, "opaque").active();
+                }));
+            }
+            start.countDown();
+
+            for (final var result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, m_introspections.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        final var introspector = new TokenIntrospector(Duration.ofMinutes(5), 100, m_clock);
+        final var unauthenticated = createServiceSupplier(null);
+
+        final var e = assertThrows(IOException.class,
+                () -> introspector.introspect(unauthenticated, m_introspectionUrl, "opaque"));
+        assertTrue(e.getMessage().contains("HTTP 401"), e.getMessage());
+        assertEquals(0, introspector.size());
+    }
+
+    @Test
+    void credentialFactoryEnrichesOpaqueTokens() throws IOException {
+        m_expiresAt = Instant.now().plus(Duration.ofHours(1)).getEpochSecond();
+
+        final var scribeToken = new OAuth2AccessToken("opaque-factory", "Bearer", null, null, null, null);
+        final var credential = (AccessTokenCredential)CredentialFactory.fromScribeToken(scribeToken,
+                m_serviceSupplier);
+
+        assertEquals(Optional.of(Instant.ofEpochSecond(m_expiresAt)), credential.getExpiresAfter());
+        assertEquals(Set.of("read", "write"), credential.getScopes());
+        assertEquals(Optional.of(true), credential.isActive());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+import org.knime.credentials.base.oauth.api.AccessTokenAccessor;
+import org.knime.credentials.base.oauth.api.MutableClock;
+
+import com.github.scribejava.core.builder.ServiceBuilder;
+import com.github.scribejava.core.builder.api.DefaultApi20;
+import com.github.scribejava.core.model.OAuth2AccessToken;
+
+/**
+ * Accelerated-time soak test for the token expiry and refresh logic of the
+ * credentials created by {@link CredentialFactory}. It simulates a day of token
+ * usage by many credentials, including a refresh storm, and checks that tokens
+ * are refreshed once per lifetime, and exactly once per credential during the
+ * storm.
+ *
+ * @author agent
+ */
+class TokenRefreshSoakTest {
+
+    private static final int NUM_CREDENTIALS = 100;
+
+    private static final Duration SIMULATED_DURATION = Duration.ofHours(24);
+
+    private static final Duration STEP = Duration.ofMinutes(1);
+
+    private static final Duration TOKEN_LIFETIME = Duration.ofHours(1);
+
+    private static final int STORM_THREADS = 8;
+
+    private final MutableClock m_clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    private final LongAdder m_refreshes = new LongAdder();
+
+    @Test
+    void simulateDayOfTokenRefreshes() throws Exception {
+        final var service = new ServiceBuilder("client").build(new DefaultApi20() {
+            @Override
+            public String getAccessTokenEndpoint() {
+                return "http://localhost:1/token";
+            }
+
+            @Override
+            protected String getAuthorizationBaseUrl() {
+                return "http://localhost:1/authorize";
+            }
+        });
+
+        final TokenGrant grant = s -> {
+            m_refreshes.increment();
+            return new OAuth2AccessToken("token-" + m_refreshes.sum(), "Bearer", (int)TOKEN_LIFETIME.toSeconds(),
+                    null, "scope1 scope2", null);
+        };
+
+        final var credentials = new ArrayList<AccessTokenAccessor>(NUM_CREDENTIALS);
+        for (var i = 0; i < NUM_CREDENTIALS; i++) {
+            // stagger the initial expiry times across the first hour
+            final var initialToken = new OAuth2AccessToken("initial-" + i, "Bearer", 60 * (1 + i % 60), null,
+                    "scope1 scope2", null);
+            credentials.add((AccessTokenAccessor)CredentialFactory.fromScribeToken(initialToken, () -> service, grant,
+                    m_clock));
+        }
+
+        final var steps = SIMULATED_DURATION.dividedBy(STEP);
+        long stormRefreshes = 0;
+        for (var step = 1; step <= steps; step++) {
+            m_clock.advance(STEP);
+            if (step == steps / 2) {
+                final var refreshesBefore = m_refreshes.sum();
+                refreshStorm(credentials);
+                stormRefreshes = m_refreshes.sum() - refreshesBefore;
+            } else {
+                for (final var credential : credentials) {
+                    credential.getAccessToken();
+                }
+            }
+        }
+
+        // every credential must have been refreshed exactly once during the storm,
+        // no matter how many threads requested its token concurrently
+        assertEquals(NUM_CREDENTIALS, stormRefreshes);
+
+        // roughly one refresh per token lifetime, plus the storm
+        final var totalRefreshes = m_refreshes.sum();
+        final var expectedRefreshes = SIMULATED_DURATION.dividedBy(TOKEN_LIFETIME) * NUM_CREDENTIALS;
+        assertTrue(totalRefreshes > expectedRefreshes * 0.9, "Too few refreshes: " + totalRefreshes);
+        assertTrue(totalRefreshes < expectedRefreshes * 1.1, "Too many refreshes: " + totalRefreshes);
+    }
+
+    /**
+     * Requests tokens that must remain valid for the full token lifetime from many
+     * threads at once, which forces all credentials to refresh.
+     */
+    private static void refreshStorm(final List<AccessTokenAccessor> credentials) throws Exception {
+        final var pool = Executors.newFixedThreadPool(STORM_THREADS);
+        try {
+            final var tasks = new ArrayList<Callable<Void>>();
+            for (var t = 0; t < STORM_THREADS; t++) {
+                final var shuffled = new ArrayList<>(credentials);
+                Collections.shuffle(shuffled);
+                tasks.add(() -> {
+                    for (final var credential : shuffled) {
+                        credential.getAccessToken(TOKEN_LIFETIME);
+                    }
+                    return null;
+                });
+            }
+
+            for (final var result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
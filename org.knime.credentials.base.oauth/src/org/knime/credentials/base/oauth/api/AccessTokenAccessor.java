@@ -49,6 +49,7 @@
 package org.knime.credentials.base.oauth.api;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.Set;
@@ -93,6 +94,42 @@ public interface AccessTokenAccessor extends CredentialAccessor {
      */
     String getAccessToken(boolean forceRefresh) throws IOException;
 
+    /**
+     * Returns an access token that remains valid for at least the given duration,
+     * e.g. for the duration of a long-running upload. If the current access token
+     * expires within the given duration (see {@link #getExpiresAfter()}), then it
+     * is refreshed proactively. Access tokens without an expiry time are returned
+     * as-is.
+     *
+     * <p>
+     * Note that the identity provider decides on the lifetime of refreshed access
+     * tokens, hence a freshly refreshed access token is returned even if its
+     * lifetime is shorter than the requested duration.
+     * </p>
+     *
+     * <p>
+     * The default implementation forces a refresh via
+     * {@link #getAccessToken(boolean)} if necessary. Implementations should make
+     * sure that concurrent callers share a single in-flight refresh.
+     * </p>
+     *
+     * @param minRemainingValidity
+     *            The minimum duration for which the returned access token must
+     *            remain valid. Must not be negative.
+     * @return the access token.
+     * @throws IOException
+     *             If the access token needs to be refreshed, but the refresh is
+     *             not possible or has failed.
+     * @since 5.9
+     */
+    default String getAccessToken(final Duration minRemainingValidity) throws IOException {
+        final var deadline = Instant.now().plus(requireNonNegative(minRemainingValidity));
+        final var expiresTooEarly = getExpiresAfter()//
+                .map(deadline::isAfter)//
+                .orElse(false);
+        return getAccessToken(expiresTooEarly);
+    }
+
     /**
      * @return the optional expiry time of the access token.
      */
@@ -108,4 +145,21 @@ public interface AccessTokenAccessor extends CredentialAccessor {
      *         no scopes were listed in the token endpoint response.
      */
     Set<String> getScopes();
+
+    /**
+     * Validates the minimum remaining validity of a requested access token.
+     *
+     * @param minRemainingValidity
+     *            The minimum remaining validity to check.
+     * @return the given minimum remaining validity.
+     * @throws IllegalArgumentException
+     *             if the given duration is negative.
+     * @since 5.9
+     */
+    static Duration requireNonNegative(final Duration minRemainingValidity) {
+        if (minRemainingValidity.isNegative()) {
+            throw new IllegalArgumentException("Minimum remaining validity must not be negative");
+        }
+        return minRemainingValidity;
+    }
 }
@@ -51,7 +51,10 @@ package org.knime.credentials.base.oauth.api;
 import static org.knime.credentials.base.CredentialPortViewUtil.obfuscate;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -59,8 +62,8 @@ import java.util.LinkedList;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.knime.credentials.base.Credential;
@@ -83,22 +86,54 @@ public class AccessTokenCredential
     public static class Serializer extends NoOpCredentialSerializer<AccessTokenCredential> {
     }
 
+    /**
+     * Checks whether an access token is (still) active, e.g. by means of token
+     * introspection.
+     *
+     * @since 5.9
+     */
+    @FunctionalInterface
+    public interface ActivityCheck {
+
+        /**
+         * @param accessToken
+         *            The access token to check.
+         * @return true if the access token is active, false otherwise.
+         * @throws IOException
+         *             if the check failed.
+         */
+        boolean isActive(String accessToken) throws IOException;
+    }
+
     /**
      * Credential type.
      */
     public static final CredentialType TYPE = CredentialTypeRegistry.getCredentialType("knime.AccessTokenCredential");
 
-    private static final Pattern WHITESPACES_PATTERN = Pattern.compile("\\s+", Pattern.UNICODE_CHARACTER_CLASS);
-
-    private String m_accessToken;
+    private volatile String m_accessToken;
 
     private String m_tokenType;
 
-    private Instant m_expiresAfter;
+    private volatile Instant m_expiresAfter;
+
+    private ScopeSet m_scopes;
+
+    private volatile Supplier<AccessTokenCredential> m_tokenRefresher;
 
-    private Set<String> m_scopes;
+    private volatile ActivityCheck m_activityCheck;
 
-    private Supplier<AccessTokenCredential> m_tokenRefresher;
+    private final Clock m_clock;
+
+    /**
+     * Ensures that there is at most one in-flight refresh.
+     */
+    private final ReentrantLock m_refreshLock = new ReentrantLock();
+
+    /**
+     * Incremented after each refresh, so that threads that waited for an in-flight
+     * refresh can reuse its result.
+     */
+    private volatile long m_refreshCount;
 
     /**
      * @param accessToken
@@ -115,7 +150,7 @@ public class AccessTokenCredential
      */
     public AccessTokenCredential(final String accessToken, final Instant expiresAfter, final String tokenType,
             final Supplier<AccessTokenCredential> tokenRefresher) {
-        this(accessToken, expiresAfter, tokenType, Set.of(), tokenRefresher);
+        this(accessToken, expiresAfter, tokenType, ScopeSet.empty(), tokenRefresher);
     }
 
     /**
@@ -126,14 +161,14 @@ public class AccessTokenCredential
      * @param tokenType
      *            The type of access token, e.g. "bearer".
      * @param scopes
-     *            The scopes granted (as a string).
+     *            The scopes granted (as a whitespace-separated string). May be
+     *            null.
      * @param tokenRefresher
      *            Function that retrieves a new access token. May be null.
      */
     public AccessTokenCredential(final String accessToken, final Instant expiresAfter, final String tokenType,
             final String scopes, final Supplier<AccessTokenCredential> tokenRefresher) {
-        this(accessToken, expiresAfter, tokenType,
-                scopes == null ? Set.of() : Set.of(WHITESPACES_PATTERN.split(scopes)), tokenRefresher);
+        this(accessToken, expiresAfter, tokenType, ScopeSet.parse(scopes), tokenRefresher);
     }
 
     /**
@@ -150,6 +185,50 @@ public class AccessTokenCredential
      */
     public AccessTokenCredential(final String accessToken, final Instant expiresAfter, final String tokenType,
             final Set<String> scopes, final Supplier<AccessTokenCredential> tokenRefresher) {
+        this(accessToken, expiresAfter, tokenType, scopes, tokenRefresher, Clock.systemUTC());
+    }
+
+    /**
+     * @param accessToken
+     *            The access token.
+     * @param expiresAfter
+     *            The instant when the access token expires. May be null.
+     * @param tokenType
+     *            The type of access token, e.g. "bearer".
+     * @param scopes
+     *            The scopes granted.
+     * @param tokenRefresher
+     *            Function that retrieves a new access token. May be null.
+     * @param clock
+     *            The clock to determine whether the access token has expired.
+     * @since 5.9
+     */
+    public AccessTokenCredential(final String accessToken, final Instant expiresAfter, final String tokenType,
+            final Set<String> scopes, final Supplier<AccessTokenCredential> tokenRefresher, final Clock clock) {
+        this(accessToken, expiresAfter, tokenType, scopes, tokenRefresher, null, clock);
+    }
+
+    /**
+     * @param accessToken
+     *            The access token.
+     * @param expiresAfter
+     *            The instant when the access token expires. May be null.
+     * @param tokenType
+     *            The type of access token, e.g. "bearer".
+     * @param scopes
+     *            The scopes granted.
+     * @param tokenRefresher
+     *            Function that retrieves a new access token. May be null.
+     * @param activityCheck
+     *            Checks whether the access token is still active. May be null.
+     * @param clock
+     *            The clock to determine whether the access token has expired.
+     * @since 5.9
+     */
+    @SuppressWarnings("java:S107")
+    public AccessTokenCredential(final String accessToken, final Instant expiresAfter, final String tokenType,
+            final Set<String> scopes, final Supplier<AccessTokenCredential> tokenRefresher,
+            final ActivityCheck activityCheck, final Clock clock) {
 
         if (StringUtils.isBlank(accessToken)) {
             throw new IllegalArgumentException("Access token must not be blank");
@@ -162,8 +241,10 @@ public class AccessTokenCredential
         m_accessToken = accessToken;
         m_tokenType = tokenType;
         m_expiresAfter = expiresAfter;
-        m_scopes = Objects.requireNonNull(scopes, "List of scopes must no be null");
+        m_scopes = ScopeSet.of(Objects.requireNonNull(scopes, "List of scopes must no be null"));
         m_tokenRefresher = tokenRefresher;
+        m_activityCheck = activityCheck;
+        m_clock = Objects.requireNonNull(clock, "Clock must not be null");
     }
 
     @Override
@@ -173,21 +254,69 @@ public class AccessTokenCredential
 
     @Override
     public String getAccessToken(final boolean forceRefresh) throws IOException {
-
-        if (forceRefresh && m_tokenRefresher == null) {
-            throw new IOException("Access token cannot be refreshed");
+        if (forceRefresh) {
+            if (m_tokenRefresher == null) {
+                throw new IOException("Access token cannot be refreshed");
+            }
+            refreshAccessToken(m_refreshCount);
+            return m_accessToken;
+        } else {
+            refreshIfExpiresWithin(Duration.ZERO);
+            return m_accessToken;
         }
+    }
 
-        final var isExpired = m_expiresAfter != null && m_expiresAfter.isBefore(Instant.now());
-        if ((m_tokenRefresher != null) && (forceRefresh || isExpired)) {
-            refreshAccessToken();
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Concurrent callers share a single in-flight refresh.
+     * </p>
+     *
+     * @since 5.9
+     */
+    @Override
+    public String getAccessToken(final Duration minRemainingValidity) throws IOException {
+        AccessTokenAccessor.requireNonNegative(minRemainingValidity);
+
+        if (m_tokenRefresher == null && expiresWithin(minRemainingValidity)) {
+            throw new IOException("Access token expires within the requested duration and cannot be refreshed");
         }
 
+        refreshIfExpiresWithin(minRemainingValidity);
         return m_accessToken;
     }
 
-    private void refreshAccessToken() throws IOException {
+    private boolean expiresWithin(final Duration duration) {
+        final var expiresAfter = m_expiresAfter;
+        return expiresAfter != null && expiresAfter.isBefore(m_clock.instant().plus(duration));
+    }
+
+    private void refreshIfExpiresWithin(final Duration duration) throws IOException {
+        // must be read before checking the expiry time
+        final var refreshCount = m_refreshCount;
+        if (m_tokenRefresher != null && expiresWithin(duration)) {
+            refreshAccessToken(refreshCount);
+        }
+    }
+
+    /**
+     * Refreshes the access token, unless another thread has already refreshed it
+     * since the given refresh count was observed.
+     */
+    private void refreshAccessToken(final long observedRefreshCount) throws IOException {
+        try {
+            m_refreshLock.lockInterruptibly();
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for access token refresh");
+        }
+
         try {
+            if (m_refreshCount != observedRefreshCount) {
+                return;
+            }
+
             final var refreshedCredential = m_tokenRefresher.get();
 
             if (!m_tokenType.equalsIgnoreCase(refreshedCredential.m_tokenType)) {
@@ -197,18 +326,45 @@ public class AccessTokenCredential
                                 refreshedCredential.m_accessToken));
             }
 
+            // the token must be written before its expiry time: readers check the
+            // expiry time first, hence they must not see a new expiry time together
+            // with the old token
             m_accessToken = refreshedCredential.m_accessToken;
             m_expiresAfter = refreshedCredential.m_expiresAfter;
 
             if (refreshedCredential.m_tokenRefresher != null) {
                 m_tokenRefresher = refreshedCredential.m_tokenRefresher;
             }
-
+            if (refreshedCredential.m_activityCheck != null) {
+                m_activityCheck = refreshedCredential.m_activityCheck;
+            }
+            m_refreshCount = observedRefreshCount + 1;
         } catch (UncheckedIOException e) { // NOSONAR just a wrapper
             throw e.getCause();
+        } finally {
+            m_refreshLock.unlock();
         }
     }
 
+    /**
+     * Checks whether the current access token is still active, i.e. has not been
+     * revoked. This is only possible if the identity provider supports it, e.g.
+     * by means of token introspection.
+     *
+     * @return whether the current access token is active, or an empty
+     *         {@link Optional} if this cannot be determined.
+     * @throws IOException
+     *             if the check failed.
+     * @since 5.9
+     */
+    public Optional<Boolean> isActive() throws IOException {
+        final var activityCheck = m_activityCheck;
+        if (activityCheck == null) {
+            return Optional.empty();
+        }
+        return Optional.of(activityCheck.isActive(getAccessToken()));
+    }
+
     @Override
     public Optional<Instant> getExpiresAfter() {
         return Optional.ofNullable(m_expiresAfter);
@@ -234,8 +390,13 @@ public class AccessTokenCredential
         return TYPE;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @return the granted scopes as a {@link ScopeSet}.
+     */
     @Override
-    public Set<String> getScopes() {
+    public ScopeSet getScopes() {
         return m_scopes;
     }
 
@@ -49,6 +49,8 @@
 package org.knime.credentials.base.oauth.api;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Set;
 
 import org.knime.credentials.base.Credential;
@@ -65,7 +67,9 @@ public interface AccessTokenWithScopesAccessor extends CredentialAccessor {
     /**
      * Provides an {@link AccessTokenAccessor} for the given set of scopes. This
      * method can be invoked frequently since the return values will be cached based
-     * on Set equality. Subset relationships are not considered.
+     * on Set equality. Subset relationships are not considered, unless the
+     * implementation explicitly allows to reuse tokens that were acquired for a
+     * superset of the given scopes.
      *
      * @param scopes
      *            The scopes for which to request an access token.
@@ -78,4 +82,73 @@ public interface AccessTokenWithScopesAccessor extends CredentialAccessor {
      *             information being returned by the identity provider
      */
     AccessTokenAccessor getAccessTokenWithScopes(Set<String> scopes) throws IOException;
+
+    /**
+     * Provides an {@link AccessTokenAccessor} for the given set of scopes, whose
+     * access token remains valid for at least the given duration (see
+     * {@link AccessTokenAccessor#getAccessToken(Duration)}).
+     *
+     * <p>
+     * The default implementation refreshes the token returned by
+     * {@link #getAccessTokenWithScopes(Set)} if necessary. Implementations that
+     * cache tokens are encouraged to fetch a new token instead, which also works
+     * for tokens that are not refreshable.
+     * </p>
+     *
+     * @param scopes
+     *            The scopes for which to request an access token.
+     * @param minRemainingValidity
+     *            The minimum duration for which the access token must remain
+     *            valid. Must not be negative.
+     * @return an {@link AccessTokenAccessor} that provides an access token which
+     *         provides the given scopes.
+     * @throws IOException
+     *             if no access token could be acquired for the given scopes
+     * @since 5.9
+     */
+    default AccessTokenAccessor getAccessTokenWithScopes(final Set<String> scopes,
+            final Duration minRemainingValidity) throws IOException {
+        final var token = getAccessTokenWithScopes(scopes);
+        token.getAccessToken(minRemainingValidity);
+        return token;
+    }
+
+    /**
+     * Acquires access tokens for several sets of scopes up front, so that
+     * subsequent calls to {@link #getAccessTokenWithScopes(Set)} with these scopes
+     * can be served from the cache. This method returns once the tokens for all
+     * given sets of scopes have either been acquired, or acquiring them has
+     * failed.
+     *
+     * <p>
+     * The default implementation acquires the tokens one after another.
+     * Implementations are encouraged to acquire them in parallel.
+     * </p>
+     *
+     * @param scopeSets
+     *            The sets of scopes for which to acquire access tokens.
+     * @throws IOException
+     *             if the access token could not be acquired for at least one of
+     *             the given sets of scopes. Failures for further sets of scopes
+     *             are attached as suppressed exceptions.
+     * @since 5.9
+     */
+    default void prefetch(final Collection<Set<String>> scopeSets) throws IOException {
+        IOException failure = null;
+        for (final var scopes : scopeSets) {
+            try {
+                getAccessTokenWithScopes(scopes);
+            } catch (IOException e) { // NOSONAR collect and report all failures
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
 }
@@ -49,13 +49,31 @@
 package org.knime.credentials.base.oauth.api;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 import org.knime.credentials.base.Credential;
@@ -77,6 +95,31 @@ import org.knime.credentials.base.NoOpCredentialSerializer;
  * token fetcher function.
  * </p>
  *
+ * <p>
+ * This class is thread-safe. Looking up an already cached token does not block.
+ * For every set of scopes that is not cached yet, there is at most one
+ * in-flight fetch, which is performed by the first requesting thread, while
+ * concurrent requests for the same set of scopes wait for its result. Fetches
+ * for different sets of scopes do not block each other.
+ * </p>
+ *
+ * <p>
+ * By default, cached tokens are only reused if they were fetched for exactly
+ * the requested set of scopes. Optionally, a cached (and unexpired) token whose
+ * scopes are a superset of the requested scopes can be reused instead of
+ * fetching a new one, see
+ * {@link #AccessTokenWithScopesCredential(Function, boolean)}.
+ * </p>
+ *
+ * <p>
+ * The number of cached tokens is bounded (see
+ * {@link #DEFAULT_MAX_CACHED_TOKENS}). Tokens that have expired are fetched
+ * again when requested. Regardless of the size of the cache, expired tokens are
+ * swept from the cache on access, at most once per
+ * {@link #EXPIRY_SWEEP_INTERVAL}. When the cache grows beyond its bound,
+ * expired tokens are evicted first, followed by the least recently used ones.
+ * </p>
+ *
  * @author Bjoern Lohrmann, KNIME GmbH
  */
 public class AccessTokenWithScopesCredential implements Credential, AccessTokenWithScopesAccessor {
@@ -87,16 +130,100 @@ public class AccessTokenWithScopesCredential implements Credential, AccessTokenW
     public static final CredentialType TYPE = CredentialTypeRegistry
             .getCredentialType("knime.AccessTokenWithScopeCredential");
 
+    /**
+     * The default maximum number of tokens to cache.
+     *
+     * @since 5.9
+     */
+    public static final int DEFAULT_MAX_CACHED_TOKENS = 100;
+
+    /**
+     * The maximum number of tokens that {@link #prefetch(Collection)} fetches in
+     * parallel, across all instances.
+     *
+     * @since 5.9
+     */
+    public static final int MAX_PARALLEL_PREFETCHES = 8;
+
+    /**
+     * The minimum time between two sweeps of expired tokens, which are performed
+     * on access, regardless of the size of the cache.
+     *
+     * @since 5.9
+     */
+    public static final Duration EXPIRY_SWEEP_INTERVAL = Duration.ofSeconds(30);
+
+    /**
+     * Shared by all credentials, hence at most {@link #MAX_PARALLEL_PREFETCHES}
+     * tokens are prefetched at the same time. Idle threads are released.
+     */
+    private static final ThreadPoolExecutor PREFETCH_EXECUTOR = new ThreadPoolExecutor(MAX_PARALLEL_PREFETCHES,
+            MAX_PARALLEL_PREFETCHES, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                final var thread = new Thread(r, "KNIME-OAuth2-Token-Prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        PREFETCH_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
     /**
      * The serializer class
      */
     public static class Serializer extends NoOpCredentialSerializer<AccessTokenCredential> {
     }
 
-    private final Map<Set<String>, AccessTokenAccessor> m_cachedTokens = new HashMap<>();
+    /**
+     * Statistics about the token cache of an {@link AccessTokenWithScopesCredential}.
+     *
+     * @param hits
+     *            The number of token requests that could be served from the cache.
+     * @param misses
+     *            The number of token requests that required to fetch a new token.
+     * @param evictions
+     *            The number of tokens that were dropped from the cache, either
+     *            because they had expired or because the cache was full.
+     * @param size
+     *            The current number of cached tokens (including in-flight
+     *            fetches).
+     * @since 5.9
+     */
+    public record CacheStatistics(long hits, long misses, long evictions, int size) {
+    }
+
+    private final Map<ScopeSet, CacheEntry> m_cachedTokens = new ConcurrentHashMap<>();
 
     private final Function<Set<String>, AccessTokenAccessor> m_tokenFecher;
 
+    private final boolean m_reuseSupersetTokens;
+
+    private final int m_maxCachedTokens;
+
+    private final Clock m_clock;
+
+    /**
+     * Logical clock to determine the least recently used cache entries.
+     */
+    private final AtomicLong m_accessCounter = new AtomicLong();
+
+    /**
+     * Ensures that only one thread at a time sweeps the cache.
+     */
+    private final ReentrantLock m_evictionLock = new ReentrantLock();
+
+    /**
+     * When expired tokens are swept from the cache next, see
+     * {@link #evictIfNecessary()}.
+     */
+    private volatile Instant m_nextExpirySweep = Instant.MIN;
+
+    private final LongAdder m_hits = new LongAdder();
+
+    private final LongAdder m_misses = new LongAdder();
+
+    private final LongAdder m_evictions = new LongAdder();
+
     /**
      * Constructor.
      *
@@ -104,24 +231,313 @@ public class AccessTokenWithScopesCredential implements Credential, AccessTokenW
      *            Creates a new {@link AccessTokenAccessor} for a given set of
      *            requested scopes. The token fetcher is expected to throw an
      *            {@link UncheckedIOException} if the token could not be fetched.
+     *            It may be invoked concurrently for different sets of scopes.
      */
     public AccessTokenWithScopesCredential(final Function<Set<String>, AccessTokenAccessor> tokenFetcher) {
+        this(tokenFetcher, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tokenFetcher
+     *            Creates a new {@link AccessTokenAccessor} for a given set of
+     *            requested scopes. The token fetcher is expected to throw an
+     *            {@link UncheckedIOException} if the token could not be fetched.
+     *            It may be invoked concurrently for different sets of scopes. The
+     *            set of scopes passed to the fetcher is a {@link ScopeSet}.
+     * @param reuseSupersetTokens
+     *            If true, then a request for a set of scopes that is not cached
+     *            may be served with an unexpired cached token, whose scopes are a
+     *            superset of the requested scopes. If there are several such
+     *            tokens, then the one with the fewest scopes is used.
+     * @since 5.9
+     */
+    public AccessTokenWithScopesCredential(final Function<Set<String>, AccessTokenAccessor> tokenFetcher,
+            final boolean reuseSupersetTokens) {
+        this(tokenFetcher, reuseSupersetTokens, DEFAULT_MAX_CACHED_TOKENS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tokenFetcher
+     *            Creates a new {@link AccessTokenAccessor} for a given set of
+     *            requested scopes. The token fetcher is expected to throw an
+     *            {@link UncheckedIOException} if the token could not be fetched.
+     *            It may be invoked concurrently for different sets of scopes. The
+     *            set of scopes passed to the fetcher is a {@link ScopeSet}.
+     * @param reuseSupersetTokens
+     *            If true, then a request for a set of scopes that is not cached
+     *            may be served with an unexpired cached token, whose scopes are a
+     *            superset of the requested scopes. If there are several such
+     *            tokens, then the one with the fewest scopes is used.
+     * @param maxCachedTokens
+     *            The maximum number of tokens to cache, must be positive.
+     * @since 5.9
+     */
+    public AccessTokenWithScopesCredential(final Function<Set<String>, AccessTokenAccessor> tokenFetcher,
+            final boolean reuseSupersetTokens, final int maxCachedTokens) {
+        this(tokenFetcher, reuseSupersetTokens, maxCachedTokens, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tokenFetcher
+     *            Creates a new {@link AccessTokenAccessor} for a given set of
+     *            requested scopes. The token fetcher is expected to throw an
+     *            {@link UncheckedIOException} if the token could not be fetched.
+     *            It may be invoked concurrently for different sets of scopes. The
+     *            set of scopes passed to the fetcher is a {@link ScopeSet}.
+     * @param reuseSupersetTokens
+     *            If true, then a request for a set of scopes that is not cached
+     *            may be served with an unexpired cached token, whose scopes are a
+     *            superset of the requested scopes. If there are several such
+     *            tokens, then the one with the fewest scopes is used.
+     * @param maxCachedTokens
+     *            The maximum number of tokens to cache, must be positive.
+     * @param clock
+     *            The clock to determine whether cached tokens have expired.
+     * @since 5.9
+     */
+    public AccessTokenWithScopesCredential(final Function<Set<String>, AccessTokenAccessor> tokenFetcher,
+            final boolean reuseSupersetTokens, final int maxCachedTokens, final Clock clock) {
+        if (maxCachedTokens < 1) {
+            throw new IllegalArgumentException("Maximum number of cached tokens must be positive");
+        }
+
         m_tokenFecher = tokenFetcher;
+        m_reuseSupersetTokens = reuseSupersetTokens;
+        m_maxCachedTokens = maxCachedTokens;
+        m_clock = Objects.requireNonNull(clock, "Clock must not be null");
+    }
+
+    @Override
+    public AccessTokenAccessor getAccessTokenWithScopes(final Set<String> scopes) throws IOException {
+        return getAccessTokenWithScopes(scopes, Duration.ZERO);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Cached tokens that expire within the given duration are dropped from the
+     * cache and a new token is fetched, hence this also works if the token fetcher
+     * provides tokens that are not refreshable. Concurrent callers share a single
+     * in-flight fetch.
+     * </p>
+     *
+     * @since 5.9
+     */
     @Override
-    public synchronized AccessTokenAccessor getAccessTokenWithScopes(final Set<String> scopes) throws IOException {
+    public AccessTokenAccessor getAccessTokenWithScopes(final Set<String> scopes,
+            final Duration minRemainingValidity) throws IOException {
+
+        final var key = ScopeSet.of(scopes);
+        final var deadline = m_clock.instant().plus(AccessTokenAccessor.requireNonNegative(minRemainingValidity));
 
-        AccessTokenAccessor token = m_cachedTokens.get(scopes);
-        if (token == null) {
+        final var lookup = lookup(key, deadline);
+        if (lookup.mustFetch()) {
+            fetchToken(key, lookup.entry());
+        }
+        evictIfNecessary();
+        return awaitToken(lookup.entry().m_future);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Missing tokens are fetched in parallel, on a thread pool with at most
+     * {@link #MAX_PARALLEL_PREFETCHES} threads, which is shared by all instances. Scope sets that are already cached
+     * or currently being fetched by another thread are not fetched again. Note
+     * that prefetching more scope sets than the maximum cache size will evict
+     * some of the prefetched tokens again.
+     * </p>
+     *
+     * @since 5.9
+     */
+    @Override
+    public void prefetch(final Collection<Set<String>> scopeSets) throws IOException {
+        final var now = m_clock.instant();
+
+        final var futures = new ArrayList<CompletableFuture<AccessTokenAccessor>>();
+        final var toFetch = new LinkedHashMap<ScopeSet, CacheEntry>();
+        for (final var scopes : scopeSets) {
+            final var key = ScopeSet.of(scopes);
+            if (toFetch.containsKey(key)) {
+                continue;
+            }
+
+            final var lookup = lookup(key, now);
+            if (lookup.mustFetch()) {
+                toFetch.put(key, lookup.entry());
+            }
+            futures.add(lookup.entry().m_future);
+        }
+
+        toFetch.forEach((key, entry) -> PREFETCH_EXECUTOR.execute(() -> {
             try {
-                token = m_tokenFecher.apply(scopes);
-                m_cachedTokens.put(scopes, token);
-            } catch (UncheckedIOException e) { // NOSONAR this is just a wrapper
-                throw e.getCause();
+                fetchToken(key, entry);
+            } catch (RuntimeException e) { // NOSONAR is reported through the future
             }
+        }));
+
+        IOException failure = null;
+        for (final var future : futures) {
+            try {
+                awaitToken(future);
+            } catch (InterruptedIOException e) { // NOSONAR
+                throw e;
+            } catch (IOException e) { // NOSONAR collect and report all failures
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        evictIfNecessary();
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Looks up the cache entry for the given scopes, whose token must not expire
+     * before the given deadline. If there is none, a new entry is registered, and
+     * the caller is responsible for fetching its token.
+     */
+    private Lookup lookup(final ScopeSet key, final Instant deadline) {
+        var entry = m_cachedTokens.get(key);
+        if (entry != null && entry.isExpired(deadline)) {
+            evict(key, entry);
+            entry = null;
+        }
+
+        if (entry == null && m_reuseSupersetTokens) {
+            entry = findSupersetEntry(key, deadline).orElse(null);
+        }
+
+        if (entry == null) {
+            final var newEntry = new CacheEntry();
+            entry = m_cachedTokens.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                // we won the race, hence it is our job to fetch the token
+                m_misses.increment();
+                newEntry.touch(m_accessCounter.incrementAndGet());
+                return new Lookup(newEntry, true);
+            }
+        }
+
+        m_hits.increment();
+        entry.touch(m_accessCounter.incrementAndGet());
+        return new Lookup(entry, false);
+    }
+
+    /**
+     * Fetches the token for the given scopes and completes the future of the given
+     * cache entry with the result. If fetching fails, the entry is removed from the
+     * cache so that subsequent requests can retry.
+     */
+    private void fetchToken(final ScopeSet scopes, final CacheEntry entry) {
+        try {
+            entry.m_future.complete(m_tokenFecher.apply(scopes));
+        } catch (UncheckedIOException e) { // NOSONAR this is just a wrapper
+            m_cachedTokens.remove(scopes, entry);
+            entry.m_future.completeExceptionally(e.getCause());
+        } catch (RuntimeException | Error e) { // NOSONAR must not leave waiting threads behind
+            m_cachedTokens.remove(scopes, entry);
+            entry.m_future.completeExceptionally(e);
+            throw e;
         }
-        return token;
+    }
+
+    /**
+     * Searches the successfully fetched and unexpired tokens for one that was
+     * fetched for a superset of the given scopes and that do not expire before the
+     * given deadline, preferring the one with the fewest scopes.
+     */
+    private Optional<CacheEntry> findSupersetEntry(final ScopeSet scopes, final Instant deadline) {
+        return m_cachedTokens.entrySet().stream()//
+                .filter(e -> e.getValue().isFetched() && e.getKey().isSupersetOf(scopes))//
+                .filter(e -> !e.getValue().isExpired(deadline))//
+                .min(Comparator.comparingInt(e -> e.getKey().size()))//
+                .map(Map.Entry::getValue);
+    }
+
+    private void evict(final ScopeSet key, final CacheEntry entry) {
+        if (m_cachedTokens.remove(key, entry)) {
+            m_evictions.increment();
+        }
+    }
+
+    /**
+     * Removes expired tokens and, if the cache is still too large, the least
+     * recently used tokens. This is done whenever the cache has grown beyond its
+     * bound, and otherwise at most once per {@link #EXPIRY_SWEEP_INTERVAL}.
+     * In-flight fetches are never evicted. If another thread is already sweeping
+     * the cache, this method returns immediately.
+     */
+    private void evictIfNecessary() {
+        final var now = m_clock.instant();
+        if ((m_cachedTokens.size() <= m_maxCachedTokens && now.isBefore(m_nextExpirySweep))
+                || !m_evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            m_nextExpirySweep = now.plus(EXPIRY_SWEEP_INTERVAL);
+            m_cachedTokens.forEach((key, entry) -> {
+                if (entry.isExpired(now)) {
+                    evict(key, entry);
+                }
+            });
+
+            final var overflow = m_cachedTokens.size() - m_maxCachedTokens;
+            if (overflow > 0) {
+                m_cachedTokens.entrySet().stream()//
+                        .filter(e -> e.getValue().isFetched())//
+                        .sorted(Comparator.comparingLong(e -> e.getValue().m_lastAccess))//
+                        .limit(overflow)//
+                        .toList()//
+                        .forEach(e -> evict(e.getKey(), e.getValue()));
+            }
+        } finally {
+            m_evictionLock.unlock();
+        }
+    }
+
+    private static AccessTokenAccessor awaitToken(final CompletableFuture<AccessTokenAccessor> future)
+            throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for access token");
+        } catch (ExecutionException e) { // NOSONAR this is just a wrapper
+            final var cause = e.getCause();
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            } else if (cause instanceof RuntimeException re) {
+                throw re;
+            } else if (cause instanceof Error err) {
+                throw err;
+            } else {
+                throw new IOException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /**
+     * @return statistics about the token cache of this credential.
+     * @since 5.9
+     */
+    public CacheStatistics getCacheStatistics() {
+        return new CacheStatistics(m_hits.sum(), m_misses.sum(), m_evictions.sum(), m_cachedTokens.size());
     }
 
     @Override
@@ -136,22 +552,58 @@ public class AccessTokenWithScopesCredential implements Credential, AccessTokenW
         final var cachedScopes = new LinkedList<String[]>();
         cachedScopes.add(new String[] { "Access token scopes", "Expires after" });
 
-        synchronized(this) {
-            cachedScopes.addAll(m_cachedTokens.keySet()//
-                    .stream()//
-                    .map(s -> new String[] { //
-                            s.toString(), //
-                            m_cachedTokens.get(s).getExpiresAfter().map(//
-                                    i -> i.atZone(ZoneId.systemDefault()).format(DateTimeFormatter.RFC_1123_DATE_TIME))
-                                    .orElse("n/a") })//
-                    .toList());
-        }
+        // only describe tokens that have been fetched successfully, in-flight fetches
+        // are skipped
+        cachedScopes.addAll(m_cachedTokens.entrySet()//
+                .stream()//
+                .filter(e -> e.getValue().isFetched())//
+                .map(e -> new String[] { //
+                        e.getKey().toString(), //
+                        e.getValue().m_future.join().getExpiresAfter().map(//
+                                i -> i.atZone(ZoneId.systemDefault()).format(DateTimeFormatter.RFC_1123_DATE_TIME))
+                                .orElse("n/a") })//
+                .toList());
 
         sections.add(
                 new CredentialPortViewData.Section(//
                         "Cached OAuth2 access tokens", //
                         cachedScopes.toArray(String[][]::new)));
 
+        final var stats = getCacheStatistics();
+        sections.add(new CredentialPortViewData.Section("Token cache statistics", new String[][] { //
+                { "Property", "Value" }, //
+                { "Cached tokens", String.format("%d (max. %d)", stats.size(), m_maxCachedTokens) }, //
+                { "Hits", Long.toString(stats.hits()) }, //
+                { "Misses", Long.toString(stats.misses()) }, //
+                { "Evictions", Long.toString(stats.evictions()) }, //
+        }));
+
         return new CredentialPortViewData(sections);
     }
+
+    private record Lookup(CacheEntry entry, boolean mustFetch) {
+    }
+
+    /**
+     * A cache entry, which holds the (possibly in-flight) token fetch for a set of
+     * scopes, as well as the logical time of the last access.
+     */
+    private static final class CacheEntry {
+
+        private final CompletableFuture<AccessTokenAccessor> m_future = new CompletableFuture<>();
+
+        private volatile long m_lastAccess;
+
+        void touch(final long accessTime) {
+            m_lastAccess = accessTime;
+        }
+
+        boolean isFetched() {
+            return m_future.isDone() && !m_future.isCompletedExceptionally();
+        }
+
+        boolean isExpired(final Instant now) {
+            return isFetched() && m_future.join().getExpiresAfter().map(now::isAfter).orElse(false);
+        }
+    }
 }
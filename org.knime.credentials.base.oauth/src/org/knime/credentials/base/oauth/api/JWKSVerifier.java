@@ -0,0 +1,367 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.nimbusds.jose.Algorithm;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+
+/**
+ * Verifies the signatures of {@link JWT}s against the public keys from a JSON
+ * Web Key Set (JWKS), which is usually published by the identity provider at
+ * its "jwks_uri".
+ *
+ * <p>
+ * The key set is fetched lazily and kept in memory, together with a verifier
+ * object for each key. It is fetched again once it is older than the configured
+ * maximum age, or when a token references an unknown key ID, which usually
+ * means that the identity provider has rotated its keys. To avoid hammering the
+ * JWKS endpoint with tokens that reference bogus key IDs, such refetches happen
+ * at most once per {@link #MIN_REFETCH_INTERVAL}.
+ * </p>
+ *
+ * <p>
+ * RSA and EC keys are supported. This class is thread-safe.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class JWKSVerifier {
+
+    /**
+     * The default maximum age of the cached key set.
+     */
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(15);
+
+    /**
+     * The minimum time between two fetches of the key set, which are caused by
+     * tokens with unknown key IDs.
+     */
+    public static final Duration MIN_REFETCH_INTERVAL = Duration.ofSeconds(30);
+
+    private static final int HTTP_TIMEOUT_MILLIS = 10_000;
+
+    private static final int JWKS_SIZE_LIMIT_BYTES = 1024 * 1024;
+
+    /**
+     * Loads a {@link JWKSet}.
+     */
+    @FunctionalInterface
+    interface KeySetLoader {
+        JWKSet load() throws IOException, ParseException;
+    }
+
+    private final KeySetLoader m_loader;
+
+    private final Duration m_maxAge;
+
+    private final Clock m_clock;
+
+    /**
+     * Ensures that there is at most one in-flight fetch of the key set.
+     */
+    private final ReentrantLock m_fetchLock = new ReentrantLock();
+
+    private volatile CachedKeys m_cachedKeys;
+
+    JWKSVerifier(final KeySetLoader loader, final Duration maxAge, final Clock clock) {
+        m_loader = loader;
+        m_maxAge = maxAge;
+        m_clock = clock;
+    }
+
+    /**
+     * Creates a verifier that fetches the key set from the given URL.
+     *
+     * @param jwksUrl
+     *            The URL of the JWKS, e.g. the "jwks_uri" of the identity
+     *            provider.
+     * @return a new verifier.
+     */
+    public static JWKSVerifier fromURL(final URL jwksUrl) {
+        return fromURL(jwksUrl, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * Creates a verifier that fetches the key set from the given URL.
+     *
+     * @param jwksUrl
+     *            The URL of the JWKS, e.g. the "jwks_uri" of the identity
+     *            provider.
+     * @param maxAge
+     *            The maximum age of the cached key set.
+     * @return a new verifier.
+     */
+    public static JWKSVerifier fromURL(final URL jwksUrl, final Duration maxAge) {
+        Objects.requireNonNull(jwksUrl, "JWKS URL must not be null");
+        return new JWKSVerifier(
+                () -> JWKSet.load(jwksUrl, HTTP_TIMEOUT_MILLIS, HTTP_TIMEOUT_MILLIS, JWKS_SIZE_LIMIT_BYTES), //
+                maxAge, //
+                Clock.systemUTC());
+    }
+
+    /**
+     * Creates a verifier that reads the key set from the given file. The file is
+     * read again according to the same rules as for URLs, hence it can be updated
+     * while the verifier is in use.
+     *
+     * @param jwksFile
+     *            The path of a file that contains the JWKS as JSON.
+     * @return a new verifier.
+     */
+    public static JWKSVerifier fromFile(final Path jwksFile) {
+        Objects.requireNonNull(jwksFile, "JWKS file must not be null");
+        return new JWKSVerifier(() -> JWKSet.load(jwksFile.toFile()), DEFAULT_MAX_AGE, Clock.systemUTC());
+    }
+
+    /**
+     * Verifies the signature of the given token.
+     *
+     * @param jwt
+     *            The token to verify.
+     * @return true if the signature is valid, false otherwise (including tokens
+     *         that are unsecured, that use an unsupported algorithm, or that
+     *         reference a key that is not in the key set).
+     * @throws IOException
+     *             if the key set could not be fetched.
+     */
+    public boolean verify(final JWT jwt) throws IOException {
+        var keys = getKeys();
+        if (keys.isUnknown(jwt.getKeyId())) {
+            keys = refetchKeys(keys);
+        }
+        return verify(jwt, keys);
+    }
+
+    /**
+     * Verifies the signatures of the given tokens in parallel, using all available
+     * cores. The key set is fetched at most once for the whole batch.
+     *
+     * @param jwts
+     *            The tokens to verify.
+     * @return a list with the verification result for each of the given tokens,
+     *         in the same order, see {@link #verify(JWT)}.
+     * @throws IOException
+     *             if the key set could not be fetched.
+     */
+    public List<Boolean> verifyAll(final List<JWT> jwts) throws IOException {
+        final var cachedKeys = getKeys();
+        final var keys = jwts.stream().anyMatch(jwt -> cachedKeys.isUnknown(jwt.getKeyId())) //
+                ? refetchKeys(cachedKeys) //
+                : cachedKeys;
+
+        return jwts.parallelStream()//
+                .map(jwt -> verify(jwt, keys))//
+                .toList();
+    }
+
+    private static boolean verify(final JWT jwt, final CachedKeys keys) {
+        if (jwt.getAlgorithm().equals(Algorithm.NONE.getName())) {
+            return false;
+        }
+
+        final var algorithm = JWSAlgorithm.parse(jwt.getAlgorithm());
+        final var candidates = jwt.getKeyId() != null//
+                ? keys.m_byKeyId.getOrDefault(jwt.getKeyId(), List.of())//
+                : keys.m_all;
+
+        for (final var candidate : candidates) {
+            if (candidate.supports(algorithm) && candidate.verify(jwt)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CachedKeys getKeys() throws IOException {
+        final var keys = m_cachedKeys;
+        if (keys != null && !keys.isOlderThan(m_maxAge, m_clock.instant())) {
+            return keys;
+        }
+        return fetchKeys(keys, m_maxAge);
+    }
+
+    private CachedKeys refetchKeys(final CachedKeys keys) throws IOException {
+        if (keys.isOlderThan(MIN_REFETCH_INTERVAL, m_clock.instant())) {
+            return fetchKeys(keys, MIN_REFETCH_INTERVAL);
+        }
+        return keys;
+    }
+
+    /**
+     * Fetches the key set, unless another thread has already fetched a key set
+     * that is younger than the given age since the given keys were observed.
+     */
+    private CachedKeys fetchKeys(final CachedKeys observedKeys, final Duration maxAge) throws IOException {
+        try {
+            m_fetchLock.lockInterruptibly();
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for JWKS");
+        }
+
+        try {
+            final var current = m_cachedKeys;
+            if (current != observedKeys && !current.isOlderThan(maxAge, m_clock.instant())) {
+                return current;
+            }
+
+            final var fetched = new CachedKeys(m_loader.load(), m_clock.instant());
+            m_cachedKeys = fetched;
+            return fetched;
+        } catch (ParseException e) {
+            throw new IOException("Invalid JWKS: " + e.getMessage(), e);
+        } finally {
+            m_fetchLock.unlock();
+        }
+    }
+
+    /**
+     * An immutable snapshot of the key set with a verifier for each usable key.
+     */
+    private static final class CachedKeys {
+
+        private final Map<String, List<KeyVerifier>> m_byKeyId;
+
+        private final List<KeyVerifier> m_all;
+
+        private final Instant m_fetchedAt;
+
+        CachedKeys(final JWKSet keySet, final Instant fetchedAt) {
+            final var byKeyId = new HashMap<String, List<KeyVerifier>>();
+            final var all = new ArrayList<KeyVerifier>();
+            for (final var jwk : keySet.getKeys()) {
+                final var verifier = KeyVerifier.create(jwk);
+                if (verifier != null) {
+                    all.add(verifier);
+                    if (jwk.getKeyID() != null) {
+                        byKeyId.computeIfAbsent(jwk.getKeyID(), k -> new ArrayList<>()).add(verifier);
+                    }
+                }
+            }
+            m_byKeyId = Collections.unmodifiableMap(byKeyId);
+            m_all = Collections.unmodifiableList(all);
+            m_fetchedAt = fetchedAt;
+        }
+
+        boolean isUnknown(final String keyId) {
+            return keyId != null && !m_byKeyId.containsKey(keyId);
+        }
+
+        boolean isOlderThan(final Duration age, final Instant now) {
+            return m_fetchedAt.plus(age).isBefore(now);
+        }
+    }
+
+    /**
+     * A reusable verifier for a single key.
+     */
+    private record KeyVerifier(JWSVerifier verifier, Algorithm keyAlgorithm) {
+
+        /**
+         * @return a verifier for the given key, or null if the key is not a
+         *         supported signature verification key.
+         */
+        static KeyVerifier create(final JWK jwk) {
+            if (jwk.getKeyUse() != null && !KeyUse.SIGNATURE.equals(jwk.getKeyUse())) {
+                return null;
+            }
+
+            try {
+                if (jwk instanceof RSAKey rsaKey) {
+                    return new KeyVerifier(new RSASSAVerifier(rsaKey), jwk.getAlgorithm());
+                } else if (jwk instanceof ECKey ecKey) {
+                    return new KeyVerifier(new ECDSAVerifier(ecKey), jwk.getAlgorithm());
+                } else {
+                    return null;
+                }
+            } catch (JOSEException e) { // NOSONAR unusable key
+                return null;
+            }
+        }
+
+        boolean supports(final JWSAlgorithm algorithm) {
+            return (keyAlgorithm == null || keyAlgorithm.equals(algorithm))
+                    && verifier.supportedJWSAlgorithms().contains(algorithm);
+        }
+
+        boolean verify(final JWT jwt) {
+            try {
+                return verifier.verify(jwt.parseJWSHeader(), jwt.getSigningInput(), jwt.getSignature());
+            } catch (JOSEException | ParseException e) { // NOSONAR invalid signature
+                return false;
+            }
+        }
+    }
+}
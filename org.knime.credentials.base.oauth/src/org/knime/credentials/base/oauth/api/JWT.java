@@ -48,28 +48,70 @@
  */
 package org.knime.credentials.base.oauth.api;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.time.DateTimeException;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.JWTParser;
 
 /**
  * JWT token.
  *
+ * <p>
+ * Parsing is lazy: The constructor only validates the structure of the token
+ * and extracts the claims that are needed frequently (expiration time and
+ * scopes). The full claim set is parsed on first access, e.g. through
+ * {@link #getAllClaims()} or {@link #getClaim(String)}.
+ * </p>
+ *
  * @author Alexander Bondaletov, Redfield SE
  */
 public class JWT {
     private static final String SCOPE_CLAIM = "scope";
     private static final Pattern SCOPE_SEPARATOR_PATTERN = Pattern.compile("(?U)\\s+");
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private final String m_token;
-    private final JWTClaimsSet m_parsed;
+
+    private final int m_headerEnd;
+
+    private final int m_payloadEnd;
+
+    private final JWSHeaderInfo m_header;
+
+    private final Instant m_expirationTime;
+
+    private final String m_scope;
+
+    private volatile ScopeSet m_scopeSet;
+
+    private volatile JWTClaimsSet m_parsed;
+
+    /**
+     * Lazily built membership index per claim, see
+     * {@link #hasClaimValue(String, Object)}.
+     */
+    private final Map<String, Set<Object>> m_claimIndex = new ConcurrentHashMap<>();
 
     /**
      * @param token
@@ -77,60 +119,305 @@ public class JWT {
      * @throws ParseException
      */
     public JWT(final String token) throws ParseException {
+        if (!looksLikeJWT(token)) {
+            throw new ParseException("Invalid serialized JWT", 0);
+        }
+
         m_token = token;
-        m_parsed = JWTParser.parse(token).getJWTClaimsSet();
+
+        m_headerEnd = token.indexOf('.');
+        m_payloadEnd = token.indexOf('.', m_headerEnd + 1);
+        m_header = parseHeader(decodeSegment(token, 0, m_headerEnd));
+        if (m_header.isUnsecured() && m_payloadEnd < token.length() - 1) {
+            throw new ParseException("Unexpected signature in unsecured JWT", m_payloadEnd + 1);
+        }
+
+        final var claims = new PayloadClaims();
+        parsePayload(decodeSegment(token, m_headerEnd + 1, m_payloadEnd), claims);
+        m_expirationTime = claims.m_expirationTime;
+        m_scope = claims.m_scope;
+    }
+
+    /**
+     * Performs a cheap structural check whether the given string can be a JWT in
+     * compact serialization, i.e. whether it consists of three base64url-encoded
+     * segments (header, payload and signature) separated by dots. This does not
+     * decode the token, hence a token that passes this check might still fail to
+     * parse.
+     *
+     * @param token
+     *            The token to check. May be null.
+     * @return true if the given token looks like a JWT, false otherwise.
+     * @since 5.9
+     */
+    public static boolean looksLikeJWT(final String token) {
+        if (token == null) {
+            return false;
+        }
+
+        var dots = 0;
+        var segmentLength = 0;
+        for (var i = 0; i < token.length(); i++) {
+            final var c = token.charAt(i);
+            if (c == '.') {
+                // header and payload must not be empty (the signature may be)
+                if (++dots > 2 || segmentLength == 0) {
+                    return false;
+                }
+                segmentLength = 0;
+            } else if (isBase64UrlChar(c)) {
+                segmentLength++;
+            } else {
+                return false;
+            }
+        }
+        return dots == 2;
+    }
+
+    private static boolean isBase64UrlChar(final char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_'
+                || c == '=';
+    }
+
+    private static byte[] decodeSegment(final String token, final int start, final int end) throws ParseException {
+        try {
+            return Base64.getUrlDecoder().decode(token.substring(start, end).getBytes(StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) { // NOSONAR
+            throw new ParseException("Invalid base64url encoding in JWT: " + e.getMessage(), start);
+        }
+    }
+
+    private static JWSHeaderInfo parseHeader(final byte[] header) throws ParseException {
+        String algorithm = null;
+        String keyId = null;
+        try (var parser = JSON_FACTORY.createParser(header)) {
+            expectObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var name = parser.getCurrentName();
+                final var value = parser.nextToken();
+                if (value == JsonToken.VALUE_STRING) {
+                    if ("alg".equals(name)) {
+                        algorithm = parser.getText();
+                    } else if ("kid".equals(name)) {
+                        keyId = parser.getText();
+                    }
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) { // NOSONAR
+            throw new ParseException("Invalid JWT header: " + e.getMessage(), 0);
+        }
+
+        if (algorithm == null) {
+            throw new ParseException("Missing \"alg\" in JWT header", 0);
+        }
+        return new JWSHeaderInfo(algorithm, keyId);
+    }
+
+    /**
+     * Extracts the expiration time and scopes from the payload, skipping over all
+     * other claims. The types of the registered claims are validated the same
+     * way the full claim set parser does, so that parsing the full claim set
+     * later on does not fail.
+     */
+    private static void parsePayload(final byte[] payload, final PayloadClaims claims) throws ParseException {
+        try (var parser = JSON_FACTORY.createParser(payload)) {
+            expectObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var name = parser.getCurrentName();
+                final var value = parser.nextToken();
+                switch (name) {
+                    case "exp":
+                        claims.m_expirationTime = parseNumericDate(name, parser);
+                        break;
+                    case SCOPE_CLAIM:
+                        if (value == JsonToken.VALUE_STRING) {
+                            claims.m_scope = parser.getText();
+                        }
+                        break;
+                    case "nbf", "iat":
+                        parseNumericDate(name, parser);
+                        break;
+                    case "iss", "sub", "jti":
+                        expectString(name, value);
+                        break;
+                    case "aud":
+                        if (value != JsonToken.VALUE_STRING && value != JsonToken.START_ARRAY
+                                && value != JsonToken.VALUE_NULL) {
+                            throw new ParseException("Invalid \"aud\" claim in JWT", 0);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                parser.skipChildren();
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new ParseException("Invalid JWT payload", 0);
+            }
+        } catch (IOException e) { // NOSONAR
+            throw new ParseException("Invalid JWT payload: " + e.getMessage(), 0);
+        }
+    }
+
+    private static void expectObject(final JsonParser parser) throws IOException, ParseException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new ParseException("Expected JSON object in JWT", 0);
+        }
+    }
+
+    private static void expectNumber(final String claim, final JsonToken value) throws ParseException {
+        if (value != JsonToken.VALUE_NUMBER_INT && value != JsonToken.VALUE_NUMBER_FLOAT) {
+            throw new ParseException(String.format("Invalid \"%s\" claim in JWT", claim), 0);
+        }
+    }
+
+    /**
+     * Parses a date claim given in seconds since the epoch. Dates that cannot be
+     * represented in milliseconds, as used by the full claim set, are rejected.
+     */
+    private static Instant parseNumericDate(final String claim, final JsonParser parser)
+            throws IOException, ParseException {
+        expectNumber(claim, parser.currentToken());
+        try {
+            final var date = Instant.ofEpochSecond(parser.getNumberValue().longValue());
+            date.toEpochMilli();
+            return date;
+        } catch (DateTimeException | ArithmeticException e) { // NOSONAR
+            throw new ParseException(String.format("Invalid \"%s\" claim in JWT", claim), 0);
+        }
+    }
+
+    private static void expectString(final String claim, final JsonToken value) throws ParseException {
+        if (value != JsonToken.VALUE_STRING && value != JsonToken.VALUE_NULL) {
+            throw new ParseException(String.format("Invalid \"%s\" claim in JWT", claim), 0);
+        }
+    }
+
+    /**
+     * @return the full claim set, which is parsed on first access.
+     */
+    private JWTClaimsSet getClaimsSet() {
+        var parsed = m_parsed;
+        if (parsed == null) {
+            try {
+                parsed = JWTParser.parse(m_token).getJWTClaimsSet();
+            } catch (ParseException e) {
+                // the constructor has already validated the token
+                throw new IllegalStateException("Failed to parse JWT claims: " + e.getMessage(), e);
+            }
+            m_parsed = parsed;
+        }
+        return parsed;
     }
 
     /**
      * @return The map containing all of the claims.
      */
     public Map<String, Object> getAllClaims() {
-        return m_parsed.getClaims();
+        return getClaimsSet().getClaims();
+    }
+
+    /**
+     * @param name
+     *            The name of the claim.
+     * @return the value of the claim, or null if the token does not have the
+     *         claim.
+     * @since 5.9
+     */
+    public Object getClaim(final String name) {
+        return getClaimsSet().getClaim(name);
+    }
+
+    /**
+     * Checks whether the given claim has the given value, or, in the case of an
+     * array claim such as "groups" or "roles", whether the array contains the
+     * given value. Values are compared using {@link Object#equals(Object)}, hence
+     * strings must be passed as strings, and numbers as {@link Long} or
+     * {@link Double}.
+     *
+     * <p>
+     * On first use for a claim, a hashed index of its values is built, so that
+     * repeated checks on large array claims take constant time.
+     * </p>
+     *
+     * @param claim
+     *            The name of the claim.
+     * @param value
+     *            The value to look for.
+     * @return true if the claim has (or contains) the given value, false
+     *         otherwise, also if the token does not have the claim.
+     * @since 5.9
+     */
+    public boolean hasClaimValue(final String claim, final Object value) {
+        return m_claimIndex.computeIfAbsent(claim, this::indexClaim).contains(value);
+    }
+
+    private Set<Object> indexClaim(final String claim) {
+        final var value = getClaim(claim);
+        if (value instanceof Collection<?> values) {
+            final var index = new HashSet<Object>(values.size() * 2);
+            for (final var v : values) {
+                if (v != null) {
+                    index.add(v);
+                }
+            }
+            return Collections.unmodifiableSet(index);
+        } else if (value != null) {
+            return Set.of(value);
+        } else {
+            return Set.of();
+        }
     }
 
     /**
      * @return The optional holding the expiration time.
      */
     public Optional<Instant> getExpirationTime(){
-        return Optional.ofNullable(m_parsed.getExpirationTime()).map(Date::toInstant);
+        return Optional.ofNullable(m_expirationTime);
     }
 
     /**
      * @return The optional holding the issuedAt time.
      */
     public Optional<Instant> getIssuedAt() {
-        return Optional.ofNullable(m_parsed.getIssueTime()).map(Date::toInstant);
+        return Optional.ofNullable(getClaimsSet().getIssueTime()).map(Date::toInstant);
     }
 
     /**
      * @return The optional holding the issuer.
      */
     public Optional<String> getIssuer() {
-        return Optional.ofNullable(m_parsed.getIssuer());
+        return Optional.ofNullable(getClaimsSet().getIssuer());
     }
 
     /**
      * @return The optional holding the subject.
      */
     public Optional<String> getSubject() {
-        return Optional.ofNullable(m_parsed.getSubject());
+        return Optional.ofNullable(getClaimsSet().getSubject());
     }
 
     /**
      * @return The optional holding the scopes.
      */
     public Optional<List<String>> getScopes() {
-        try {
-            var scopesStr = m_parsed.getStringClaim(SCOPE_CLAIM);
+        return Optional.ofNullable(m_scope)//
+                .map(scopesStr -> List.of(SCOPE_SEPARATOR_PATTERN.split(scopesStr)));
+    }
 
-            if (scopesStr != null) {
-                return Optional.of(List.of(SCOPE_SEPARATOR_PATTERN.split(scopesStr)));
-            }
-        } catch (ParseException ex) {
-            // ignore
+    /**
+     * @return the scopes from the "scope" claim as a {@link ScopeSet}, which is
+     *         empty if the claim is absent.
+     * @since 5.9
+     */
+    public ScopeSet getScopeSet() {
+        var scopeSet = m_scopeSet;
+        if (scopeSet == null) {
+            scopeSet = ScopeSet.parse(m_scope);
+            m_scopeSet = scopeSet;
         }
-
-        return Optional.empty();
+        return scopeSet;
     }
 
     /**
@@ -139,4 +426,67 @@ public class JWT {
     public String asString() {
         return m_token;
     }
+
+    /**
+     * Verifies the signature of this token using the keys provided by the given
+     * verifier. Unsecured tokens (algorithm "none") never have a valid signature.
+     *
+     * @param verifier
+     *            The verifier that provides the public keys of the issuer.
+     * @return true if the signature is valid, false otherwise.
+     * @throws IOException
+     *             if the keys could not be retrieved.
+     * @since 5.9
+     */
+    public boolean verifySignature(final JWKSVerifier verifier) throws IOException {
+        return verifier.verify(this);
+    }
+
+    /**
+     * @return the value of the "alg" header parameter.
+     */
+    String getAlgorithm() {
+        return m_header.algorithm();
+    }
+
+    /**
+     * @return the value of the "kid" header parameter, or null if there is none.
+     */
+    String getKeyId() {
+        return m_header.keyId();
+    }
+
+    /**
+     * @return the full JWS header, parsed with nimbus.
+     * @throws ParseException
+     */
+    JWSHeader parseJWSHeader() throws ParseException {
+        return JWSHeader.parse(new Base64URL(m_token.substring(0, m_headerEnd)));
+    }
+
+    /**
+     * @return the input to the signature, i.e. the encoded header and payload.
+     */
+    byte[] getSigningInput() {
+        return m_token.substring(0, m_payloadEnd).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return the encoded signature.
+     */
+    Base64URL getSignature() {
+        return new Base64URL(m_token.substring(m_payloadEnd + 1));
+    }
+
+    private record JWSHeaderInfo(String algorithm, String keyId) {
+        boolean isUnsecured() {
+            return "none".equals(algorithm);
+        }
+    }
+
+    private static final class PayloadClaims {
+        private Instant m_expirationTime;
+
+        private String m_scope;
+    }
 }
@@ -49,8 +49,11 @@
 package org.knime.credentials.base.oauth.api;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
 import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -59,8 +62,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 import org.apache.commons.lang3.StringUtils;
@@ -88,20 +92,34 @@ public class JWTCredential implements Credential, AccessTokenAccessor, HttpAutho
      */
     public static final CredentialType TYPE = CredentialTypeRegistry.getCredentialType("knime.JWTCredential");
 
-    private JWT m_accessToken;
+    private volatile JWT m_accessToken;
 
     private String m_tokenType;
 
-    private Instant m_expiresAfter;
+    private volatile Instant m_expiresAfter;
 
-    private JWT m_idToken;
+    private volatile JWT m_idToken;
 
-    private Supplier<JWTCredential> m_tokenRefresher;
+    private volatile Supplier<JWTCredential> m_tokenRefresher;
+
+    private final Clock m_clock;
+
+    /**
+     * Ensures that there is at most one in-flight refresh.
+     */
+    private final ReentrantLock m_refreshLock = new ReentrantLock();
+
+    /**
+     * Incremented after each refresh, so that threads that waited for an in-flight
+     * refresh can reuse its result.
+     */
+    private volatile long m_refreshCount;
 
     /**
      * Default constructor for ser(de).
      */
     public JWTCredential() {
+        m_clock = Clock.systemUTC();
     }
 
     /**
@@ -123,6 +141,31 @@ public class JWTCredential implements Credential, AccessTokenAccessor, HttpAutho
             final Instant expiresAfter, //
             final String idToken, //
             final Supplier<JWTCredential> tokenRefresher) throws ParseException {
+        this(accessToken, tokenType, expiresAfter, idToken, tokenRefresher, Clock.systemUTC());
+    }
+
+    /**
+     * @param accessToken
+     *            The access token.
+     * @param tokenType
+     *            The type of access token, e.g. "bearer".
+     * @param expiresAfter
+     *            The instant when the access token expires. May be null.
+     * @param idToken
+     *            The id token. May be null.
+     * @param tokenRefresher
+     *            Function that retrieves a new access token. May be null.
+     * @param clock
+     *            The clock to determine whether the access token has expired.
+     * @throws ParseException
+     * @since 5.9
+     */
+    public JWTCredential(final String accessToken, //
+            final String tokenType, //
+            final Instant expiresAfter, //
+            final String idToken, //
+            final Supplier<JWTCredential> tokenRefresher, //
+            final Clock clock) throws ParseException {
 
         if (StringUtils.isBlank(accessToken)) {
             throw new IllegalArgumentException("Access token must not be blank");
@@ -143,6 +186,7 @@ public class JWTCredential implements Credential, AccessTokenAccessor, HttpAutho
         }
 
         m_tokenRefresher = tokenRefresher;
+        m_clock = Objects.requireNonNull(clock, "Clock must not be null");
     }
 
     /**
@@ -176,18 +220,55 @@ public class JWTCredential implements Credential, AccessTokenAccessor, HttpAutho
      */
 
     public JWT getJWTAccessToken(final boolean forceRefresh) throws IOException {
-        if (forceRefresh && m_tokenRefresher == null) {
-            throw new IOException("Access token cannot be refreshed");
+        if (forceRefresh) {
+            if (m_tokenRefresher == null) {
+                throw new IOException("Access token cannot be refreshed");
+            }
+            refreshAccessToken(m_refreshCount);
+            return m_accessToken;
+        } else {
+            refreshIfExpiresWithin(Duration.ZERO);
+            return m_accessToken;
         }
+    }
 
-        final var isExpired = m_expiresAfter != null && m_expiresAfter.isBefore(Instant.now());
-        if ((m_tokenRefresher != null) && (forceRefresh || isExpired)) {
-            refreshAccessToken();
+    /**
+     * Returns a JWT access token that remains valid for at least the given
+     * duration, see {@link #getAccessToken(Duration)}.
+     *
+     * @param minRemainingValidity
+     *            The minimum duration for which the returned access token must
+     *            remain valid. Must not be negative.
+     * @return the access token.
+     * @throws IOException
+     *             If the access token needs to be refreshed, but the refresh is
+     *             not possible or has failed.
+     * @since 5.9
+     */
+    public JWT getJWTAccessToken(final Duration minRemainingValidity) throws IOException {
+        AccessTokenAccessor.requireNonNegative(minRemainingValidity);
+
+        if (m_tokenRefresher == null && expiresWithin(minRemainingValidity)) {
+            throw new IOException("Access token expires within the requested duration and cannot be refreshed");
         }
 
+        refreshIfExpiresWithin(minRemainingValidity);
         return m_accessToken;
     }
 
+    private boolean expiresWithin(final Duration duration) {
+        final var expiresAfter = m_expiresAfter;
+        return expiresAfter != null && expiresAfter.isBefore(m_clock.instant().plus(duration));
+    }
+
+    private void refreshIfExpiresWithin(final Duration duration) throws IOException {
+        // must be read before checking the expiry time
+        final var refreshCount = m_refreshCount;
+        if (m_tokenRefresher != null && expiresWithin(duration)) {
+            refreshAccessToken(refreshCount);
+        }
+    }
+
     @Override
     public Optional<Instant> getExpiresAfter() {
         return Optional.ofNullable(m_expiresAfter);
@@ -206,8 +287,23 @@ public class JWTCredential implements Credential, AccessTokenAccessor, HttpAutho
         return Optional.ofNullable(m_idToken);
     }
 
-    private void refreshAccessToken() throws IOException {
+    /**
+     * Refreshes the access token, unless another thread has already refreshed it
+     * since the given refresh count was observed.
+     */
+    private void refreshAccessToken(final long observedRefreshCount) throws IOException {
         try {
+            m_refreshLock.lockInterruptibly();
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for access token refresh");
+        }
+
+        try {
+            if (m_refreshCount != observedRefreshCount) {
+                return;
+            }
+
             final var refreshedCredential = m_tokenRefresher.get();
 
             if (!m_tokenType.equalsIgnoreCase(refreshedCredential.m_tokenType)) {
@@ -217,15 +313,21 @@ public class JWTCredential implements Credential, AccessTokenAccessor, HttpAutho
                         refreshedCredential.m_accessToken));
             }
 
+            // the tokens must be written before their expiry time: readers check the
+            // expiry time first, hence they must not see a new expiry time together
+            // with the old token
             m_accessToken = refreshedCredential.m_accessToken;
-            m_expiresAfter = refreshedCredential.m_expiresAfter;
             m_idToken = refreshedCredential.m_idToken;
+            m_expiresAfter = refreshedCredential.m_expiresAfter;
 
             if (refreshedCredential.m_tokenRefresher != null) {
                 m_tokenRefresher = refreshedCredential.m_tokenRefresher;
             }
+            m_refreshCount = observedRefreshCount + 1;
         } catch (UncheckedIOException e) { // NOSONAR this is just a wrapper
             throw e.getCause();
+        } finally {
+            m_refreshLock.unlock();
         }
     }
 
@@ -249,16 +351,69 @@ public class JWTCredential implements Credential, AccessTokenAccessor, HttpAutho
         return getJWTAccessToken(forceRefresh).asString();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Concurrent callers share a single in-flight refresh.
+     * </p>
+     *
+     * @since 5.9
+     */
+    @Override
+    public String getAccessToken(final Duration minRemainingValidity) throws IOException {
+        return getJWTAccessToken(minRemainingValidity).asString();
+    }
+
     @Override
     public CredentialType getType() {
         return TYPE;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @return the scopes from the "scope" claim of the access token as a
+     *         {@link ScopeSet}.
+     */
     @Override
-    public Set<String> getScopes() {
-        return m_accessToken.getScopes()//
-                .map(Set::copyOf)//
-                .orElse(Set.of());
+    public ScopeSet getScopes() {
+        return m_accessToken.getScopeSet();
+    }
+
+    /**
+     * Checks whether the given claim of the current access token has (or, for
+     * array claims, contains) the given value, see
+     * {@link JWT#hasClaimValue(String, Object)}. The lookup takes constant time
+     * after the first check of a claim. The index belongs to the access token,
+     * hence it is rebuilt after the access token has been refreshed.
+     *
+     * @param claim
+     *            The claim key.
+     * @param value
+     *            The value to look for.
+     * @return true if the claim has (or contains) the given value, false
+     *         otherwise.
+     * @since 5.9
+     */
+    public boolean hasClaimValue(final String claim, final Object value) {
+        return m_accessToken.hasClaimValue(claim, value);
+    }
+
+    /**
+     * Verifies the signature of the access token, which is refreshed if necessary,
+     * see {@link JWT#verifySignature(JWKSVerifier)}.
+     *
+     * @param verifier
+     *            The verifier that provides the public keys of the issuer.
+     * @return true if the signature is valid, false otherwise.
+     * @throws IOException
+     *             May be thrown during token refresh, or if the keys could not be
+     *             retrieved.
+     * @since 5.9
+     */
+    public boolean verifySignature(final JWKSVerifier verifier) throws IOException {
+        return getJWTAccessToken().verifySignature(verifier);
     }
 
     /**
@@ -267,7 +422,7 @@ public class JWTCredential implements Credential, AccessTokenAccessor, HttpAutho
      * @return The claim.
      */
     public Object getClaim(final String claim) {
-        return m_accessToken.getAllClaims().get(claim);
+        return m_accessToken.getClaim(claim);
     }
 
     @Override
@@ -0,0 +1,308 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable, canonical representation of a set of OAuth2 scopes. Scopes are
+ * stored sorted and without duplicates in a plain array, which makes the
+ * representation compact and allows for cheap equality and subset checks. The
+ * hash code is computed once upon creation, so that a {@link ScopeSet} is cheap
+ * to use as a key in a map.
+ *
+ * <p>
+ * A {@link ScopeSet} is a regular {@link Set} and can therefore be used
+ * wherever a {@code Set<String>} of scopes is expected. It is equal to any
+ * other {@link Set} that contains the same scopes.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class ScopeSet extends AbstractSet<String> {
+
+    private static final ScopeSet EMPTY = new ScopeSet(new String[0]);
+
+    /**
+     * The scopes, sorted in natural order and without duplicates.
+     */
+    private final String[] m_scopes;
+
+    private final int m_hashCode;
+
+    private ScopeSet(final String[] sortedUniqueScopes) {
+        m_scopes = sortedUniqueScopes;
+
+        var hashCode = 0;
+        for (final var scope : sortedUniqueScopes) {
+            hashCode += scope.hashCode();
+        }
+        m_hashCode = hashCode;
+    }
+
+    /**
+     * @return the empty {@link ScopeSet}.
+     */
+    public static ScopeSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a {@link ScopeSet} from the given scopes.
+     *
+     * @param scopes
+     *            The scopes, must not contain null. Duplicates are removed.
+     * @return a {@link ScopeSet} with the given scopes.
+     */
+    public static ScopeSet of(final String... scopes) {
+        return fromArray(scopes.clone());
+    }
+
+    /**
+     * Creates a {@link ScopeSet} from the given scopes. If the given collection is
+     * already a {@link ScopeSet}, then it is returned as is.
+     *
+     * @param scopes
+     *            The scopes, must not contain null. Duplicates are removed.
+     * @return a {@link ScopeSet} with the given scopes.
+     */
+    public static ScopeSet of(final Collection<String> scopes) {
+        if (scopes instanceof ScopeSet scopeSet) {
+            return scopeSet;
+        }
+        return fromArray(scopes.toArray(String[]::new));
+    }
+
+    /**
+     * Parses a whitespace-separated list of scopes, as used in the "scope"
+     * parameter of OAuth2 requests and responses, as well as in the "scope" claim
+     * of JWTs.
+     *
+     * @param scopeString
+     *            The whitespace-separated list of scopes. May be null.
+     * @return a {@link ScopeSet} with the given scopes, which is empty if the
+     *         given string is null or blank.
+     */
+    public static ScopeSet parse(final String scopeString) {
+        if (scopeString == null) {
+            return EMPTY;
+        }
+
+        final var scopes = new ArrayList<String>();
+        final var length = scopeString.length();
+        var start = -1;
+        for (var i = 0; i < length; i++) {
+            if (isSeparator(scopeString.charAt(i))) {
+                if (start >= 0) {
+                    scopes.add(scopeString.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            scopes.add(scopeString.substring(start));
+        }
+
+        return fromArray(scopes.toArray(String[]::new));
+    }
+
+    private static boolean isSeparator(final char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+
+    private static ScopeSet fromArray(final String[] scopes) {
+        if (scopes.length == 0) {
+            return EMPTY;
+        }
+
+        for (final var scope : scopes) {
+            Objects.requireNonNull(scope, "Scopes must not be null");
+        }
+        Arrays.sort(scopes);
+
+        // remove duplicates in-place
+        var unique = 1;
+        for (var i = 1; i < scopes.length; i++) {
+            if (!scopes[i].equals(scopes[unique - 1])) {
+                scopes[unique] = scopes[i];
+                unique++;
+            }
+        }
+
+        return new ScopeSet(unique == scopes.length ? scopes : Arrays.copyOf(scopes, unique));
+    }
+
+    /**
+     * Checks whether all scopes of this set are also contained in the given set.
+     * This takes linear time in the size of both sets.
+     *
+     * @param other
+     *            The other set of scopes.
+     * @return true, if this set is a (possibly non-strict) subset of the given
+     *         set, false otherwise.
+     */
+    public boolean isSubsetOf(final ScopeSet other) {
+        if (m_scopes.length > other.m_scopes.length) {
+            return false;
+        }
+
+        var j = 0;
+        for (final var scope : m_scopes) {
+            // advance in the other array until we find an element >= scope
+            int cmp = -1;
+            while (j < other.m_scopes.length && (cmp = other.m_scopes[j].compareTo(scope)) < 0) {
+                j++;
+            }
+            if (cmp != 0) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether this set contains all scopes of the given set.
+     *
+     * @param other
+     *            The other set of scopes.
+     * @return true, if this set is a (possibly non-strict) superset of the given
+     *         set, false otherwise.
+     */
+    public boolean isSupersetOf(final ScopeSet other) {
+        return other.isSubsetOf(this);
+    }
+
+    /**
+     * @return the scopes as a space-separated string, as used in the "scope"
+     *         parameter of OAuth2 requests.
+     */
+    public String toScopeString() {
+        return String.join(" ", m_scopes);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return o instanceof String s && Arrays.binarySearch(m_scopes, s) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        if (c instanceof ScopeSet other) {
+            return isSupersetOf(other);
+        }
+        return super.containsAll(c);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int m_next;
+
+            @Override
+            public boolean hasNext() {
+                return m_next < m_scopes.length;
+            }
+
+            @Override
+            public String next() {
+                if (m_next >= m_scopes.length) {
+                    throw new NoSuchElementException();
+                }
+                return m_scopes[m_next++];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return m_scopes.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return m_scopes.length == 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return m_scopes.clone();
+    }
+
+    @Override
+    public int hashCode() {
+        return m_hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o instanceof ScopeSet other) {
+            return m_hashCode == other.m_hashCode && Arrays.equals(m_scopes, other.m_scopes);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(m_scopes);
+    }
+}
@@ -49,15 +49,15 @@
 package org.knime.credentials.base.oauth.api.scribejava;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URL;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -69,25 +69,29 @@ import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.model.OAuth2AccessTokenErrorResponse;
 import com.github.scribejava.core.oauth.AccessTokenRequestParams;
 import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.pkce.PKCE;
 import com.github.scribejava.core.pkce.PKCEService;
-import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
-import com.sun.net.httpserver.HttpServer;
 
 /**
  * Performs an interactive login using the OAuth2 authorization code flow. It
- * opens a browser window and sets up a temporary local webserver to listen for
- * the redirect by the OAuth provider.
+ * opens a browser window and listens for the redirect by the OAuth provider on
+ * a local webserver, which is shared by all concurrent logins with the same
+ * redirect port (see {@link RedirectListener}).
  *
  * @author Alexander Bondaletov, Redfield SE
  */
 public class AuthCodeFlow extends FlowBase {
 
+    /**
+     * The default time to wait for the user to complete the login in the browser.
+     *
+     * @since 5.9
+     */
+    public static final Duration DEFAULT_LOGIN_TIMEOUT = Duration.ofMinutes(1);
+
     private final URI m_redirectUri;
-    private String m_state;
-    private CompletableFuture<String> m_authCodeFuture;
-    private HttpServer m_server;
     private final boolean m_usePKCE;
+    private final Duration m_loginTimeout;
 
     /**
      * Creates a new instance.
@@ -100,15 +104,34 @@ public class AuthCodeFlow extends FlowBase {
      *            whether to use PKCE to secure the interactive login.
      */
     public AuthCodeFlow(final OAuth20Service service, final URI redirectUri, final boolean usePKCE) {
+        this(service, redirectUri, usePKCE, DEFAULT_LOGIN_TIMEOUT);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param service
+     *            The {@link OAuth20Service} instance to use.
+     * @param redirectUri
+     *            The redirect URL.
+     * @param usePKCE
+     *            whether to use PKCE to secure the interactive login.
+     * @param loginTimeout
+     *            The time to wait for the user to complete the login in the
+     *            browser.
+     * @since 5.9
+     */
+    public AuthCodeFlow(final OAuth20Service service, final URI redirectUri, final boolean usePKCE,
+            final Duration loginTimeout) {
         super(service);
         m_redirectUri = redirectUri;
         m_usePKCE = usePKCE;
+        m_loginTimeout = loginTimeout;
     }
 
     /**
-     * Performs interactive login. Opens browser window and setups listener for the
-     * callback URL. After authorization code is received it is stored into the
-     * cache and listener is disposed.
+     * Performs interactive login. Opens browser window and waits for the redirect
+     * with the authorization code, which is then redeemed for an access token.
      *
      * @param scopes
      *            The scopes to request for the access token. May be null.
@@ -116,15 +139,44 @@ public class AuthCodeFlow extends FlowBase {
      * @throws Exception
      *             if the login failed for some reason.
      */
-    @SuppressWarnings("resource")
     @Override
     public OAuth2AccessToken login(final String scopes) throws Exception {
+        final var future = loginAsync(scopes);
+        try {
+            return future.get();
+        } catch (ExecutionException e) { // NOSONAR this is just a wrapper
+            final var cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw new Exception("Login timed out"); // NOSONAR
+            } else if (cause instanceof CancellationException) {
+                throw new Exception("Login was interrupted/canceled");// NOSONAR
+            }
+            throw cause instanceof Exception ex ? ex : e;
+        } catch (InterruptedException | CancellationException e) {// NOSONAR
+            future.cancel(true);
+            throw new Exception("Login was interrupted/canceled");// NOSONAR
+        }
+    }
+
+    /**
+     * Starts an interactive login, without blocking the calling thread while the
+     * user logs in. Opens browser window and registers the login with the local
+     * webserver. Canceling the returned future aborts the login.
+     *
+     * @param scopes
+     *            The scopes to request for the access token. May be null.
+     * @return a future, which provides the {@link OAuth2AccessToken} if the login
+     *         was successful, or fails with a {@link TimeoutException} if the
+     *         login did not complete in time.
+     * @since 5.9
+     */
+    public CompletableFuture<OAuth2AccessToken> loginAsync(final String scopes) {
         // state parameter that associates authorization request with redirect response
         final var pkce = PKCEService.defaultInstance().generatePKCE();
-        m_state = UUID.randomUUID().toString().replace("-", "");
+        final var state = UUID.randomUUID().toString().replace("-", "");
 
         var urlBuilder = getService().createAuthorizationUrlBuilder()//
-                .state(m_state);
+                .state(state);
 
         if (m_usePKCE) {
             urlBuilder = urlBuilder.pkce(pkce);
@@ -134,119 +186,49 @@ public class AuthCodeFlow extends FlowBase {
             urlBuilder = urlBuilder.scope(scopes);
         }
 
-        m_authCodeFuture = new CompletableFuture<>();
-
-        setupListener(m_redirectUri);
-
-        final String authCode;
+        final CompletableFuture<Map<String, String>> redirect;
         try {
-            DesktopUtil.browse(new URL(urlBuilder.build()));
-            authCode = m_authCodeFuture.get(1, TimeUnit.MINUTES);
-        } catch (ExecutionException e) { // NOSONAR this is just a wrapper
-            throw (Exception) e.getCause();
-        } catch (TimeoutException e) { // NOSONAR
-            throw new Exception("Login timed out"); // NOSONAR
-        } catch (InterruptedException | CancellationException e) {// NOSONAR
-            throw new Exception("Login was interrupted/canceled");// NOSONAR
-        } finally {
-            stopListener();
+            redirect = RedirectListener.awaitRedirect(m_redirectUri.getPort(), state)//
+                    .orTimeout(m_loginTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
 
         try {
-            return getService().getAccessToken(
-                    AccessTokenRequestParams.create(authCode) //
-                            .pkceCodeVerifier(pkce.getCodeVerifier()) //
-                            .scope(scopes));
-        } catch (OAuth2AccessTokenErrorResponse e) {
-            throw wrapAccessTokenErrorResponse(e);
+            DesktopUtil.browse(new URL(urlBuilder.build()));
+        } catch (Exception e) { // NOSONAR
+            redirect.cancel(false);
+            return CompletableFuture.failedFuture(e);
         }
-    }
-
-    private void setupListener(final URI redirectUrl) throws IOException {
-        stopListener();
-
-        m_server = HttpServer.create(new InetSocketAddress(redirectUrl.getPort()), 10);
-        m_server.createContext("/", new AuthCodeHandler());
-        m_server.start();
-    }
 
-    private void stopListener() {
-        if (m_server != null) {
-            m_server.stop(0);
-            m_server = null;
-        }
+        // the access token is fetched by the thread that handles the redirect
+        final var token = redirect.thenApply(params -> fetchAccessToken(params, pkce, scopes));
+        // unregisters the login if the caller gives up
+        token.whenComplete((result, error) -> redirect.cancel(false));
+        return token;
     }
 
-    private class AuthCodeHandler implements HttpHandler {
-        private static final String SUCCESS_MESSAGE = """
-                <html>
-                    <head><title>Authentication complete</title></head>
-                    <body>Authentication complete. You can close the browser.</body>
-                </html>
-                """;
-        private static final String ERROR_MESSAGE_FORMAT = """
-                <html>
-                    <head><title>Authentication failed</title></head>
-                    <body>Authentication failed. You may close the browser. Error details: <br> %s</body>
-                </html>
-                """;
-
-        @Override
-        public void handle(final HttpExchange exchange) throws IOException {
-            try {
-                var code = extractCode(exchange);
-                sendResponse(exchange, SUCCESS_MESSAGE);
-                m_authCodeFuture.complete(code);
-            } catch (IOException e) {
-                sendResponse(exchange, String.format(ERROR_MESSAGE_FORMAT, //
-                        e.getMessage()));
-                m_authCodeFuture.completeExceptionally(e);
-            }
-        }
-
-        private String extractCode(final HttpExchange exchange) throws IOException {
-            var code = extractField(exchange, "code");
-
-            if (code != null) {
-                var state = extractField(exchange, "state");
-                if (!m_state.equals(state)) {
-                    throw new IOException(
-                            "Failed to validate authorization server response (state mismatch)");
-                }
-            } else {
-                var error = extractField(exchange, "error");
-                var errorDescription = Optional.ofNullable(extractField(exchange, "error_description"))
-                        .orElse("not provided");
-
-                throw createLoginFailedException(error, errorDescription);
-            }
-            return code;
-        }
+    private OAuth2AccessToken fetchAccessToken(final Map<String, String> params, final PKCE pkce,
+            final String scopes) {
 
-        private String extractField(final HttpExchange exchange, final String field) {
-
-            final var query = exchange.getRequestURI().getQuery();
-            if (query != null) {
-                for (var param : query.split("&")) {
-                    final var keyValue = param.split("=");
-                    if (keyValue.length == 2 && field.equalsIgnoreCase(keyValue[0])) {
-                        return URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8);
-                    }
-                }
+        try {
+            final var code = params.get("code");
+            if (code == null) {
+                throw createLoginFailedException(params.get("error"), //
+                        Optional.ofNullable(params.get("error_description")).orElse("not provided"), //
+                        params.get("error_uri"));
             }
 
-            return null;
-        }
-
-        private void sendResponse(final HttpExchange httpExchange, final String response) {
-            try {
-                httpExchange.sendResponseHeaders(200, response.length());
-                try (var os = httpExchange.getResponseBody()) {
-                    os.write(response.getBytes(StandardCharsets.UTF_8));
-                }
-            } catch (IOException e) { // NOSONAR
-                // do nothing, browser may have already closed connection
-            }
+            return getService().getAccessToken(AccessTokenRequestParams.create(code) //
+                    .pkceCodeVerifier(pkce.getCodeVerifier()) //
+                    .scope(scopes));
+        } catch (OAuth2AccessTokenErrorResponse e) {
+            throw new CompletionException(wrapAccessTokenErrorResponse(e));
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (Exception e) { // NOSONAR reported through the future
+            throw new CompletionException(e);
         }
     }
 }
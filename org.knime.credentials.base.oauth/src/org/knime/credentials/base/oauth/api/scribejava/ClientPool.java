@@ -0,0 +1,384 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.knime.credentials.base.oauth.api.AccessTokenAccessor;
+import org.knime.credentials.base.oauth.api.AccessTokenCredential;
+
+import com.github.scribejava.core.model.OAuth2AccessTokenErrorResponse;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.oauth2.OAuth2Error;
+
+/**
+ * A pool of OAuth2 clients (apps) that can all obtain access tokens from the
+ * same token endpoint with the same non-interactive {@link TokenGrant}. Identity
+ * providers often rate-limit token requests per client ID; the pool spreads
+ * token acquisitions and refreshes across several clients to stay below that
+ * limit.
+ *
+ * <p>
+ * Each client keeps its own token, which is refreshed (or re-acquired) through
+ * that client only. Credentials created by the pool obtain their access token
+ * from one of the clients, chosen according to the pool's {@link Selection},
+ * and obtain a refreshed token from the next chosen client. A client whose
+ * token request is throttled by the token endpoint (HTTP 429 or 503, or the
+ * OAuth errors <tt>slow_down</tt> and <tt>temporarily_unavailable</tt>) is
+ * excluded from selection for the duration given by the <tt>Retry-After</tt>
+ * response header, or for a default back-off period.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class ClientPool {
+
+    /**
+     * How the pool chooses the client to obtain a token from.
+     */
+    public enum Selection {
+        /**
+         * Uses the clients in turn.
+         */
+        ROUND_ROBIN,
+
+        /**
+         * Uses the client with the fewest in-flight token requests. Ties are broken
+         * in round-robin order.
+         */
+        LEAST_LOADED
+    }
+
+    /**
+     * The default duration for which a throttled client is excluded, if the token
+     * endpoint does not send a <tt>Retry-After</tt> header.
+     */
+    public static final Duration DEFAULT_THROTTLING_BACKOFF = Duration.ofSeconds(30);
+
+    private final List<Member> m_members;
+
+    private final Selection m_selection;
+
+    private final Duration m_defaultBackoff;
+
+    private final Clock m_clock;
+
+    private final AtomicInteger m_nextMember = new AtomicInteger();
+
+    /**
+     * Creates a new pool.
+     *
+     * @param serviceSuppliers
+     *            One supplier per client, which creates (or provides a pooled)
+     *            {@link OAuth20Service} for the token endpoint, configured with the
+     *            ID and secret of the respective client.
+     * @param grant
+     *            The non-interactive grant to acquire tokens with.
+     * @param selection
+     *            How to choose the client to obtain a token from.
+     */
+    public ClientPool(final List<Supplier<OAuth20Service>> serviceSuppliers, final TokenGrant grant,
+            final Selection selection) {
+
+        this(serviceSuppliers, grant, selection, DEFAULT_THROTTLING_BACKOFF, Clock.systemUTC());
+    }
+
+    ClientPool(final List<Supplier<OAuth20Service>> serviceSuppliers, final TokenGrant grant,
+            final Selection selection, final Duration defaultBackoff, final Clock clock) {
+
+        if (serviceSuppliers.isEmpty()) {
+            throw new IllegalArgumentException("Client pool must contain at least one client");
+        }
+        Objects.requireNonNull(grant, "Grant must not be null");
+
+        m_clock = Objects.requireNonNull(clock, "Clock must not be null");
+        m_members = serviceSuppliers.stream()//
+                .map(serviceSupplier -> new Member(serviceSupplier, grant))//
+                .toList();
+        m_selection = Objects.requireNonNull(selection, "Selection must not be null");
+        m_defaultBackoff = defaultBackoff;
+    }
+
+    /**
+     * @return the number of clients in this pool.
+     */
+    public int size() {
+        return m_members.size();
+    }
+
+    /**
+     * Creates a credential that obtains its access token from one of the clients
+     * of this pool. Whenever the access token needs to be refreshed, the
+     * credential obtains a new one from the next chosen client.
+     *
+     * @return a refreshable {@link AccessTokenCredential}.
+     * @throws IOException
+     *             if no client could acquire an access token.
+     */
+    public AccessTokenCredential createCredential() throws IOException {
+        final var current = new AtomicReference<>(acquire(null));
+
+        final Supplier<AccessTokenCredential> refresher = () -> {
+            try {
+                final var refreshed = acquire(current.get().accessToken());
+                current.set(refreshed);
+                return refreshed.toCredential(null, m_clock);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        return current.get().toCredential(refresher, m_clock);
+    }
+
+    private record PooledToken(String accessToken, Instant expiresAfter, String tokenType, Set<String> scopes) {
+
+        AccessTokenCredential toCredential(final Supplier<AccessTokenCredential> refresher, final Clock clock) {
+            return new AccessTokenCredential(accessToken, expiresAfter, tokenType, scopes, refresher, clock);
+        }
+    }
+
+    /**
+     * Obtains a token from the chosen client. Clients that are throttled are
+     * excluded and the next client is tried.
+     *
+     * @param staleToken
+     *            The token that is being refreshed (may be null). It is never
+     *            handed out again.
+     */
+    private PooledToken acquire(final String staleToken) throws IOException {
+        Exception throttlingFailure = null;
+
+        for (final var member : selectCandidates()) {
+            member.m_inFlight.incrementAndGet();
+            try {
+                return member.getToken(staleToken);
+            } catch (IOException | RuntimeException e) {
+                final var backoff = getThrottlingBackoff(e);
+                if (backoff.isEmpty()) {
+                    throw e;
+                }
+                member.m_throttledUntil = m_clock.instant().plus(backoff.get());
+                throttlingFailure = e;
+            } finally {
+                member.m_inFlight.decrementAndGet();
+            }
+        }
+
+        throw new IOException(String.format("All %d clients/apps are throttled by the token endpoint (%s)", //
+                m_members.size(), //
+                throttlingFailure.getMessage()), throttlingFailure);
+    }
+
+    /**
+     * @return the clients to try, in order.
+     */
+    private List<Member> selectCandidates() {
+        final var now = m_clock.instant();
+        final var start = Math.floorMod(m_nextMember.getAndIncrement(), m_members.size());
+
+        final var available = new ArrayList<Member>(m_members.size());
+        final var throttled = new ArrayList<Member>();
+        for (var i = 0; i < m_members.size(); i++) {
+            final var member = m_members.get((start + i) % m_members.size());
+            if (member.isThrottled(now)) {
+                throttled.add(member);
+            } else {
+                available.add(member);
+            }
+        }
+
+        if (available.isEmpty()) {
+            // rather than failing right away, try the client whose back-off ends first
+            return List.of(throttled.stream()//
+                    .min(Comparator.comparing(member -> member.m_throttledUntil))//
+                    .orElseThrow());
+        }
+
+        if (m_selection == Selection.LEAST_LOADED) {
+            // the sort is stable, hence ties remain in round-robin order
+            available.sort(Comparator.comparingInt(member -> member.m_inFlight.get()));
+        }
+        return available;
+    }
+
+    /**
+     * Determines whether the given failure (or one of its causes) is a throttled
+     * token request.
+     *
+     * @return the duration for which the client should not be used, or an empty
+     *         {@link Optional} if the failure is not due to throttling.
+     */
+    Optional<Duration> getThrottlingBackoff(final Throwable failure) {
+        for (var cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OAuth2AccessTokenErrorResponse errorResponse && isThrottled(errorResponse)) {
+                final var retryAfter =
+                        TokenEndpointRateLimiter.getRetryAfter(errorResponse.getResponse(), m_clock.instant());
+                return Optional.of(retryAfter.orElse(m_defaultBackoff));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @SuppressWarnings("resource")
+    private static boolean isThrottled(final OAuth2AccessTokenErrorResponse errorResponse) {
+        final var error = errorResponse.getError();
+        if (error == OAuth2Error.SLOW_DOWN || error == OAuth2Error.TEMPORARILY_UNAVAILABLE) {
+            return true;
+        }
+
+        final var response = errorResponse.getResponse();
+        return response != null && (response.getCode() == 429 || response.getCode() == 503);
+    }
+
+    /**
+     * A client of the pool together with its token state.
+     */
+    private final class Member {
+
+        private final Supplier<OAuth20Service> m_serviceSupplier;
+
+        private final TokenGrant m_grant;
+
+        private final AtomicInteger m_inFlight = new AtomicInteger();
+
+        private final ReentrantLock m_acquireLock = new ReentrantLock();
+
+        private volatile Instant m_throttledUntil;
+
+        private volatile AccessTokenAccessor m_credential;
+
+        Member(final Supplier<OAuth20Service> serviceSupplier, final TokenGrant grant) {
+            m_serviceSupplier = serviceSupplier;
+            m_grant = grant;
+        }
+
+        boolean isThrottled(final Instant now) {
+            final var throttledUntil = m_throttledUntil;
+            return throttledUntil != null && now.isBefore(throttledUntil);
+        }
+
+        PooledToken getToken(final String staleToken) throws IOException {
+            final var credential = getCredential();
+
+            var accessToken = credential.getAccessToken();
+            if (accessToken.equals(staleToken)) {
+                accessToken = credential.getAccessToken(true);
+            }
+
+            return new PooledToken(accessToken, //
+                    credential.getExpiresAfter().orElse(null), //
+                    credential.getTokenType(), //
+                    credential.getScopes());
+        }
+
+        /**
+         * @return the credential of this client, which refreshes its token through
+         *         this client only. It is acquired on first use.
+         */
+        private AccessTokenAccessor getCredential() throws IOException {
+            var credential = m_credential;
+            if (credential != null) {
+                return credential;
+            }
+
+            try {
+                m_acquireLock.lockInterruptibly();
+            } catch (InterruptedException e) { // NOSONAR
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for access token");
+            }
+
+            try {
+                if (m_credential == null) {
+                    m_credential = acquireCredential();
+                }
+                return m_credential;
+            } finally {
+                m_acquireLock.unlock();
+            }
+        }
+
+        private AccessTokenAccessor acquireCredential() throws IOException {
+            final var service = m_serviceSupplier.get();
+            try {
+                final var scribeToken = m_grant.acquire(service);
+                return (AccessTokenAccessor)CredentialFactory.fromScribeToken(scribeToken, //
+                        m_serviceSupplier, //
+                        m_grant, //
+                        m_clock);
+            } catch (IOException | RuntimeException e) { // NOSONAR
+                throw e;
+            } catch (InterruptedException e) { // NOSONAR
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while acquiring access token");
+            } catch (Exception e) { // NOSONAR
+                throw new IOException(e.getMessage(), e);
+            } finally {
+                CredentialFactory.release(m_serviceSupplier, service);
+            }
+        }
+    }
+}
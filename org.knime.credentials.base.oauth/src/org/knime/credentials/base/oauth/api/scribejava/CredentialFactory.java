@@ -49,19 +49,25 @@
 package org.knime.credentials.base.oauth.api.scribejava;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
 import java.text.ParseException;
-import java.time.Instant;
+import java.time.Clock;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Supplier;
 
+import org.apache.commons.lang3.StringUtils;
+import org.knime.core.node.NodeLogger;
 import org.knime.credentials.base.Credential;
 import org.knime.credentials.base.oauth.api.AccessTokenCredential;
+import org.knime.credentials.base.oauth.api.JWT;
 import org.knime.credentials.base.oauth.api.JWTCredential;
+import org.knime.credentials.base.oauth.api.ScopeSet;
 
 import com.github.scribejava.apis.openid.OpenIdOAuth2AccessToken;
 import com.github.scribejava.core.model.OAuth2AccessToken;
+import com.github.scribejava.core.model.OAuth2AccessTokenErrorResponse;
 import com.github.scribejava.core.oauth.OAuth20Service;
 
 /**
@@ -72,6 +78,8 @@ import com.github.scribejava.core.oauth.OAuth20Service;
  */
 public final class CredentialFactory {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(CredentialFactory.class);
+
     private CredentialFactory() {
     }
 
@@ -88,6 +96,72 @@ public final class CredentialFactory {
     public static Credential fromScribeToken(final OAuth2AccessToken scribeToken,
             final Supplier<OAuth20Service> serviceSupplier) {
 
+        return fromScribeToken(scribeToken, serviceSupplier, null);
+    }
+
+    /**
+     * Creates a new {@link Credential} from the given scribejava access token. The
+     * way the resulting credential refreshes its access token depends on the
+     * token:
+     * <ul>
+     * <li>If the token endpoint issued a refresh token, then the access token is
+     * refreshed using the refresh token. If this fails because the identity
+     * provider rejects the refresh token, then the given grant is performed again
+     * (if provided).</li>
+     * <li>Otherwise, the given grant is performed again (if provided).</li>
+     * <li>If neither a refresh token nor a grant is available, then the credential
+     * is not refreshable.</li>
+     * </ul>
+     * If the access token is opaque, the services are pooled (see
+     * {@link OAuth20ServicePool}) and their API has a token introspection
+     * endpoint (see {@link CustomApi20#getIntrospectionEndpoint()}),
+     * then the expiry time and scopes of the token are determined by means of
+     * introspection (unless the token endpoint has provided them), and the
+     * credential can tell whether the token is still active (see
+     * {@link TokenIntrospector}).
+     *
+     * @param scribeToken
+     *            The scribejava access token.
+     * @param serviceSupplier
+     *            A supplier the creates a new (open) {@link OAuth20Service} for
+     *            token refresh.
+     * @param reacquisitionGrant
+     *            The non-interactive grant that was used to acquire the token and
+     *            that can be performed again to acquire a new token. May be null,
+     *            e.g. for interactive grants.
+     * @return a newly created {@link Credential}
+     * @since 5.9
+     */
+    public static Credential fromScribeToken(final OAuth2AccessToken scribeToken,
+            final Supplier<OAuth20Service> serviceSupplier, final TokenGrant reacquisitionGrant) {
+
+        return fromScribeToken(scribeToken, serviceSupplier, reacquisitionGrant, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a new {@link Credential} from the given scribejava access token, see
+     * {@link #fromScribeToken(OAuth2AccessToken, Supplier, TokenGrant)}. The given
+     * clock is used to compute the expiry time of the access token, as well as to
+     * determine whether the access token has expired. This is mostly useful to
+     * simulate the passage of time in tests.
+     *
+     * @param scribeToken
+     *            The scribejava access token.
+     * @param serviceSupplier
+     *            A supplier the creates a new (open) {@link OAuth20Service} for
+     *            token refresh.
+     * @param reacquisitionGrant
+     *            The non-interactive grant that was used to acquire the token and
+     *            that can be performed again to acquire a new token. May be null,
+     *            e.g. for interactive grants.
+     * @param clock
+     *            The clock to use.
+     * @return a newly created {@link Credential}
+     * @since 5.9
+     */
+    public static Credential fromScribeToken(final OAuth2AccessToken scribeToken,
+            final Supplier<OAuth20Service> serviceSupplier, final TokenGrant reacquisitionGrant, final Clock clock) {
+
         var accessToken = scribeToken.getAccessToken();
         String idToken = null;
         if (scribeToken instanceof OpenIdOAuth2AccessToken openIdToken) {
@@ -95,40 +169,147 @@ public final class CredentialFactory {
         }
         var refreshToken = scribeToken.getRefreshToken();
         var expiresAfter = Optional.ofNullable(scribeToken.getExpiresIn())//
-                .map(secs -> Instant.now().plusSeconds(secs))//
+                .map(secs -> clock.instant().plusSeconds(secs))//
                 .orElse(null);
         var tokenType = scribeToken.getTokenType();
 
-        try {
-            return new JWTCredential(accessToken, //
-                    tokenType, //
-                    expiresAfter,
-                    idToken, //
-                    createTokenRefresher(refreshToken, serviceSupplier));
-        } catch (ParseException ignored) {
-            return new AccessTokenCredential(accessToken, //
-                    expiresAfter, //
-                    tokenType, //
-                    scribeToken.getScope(), //
-                    createTokenRefresher(refreshToken, serviceSupplier));
+        // opaque access tokens are detected by a cheap structural check, instead of
+        // failing to parse them
+        if (JWT.looksLikeJWT(accessToken)) {
+            try {
+                return new JWTCredential(accessToken, //
+                        tokenType, //
+                        expiresAfter,
+                        idToken, //
+                        createTokenRefresher(refreshToken, serviceSupplier, reacquisitionGrant, clock), //
+                        clock);
+            } catch (ParseException ignored) { // NOSONAR fall back to an opaque access token
+            }
+        }
+
+        // tokens from the StreamingTokenExtractor come with already parsed scopes
+        var scopes = scribeToken instanceof StreamingTokenExtractor.ParsedAccessToken parsedToken //
+                ? parsedToken.getScopeSet() //
+                : ScopeSet.parse(scribeToken.getScope());
+
+        final var introspectionUrl = getIntrospectionEndpoint(serviceSupplier);
+        AccessTokenCredential.ActivityCheck activityCheck = null;
+        if (introspectionUrl != null) {
+            activityCheck = token -> TokenIntrospector.getInstance()//
+                    .introspect(serviceSupplier, introspectionUrl, token)//
+                    .active();
+
+            if (expiresAfter == null || scopes.isEmpty()) {
+                try {
+                    final var introspection = TokenIntrospector.getInstance()//
+                            .introspect(serviceSupplier, introspectionUrl, accessToken);
+                    expiresAfter = expiresAfter != null ? expiresAfter : introspection.expiresAfter();
+                    scopes = !scopes.isEmpty() ? scopes : introspection.scopes();
+                } catch (IOException e) { // NOSONAR the token is usable without introspection
+                    LOGGER.warn("Could not introspect access token: " + e.getMessage(), e);
+                }
+            }
         }
+
+        return new AccessTokenCredential(accessToken, //
+                expiresAfter, //
+                tokenType, //
+                scopes, //
+                createTokenRefresher(refreshToken, serviceSupplier, reacquisitionGrant, clock), //
+                activityCheck, //
+                clock);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * @return the introspection endpoint of the API of the supplied services, or
+     *         null. Only pooled services are inspected, because other suppliers
+     *         may create a new service each time.
+     */
+    private static String getIntrospectionEndpoint(final Supplier<OAuth20Service> serviceSupplier) {
+        if (OAuth20ServicePool.isPooled(serviceSupplier)
+                && serviceSupplier.get().getApi() instanceof CustomApi20 customApi) {
+            return StringUtils.trimToNull(customApi.getIntrospectionEndpoint());
+        }
+        return null;
+    }
+
+    /**
+     * Creates a token refresher that knows how the token was acquired, or null if
+     * the token cannot be refreshed.
+     */
     private static <T extends Credential> Supplier<T> createTokenRefresher(final String refreshToken,
-            final Supplier<OAuth20Service> serviceSupplier) {
+            final Supplier<OAuth20Service> serviceSupplier, final TokenGrant reacquisitionGrant, final Clock clock) {
+
+        if (StringUtils.isNotBlank(refreshToken)) {
+            return () -> refresh(refreshToken, serviceSupplier, reacquisitionGrant, clock);
+        } else if (reacquisitionGrant != null) {
+            return () -> reacquire(serviceSupplier, reacquisitionGrant, clock);
+        } else {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Credential> T refresh(final String refreshToken,
+            final Supplier<OAuth20Service> serviceSupplier, final TokenGrant reacquisitionGrant, final Clock clock) {
 
-        return () -> { // NOSONAR
-            try (var service = serviceSupplier.get()) {
-                var scribeToken = service.refreshAccessToken(refreshToken);
-                return (T) fromScribeToken(scribeToken, serviceSupplier);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            } catch (InterruptedException e) { // NOSONAR
-                throw new RuntimeException(e); // NOSONAR
-            } catch (ExecutionException e) { // NOSONAR
-                throw new RuntimeException(e.getCause()); // NOSONAR
+        final var service = serviceSupplier.get();
+        try {
+            var scribeToken = service.refreshAccessToken(refreshToken);
+            return (T) fromScribeToken(scribeToken, serviceSupplier, reacquisitionGrant, clock);
+        } catch (OAuth2AccessTokenErrorResponse e) {
+            if (reacquisitionGrant == null) {
+                throw e;
             }
-        };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) { // NOSONAR
+            throw new RuntimeException(e); // NOSONAR
+        } catch (ExecutionException e) { // NOSONAR
+            throw new RuntimeException(e.getCause()); // NOSONAR
+        } finally {
+            release(serviceSupplier, service);
+        }
+
+        // the identity provider has rejected the refresh token (e.g. because it has
+        // expired), hence we perform the original grant again
+        return reacquire(serviceSupplier, reacquisitionGrant, clock);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Credential> T reacquire(final Supplier<OAuth20Service> serviceSupplier,
+            final TokenGrant reacquisitionGrant, final Clock clock) {
+
+        final var service = serviceSupplier.get();
+        try {
+            var scribeToken = reacquisitionGrant.acquire(service);
+            return (T) fromScribeToken(scribeToken, serviceSupplier, reacquisitionGrant, clock);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while acquiring access token"));
+        } catch (RuntimeException e) { // NOSONAR
+            throw e;
+        } catch (Exception e) { // NOSONAR
+            throw new UncheckedIOException(new IOException(e.getMessage(), e));
+        } finally {
+            release(serviceSupplier, service);
+        }
+    }
+
+    /**
+     * Closes the given service after use, unless it is pooled (see
+     * {@link OAuth20ServicePool}).
+     */
+    static void release(final Supplier<OAuth20Service> serviceSupplier, final OAuth20Service service) {
+        if (OAuth20ServicePool.isPooled(serviceSupplier)) {
+            return;
+        }
+
+        try {
+            service.close();
+        } catch (IOException e) { // NOSONAR must not mask the outcome of the request
+        }
     }
 }
@@ -50,12 +50,15 @@ package org.knime.credentials.base.oauth.api.scribejava;
 
 import java.io.OutputStream;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import com.github.scribejava.core.base64.Base64;
 import com.github.scribejava.core.builder.api.DefaultApi20;
+import com.github.scribejava.core.extractors.TokenExtractor;
 import com.github.scribejava.core.httpclient.HttpClient;
 import com.github.scribejava.core.httpclient.HttpClientConfig;
+import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.model.OAuthConstants;
 import com.github.scribejava.core.model.OAuthRequest;
 import com.github.scribejava.core.model.Verb;
@@ -76,6 +79,10 @@ public class CustomApi20 extends DefaultApi20 {
     private final String m_authorizationUrl;
     private final Verb m_requestMethod;
     private final ClientAuthentication m_clientAuthentication;
+    private final List<String> m_alternativeTokenUrls;
+    private final boolean m_hedgeRequests;
+    private final String m_introspectionUrl;
+    private final String m_deviceAuthorizationUrl;
 
     /**
      * @param tokenUrl
@@ -90,7 +97,89 @@ public class CustomApi20 extends DefaultApi20 {
      */
     public CustomApi20(final String tokenUrl, final String authorizationUrl, final Verb requestMethod,
             final ClientAuthentication clientAuthentication) {
+        this(tokenUrl, authorizationUrl, requestMethod, clientAuthentication, List.of(), false);
+    }
+
+    /**
+     * @param tokenUrl
+     *            Access token endpoint URL.
+     * @param authorizationUrl
+     *            Authorization endpoint URL.
+     * @param requestMethod
+     *            Authorization request method.
+     * @param clientAuthentication
+     *            Client authentication type.
+     * @param alternativeTokenUrls
+     *            URLs of equivalent token endpoints, which are used (in the given
+     *            order) if the token endpoint fails or is unreachable.
+     * @param hedgeRequests
+     *            Whether to send a duplicate request to the next token endpoint, if
+     *            the first one is slow to respond.
+     * @since 5.9
+     */
+    public CustomApi20(final String tokenUrl, final String authorizationUrl, final Verb requestMethod, // NOSONAR
+            final ClientAuthentication clientAuthentication, final List<String> alternativeTokenUrls,
+            final boolean hedgeRequests) {
+        this(tokenUrl, authorizationUrl, requestMethod, clientAuthentication, alternativeTokenUrls, hedgeRequests,
+                null);
+    }
+
+    /**
+     * @param tokenUrl
+     *            Access token endpoint URL.
+     * @param authorizationUrl
+     *            Authorization endpoint URL.
+     * @param requestMethod
+     *            Authorization request method.
+     * @param clientAuthentication
+     *            Client authentication type.
+     * @param alternativeTokenUrls
+     *            URLs of equivalent token endpoints, which are used (in the given
+     *            order) if the token endpoint fails or is unreachable.
+     * @param hedgeRequests
+     *            Whether to send a duplicate request to the next token endpoint, if
+     *            the first one is slow to respond.
+     * @param introspectionUrl
+     *            Token introspection endpoint URL (RFC 7662). May be null.
+     * @since 5.9
+     */
+    public CustomApi20(final String tokenUrl, final String authorizationUrl, final Verb requestMethod, // NOSONAR
+            final ClientAuthentication clientAuthentication, final List<String> alternativeTokenUrls,
+            final boolean hedgeRequests, final String introspectionUrl) {
+        this(tokenUrl, authorizationUrl, requestMethod, clientAuthentication, alternativeTokenUrls, hedgeRequests,
+                introspectionUrl, null);
+    }
+
+    /**
+     * @param tokenUrl
+     *            Access token endpoint URL.
+     * @param authorizationUrl
+     *            Authorization endpoint URL.
+     * @param requestMethod
+     *            Authorization request method.
+     * @param clientAuthentication
+     *            Client authentication type.
+     * @param alternativeTokenUrls
+     *            URLs of equivalent token endpoints, which are used (in the given
+     *            order) if the token endpoint fails or is unreachable.
+     * @param hedgeRequests
+     *            Whether to send a duplicate request to the next token endpoint, if
+     *            the first one is slow to respond.
+     * @param introspectionUrl
+     *            Token introspection endpoint URL (RFC 7662). May be null.
+     * @param deviceAuthorizationUrl
+     *            Device authorization endpoint URL (RFC 8628). May be null.
+     * @since 5.9
+     */
+    @SuppressWarnings("java:S107")
+    public CustomApi20(final String tokenUrl, final String authorizationUrl, final Verb requestMethod, // NOSONAR
+            final ClientAuthentication clientAuthentication, final List<String> alternativeTokenUrls,
+            final boolean hedgeRequests, final String introspectionUrl, final String deviceAuthorizationUrl) {
         m_tokenUrl = tokenUrl;
+        m_alternativeTokenUrls = List.copyOf(alternativeTokenUrls);
+        m_hedgeRequests = hedgeRequests;
+        m_introspectionUrl = introspectionUrl;
+        m_deviceAuthorizationUrl = deviceAuthorizationUrl;
         m_authorizationUrl = authorizationUrl;
         m_requestMethod = requestMethod;
 
@@ -123,6 +212,64 @@ public class CustomApi20 extends DefaultApi20 {
         return m_clientAuthentication;
     }
 
+    /**
+     * @return the URLs of the alternative token endpoints, which may be empty.
+     * @since 5.9
+     */
+    public List<String> getAlternativeTokenEndpoints() {
+        return m_alternativeTokenUrls;
+    }
+
+    /**
+     * @return whether to send hedged requests to the alternative token endpoints.
+     * @since 5.9
+     */
+    public boolean isHedgeRequests() {
+        return m_hedgeRequests;
+    }
+
+    /**
+     * @return the URL of the token introspection endpoint (RFC 7662), or null if
+     *         there is none.
+     * @since 5.9
+     */
+    public String getIntrospectionEndpoint() {
+        return m_introspectionUrl;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException
+     *             if no device authorization endpoint URL was specified.
+     * @since 5.9
+     */
+    @Override
+    public String getDeviceAuthorizationEndpoint() {
+        if (m_deviceAuthorizationUrl == null) {
+            throw new UnsupportedOperationException("No device authorization endpoint URL was specified");
+        }
+        return m_deviceAuthorizationUrl;
+    }
+
+    /**
+     * @return the device authorization endpoint URL, or null if none was specified.
+     */
+    String getDeviceAuthorizationUrl() {
+        return m_deviceAuthorizationUrl;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the {@link StreamingTokenExtractor}.
+     * @since 5.9
+     */
+    @Override
+    public TokenExtractor<OAuth2AccessToken> getAccessTokenExtractor() {
+        return StreamingTokenExtractor.instance();
+    }
+
     @Override
     public OAuth20Service createService(final String apiKey, final String apiSecret, final String callback,
             final String defaultScope, final String responseType, final OutputStream debugStream,
@@ -48,27 +48,56 @@
  */
 package org.knime.credentials.base.oauth.api.scribejava;
 
+import java.io.IOException;
 import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import com.github.scribejava.core.builder.api.DefaultApi20;
 import com.github.scribejava.core.httpclient.HttpClient;
 import com.github.scribejava.core.httpclient.HttpClientConfig;
 import com.github.scribejava.core.model.OAuthConstants;
 import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Parameter;
+import com.github.scribejava.core.model.ParameterList;
+import com.github.scribejava.core.model.Response;
 import com.github.scribejava.core.oauth.OAuth20Service;
 
 /**
  * Custom {@link OAuth20Service} subclass that can inject custom request body
- * fields into the client credentials grant request.
+ * fields into the client credentials grant request. All (synchronous) requests
+ * are subject to the executor-wide {@link TokenEndpointRateLimiter}, and
+ * requests that the identity provider has recently rejected are answered from
+ * the {@link NegativeResponseCache}. If the {@link CustomApi20} has alternative
+ * token endpoints, token requests fail over between them, see
+ * {@link TokenEndpointGroup}. If the {@link JavaNetHttpClientConfig} specifies
+ * a deadline, each request (including the time spent waiting for the rate
+ * limiter and failing over) must complete within it.
  *
  * @author Bjoern Lohrmann, KNIME GmbH
  */
 class CustomOAuth20Service extends OAuth20Service {
 
+    /**
+     * Grant types whose requests must not be sent twice, because the
+     * authorization code, refresh token or device code may only be redeemed once.
+     */
+    private static final Set<String> NON_REPEATABLE_GRANT_TYPES = Set.of(OAuthConstants.AUTHORIZATION_CODE, //
+            OAuthConstants.REFRESH_TOKEN, //
+            "urn:ietf:params:oauth:grant-type:device_code");
+
+    private static final String CLIENT_ASSERTION = "client_assertion";
+
     private Map<String, String> m_additionalRequestBodyFields = new HashMap<>();
 
+    private final JavaNetHttpClientConfig m_httpClientConfig;
+
     CustomOAuth20Service(final DefaultApi20 api, // NOSONAR
             final String apiKey, //
             final String apiSecret, //
@@ -84,6 +113,179 @@ class CustomOAuth20Service extends OAuth20Service {
         super(api, apiKey, apiSecret, callback, defaultScope, responseType, debugStream, userAgent, httpClientConfig,
                 httpClient);
         m_additionalRequestBodyFields = additionalRequestBodyFields;
+
+        if (httpClient instanceof JavaNetHttpClient javaNetClient) {
+            m_httpClientConfig = javaNetClient.getConfig();
+        } else if (httpClient == null && httpClientConfig instanceof JavaNetHttpClientConfig config) {
+            m_httpClientConfig = config;
+        } else {
+            m_httpClientConfig = null;
+        }
+    }
+
+    /**
+     * @return the additional fields of the client credentials grant request body.
+     */
+    Map<String, String> getAdditionalRequestBodyFields() {
+        return m_additionalRequestBodyFields;
+    }
+
+    /**
+     * @return the configuration of the {@link JavaNetHttpClient}, or null if
+     *         another HTTP client is used.
+     */
+    JavaNetHttpClientConfig getHttpClientConfig() {
+        return m_httpClientConfig;
+    }
+
+    /**
+     * @return the maximum duration of a request, or null if it is unbounded.
+     */
+    Duration getDeadline() {
+        return m_httpClientConfig != null ? m_httpClientConfig.deadline() : null;
+    }
+
+    @Override
+    public Response execute(final OAuthRequest request) throws InterruptedException, ExecutionException, IOException {
+        final var negativeCache = NegativeResponseCache.getInstance();
+        final var fingerprint = negativeCache.isEnabled() ? NegativeResponseCache.fingerprint(this, request) : null;
+        if (fingerprint != null) {
+            final var cachedError = negativeCache.lookup(fingerprint);
+            if (cachedError.isPresent()) {
+                return cachedError.get();
+            }
+        }
+
+        final var deadline = TokenRequestDeadline.after(getDeadline());
+        final Response response;
+        final var endpointGroup = getEndpointGroup(request);
+        if (endpointGroup != null) {
+            response = endpointGroup.execute(endpoint -> sendTo(endpoint, request, deadline), //
+                    !NON_REPEATABLE_GRANT_TYPES.contains(getGrantType(request)), //
+                    deadline);
+        } else {
+            try (var permit = acquirePermit(request.getUrl(), deadline)) {
+                response = deadline.await(super.executeAsync(request));
+                permit.onResponse(response);
+            }
+        }
+
+        if (fingerprint != null) {
+            negativeCache.record(fingerprint, response);
+        }
+        return response;
+    }
+
+    private TokenEndpointRateLimiter.Permit acquirePermit(final String url, final TokenRequestDeadline deadline)
+            throws IOException {
+
+        final var limiter = TokenEndpointRateLimiter.getInstance();
+        final var maxQueueTime = deadline.limit(limiter.getConfig().maxQueueTime());
+        try {
+            return limiter.acquire(url, getApiKey(), maxQueueTime);
+        } catch (IOException e) {
+            // report an expired deadline as such
+            throw deadline.remainingNanos() == 0 ? deadline.timeoutException() : e;
+        }
+    }
+
+    private TokenEndpointGroup getEndpointGroup(final OAuthRequest request) {
+        if (getApi() instanceof CustomApi20 customApi && !customApi.getAlternativeTokenEndpoints().isEmpty()
+                && request.getUrl().equals(customApi.getAccessTokenEndpoint())) {
+
+            final var endpoints = new ArrayList<String>();
+            endpoints.add(customApi.getAccessTokenEndpoint());
+            endpoints.addAll(customApi.getAlternativeTokenEndpoints());
+            return new TokenEndpointGroup(endpoints, customApi.isHedgeRequests());
+        }
+        return null;
+    }
+
+    private static String getGrantType(final OAuthRequest request) {
+        final var params = new ArrayList<>(request.getBodyParams().getParams());
+        params.addAll(request.getQueryStringParams().getParams());
+        return params.stream() //
+                .filter(param -> param.getKey().equals(OAuthConstants.GRANT_TYPE)) //
+                .map(Parameter::getValue) //
+                .findFirst() //
+                .orElse(null);
+    }
+
+    /**
+     * Sends a copy of the given request to the given endpoint. The permit of the
+     * rate limiter is held until the response has been received.
+     */
+    private CompletableFuture<Response> sendTo(final String endpoint, final OAuthRequest request,
+            final TokenRequestDeadline deadline) {
+
+        final TokenEndpointRateLimiter.Permit permit;
+        try {
+            permit = acquirePermit(endpoint, deadline);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<Response> future;
+        try {
+            final var sent = super.executeAsync(copyWithUrl(request, endpoint));
+            if (sent instanceof CompletableFuture<Response> completableFuture) {
+                future = completableFuture;
+            } else {
+                // synchronous clients have already completed the request
+                future = CompletableFuture.completedFuture(sent.get());
+            }
+        } catch (ExecutionException e) {
+            future = CompletableFuture.failedFuture(e.getCause());
+        } catch (InterruptedException e) { // NOSONAR reported through the future
+            Thread.currentThread().interrupt();
+            future = CompletableFuture.failedFuture(e);
+        } catch (RuntimeException e) { // NOSONAR reported through the future
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        return future.whenComplete((response, error) -> {
+            if (response != null) {
+                permit.onResponse(response);
+            }
+            permit.close();
+        });
+    }
+
+    /**
+     * Copies the given request for the given endpoint. A signed client assertion
+     * is replaced by one for the given endpoint, since its audience is the token
+     * endpoint and identity providers may reject a reused assertion as a replay.
+     */
+    private OAuthRequest copyWithUrl(final OAuthRequest request, final String url) {
+        final var copy = new OAuthRequest(request.getVerb(), url);
+        copy.setCharset(request.getCharset());
+        copy.setRealm(request.getRealm());
+        request.getHeaders().forEach(copy::addHeader);
+
+        // getQueryStringParams() also returns the parameters of the URL itself
+        final var urlParams = new ParameterList();
+        urlParams.addQuerystring(URI.create(request.getUrl()).getRawQuery());
+        final var queryParams = request.getQueryStringParams().getParams();
+        queryParams.subList(urlParams.size(), queryParams.size()) //
+                .forEach(param -> copy.addQuerystringParameter(param.getKey(), param.getValue()));
+
+        if (request.getStringPayload() != null) {
+            copy.setPayload(request.getStringPayload());
+        } else if (request.getFilePayload() != null) {
+            copy.setPayload(request.getFilePayload());
+        } else if (request.getMultipartPayload() != null) {
+            copy.setMultipartPayload(request.getMultipartPayload());
+        } else {
+            for (final var param : request.getBodyParams().getParams()) {
+                if (CLIENT_ASSERTION.equals(param.getKey())
+                        && getApi().getClientAuthentication() instanceof PrivateKeyJWTAuthenticationScheme scheme) {
+                    copy.addBodyParameter(CLIENT_ASSERTION, scheme.getAssertion(getApiKey(), getApiSecret(), url));
+                } else {
+                    copy.addBodyParameter(param.getKey(), param.getValue());
+                }
+            }
+        }
+        return copy;
     }
 
     @Override
@@ -0,0 +1,217 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.github.scribejava.core.model.DeviceAuthorization;
+import com.github.scribejava.core.model.OAuth2AccessToken;
+import com.github.scribejava.core.model.OAuth2AccessTokenErrorResponse;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import com.github.scribejava.core.oauth2.OAuth2Error;
+
+/**
+ * Performs a login using the OAuth2 device authorization grant (RFC 8628),
+ * which does not require a browser on the machine that runs the login. The
+ * device authorization endpoint issues a user code, which the user enters at a
+ * verification URL on any device. Meanwhile the token endpoint is polled until
+ * the user has completed (or declined) the login, or the code has expired.
+ *
+ * <p>
+ * Polling does not block a thread between two polls: each poll is scheduled on
+ * a shared delayed executor and only occupies a thread while the token request
+ * is in flight.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public class DeviceCodeFlow extends FlowBase {
+
+    /**
+     * Seconds to add to the polling interval when the token endpoint asks to
+     * slow down (see RFC 8628, section 3.5).
+     */
+    static final int SLOW_DOWN_INCREMENT_SECONDS = 5;
+
+    private static final ExecutorService POLL_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        final var thread = new Thread(r, "KNIME-OAuth2-Device-Code-Poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Consumer<DeviceAuthorization> m_userPrompt;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param service
+     *            The {@link OAuth20Service} instance to use. Its API must provide
+     *            a device authorization endpoint.
+     * @param userPrompt
+     *            Callback that asks the user to open the verification URL and
+     *            enter the user code of the given {@link DeviceAuthorization}.
+     */
+    public DeviceCodeFlow(final OAuth20Service service, final Consumer<DeviceAuthorization> userPrompt) {
+        super(service);
+        m_userPrompt = userPrompt;
+    }
+
+    /**
+     * Performs the login and blocks until the user has completed it.
+     *
+     * @param scopes
+     *            The scopes to request for the access token. May be null.
+     * @return the {@link OAuth2AccessToken} if the login was successful.
+     * @throws Exception
+     *             if the login failed for some reason.
+     */
+    @Override
+    public OAuth2AccessToken login(final String scopes) throws Exception {
+        final var future = loginAsync(scopes);
+        try {
+            return future.get();
+        } catch (ExecutionException e) { // NOSONAR this is just a wrapper
+            final var cause = e.getCause();
+            throw cause instanceof Exception ex ? ex : e;
+        } catch (InterruptedException | CancellationException e) {// NOSONAR
+            future.cancel(true);
+            throw new Exception("Login was interrupted/canceled");// NOSONAR
+        }
+    }
+
+    /**
+     * Starts a login, without blocking the calling thread while the user logs in.
+     * Requests a user code, passes it to the user prompt and polls the token
+     * endpoint. Canceling the returned future stops polling.
+     *
+     * @param scopes
+     *            The scopes to request for the access token. May be null.
+     * @return a future, which provides the {@link OAuth2AccessToken} if the login
+     *         was successful.
+     */
+    public CompletableFuture<OAuth2AccessToken> loginAsync(final String scopes) {
+        final var result = new CompletableFuture<OAuth2AccessToken>();
+        POLL_EXECUTOR.execute(() -> start(StringUtils.isBlank(scopes) ? null : scopes, result));
+        return result;
+    }
+
+    private void start(final String scopes, final CompletableFuture<OAuth2AccessToken> result) {
+        final DeviceAuthorization authorization;
+        try {
+            authorization = getService().getDeviceAuthorizationCodes(scopes);
+            m_userPrompt.accept(authorization);
+        } catch (OAuth2AccessTokenErrorResponse e) {
+            result.completeExceptionally(wrapAccessTokenErrorResponse(e));
+            return;
+        } catch (InterruptedException e) { // NOSONAR reported through the future
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return;
+        } catch (Exception e) { // NOSONAR reported through the future
+            result.completeExceptionally(e);
+            return;
+        }
+
+        final var expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(authorization.getExpiresInSeconds());
+        schedulePoll(authorization, Math.max(1, authorization.getIntervalSeconds()), expiresAt, result);
+    }
+
+    private void schedulePoll(final DeviceAuthorization authorization, final int intervalSeconds,
+            final long expiresAt, final CompletableFuture<OAuth2AccessToken> result) {
+
+        if (result.isDone()) {
+            return;
+        }
+        final Executor delayed = CompletableFuture.delayedExecutor(intervalSeconds, TimeUnit.SECONDS, POLL_EXECUTOR);
+        delayed.execute(() -> poll(authorization, intervalSeconds, expiresAt, result));
+    }
+
+    private void poll(final DeviceAuthorization authorization, final int intervalSeconds, final long expiresAt,
+            final CompletableFuture<OAuth2AccessToken> result) {
+
+        if (result.isDone()) {
+            // canceled by the caller
+            return;
+        }
+        if (System.nanoTime() - expiresAt >= 0) {
+            result.completeExceptionally(
+                    new IOException("The user code has expired before the login was completed. Please try again."));
+            return;
+        }
+
+        try {
+            result.complete(getService().getAccessTokenDeviceAuthorizationGrant(authorization));
+        } catch (OAuth2AccessTokenErrorResponse e) {
+            final var error = e.getError();
+            if (error == OAuth2Error.AUTHORIZATION_PENDING) {
+                schedulePoll(authorization, intervalSeconds, expiresAt, result);
+            } else if (error == OAuth2Error.SLOW_DOWN) {
+                schedulePoll(authorization, intervalSeconds + SLOW_DOWN_INCREMENT_SECONDS, expiresAt, result);
+            } else {
+                result.completeExceptionally(wrapAccessTokenErrorResponse(e));
+            }
+        } catch (InterruptedException e) { // NOSONAR reported through the future
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        } catch (Exception e) { // NOSONAR reported through the future
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -51,6 +51,8 @@ package org.knime.credentials.base.oauth.api.scribejava;
 import java.io.IOException;
 import java.util.Optional;
 
+import org.knime.credentials.base.oauth.api.IdentityProviderException;
+
 import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.model.OAuth2AccessTokenErrorResponse;
 import com.github.scribejava.core.oauth.OAuth20Service;
@@ -58,7 +60,12 @@ import com.github.scribejava.core.oauth.OAuth20Service;
 /**
  * Base class for OAuth2 based login implementations. Each subclasses implements
  * an OAuth 2 authentication flow and produces a {@link OAuth2AccessToken}.
- * Errors during login are handled consistently across subclasses.
+ * Errors during login are handled consistently across subclasses: OAuth2 error
+ * responses of the token endpoint are reported as
+ * {@link IdentityProviderException}s. Error responses that the identity
+ * provider returns deterministically (e.g. <tt>invalid_client</tt>) are
+ * replayed from the {@link NegativeResponseCache} for a short time, instead of
+ * sending the same request again.
  *
  * @author Bjoern Lohrmann, KNIME GmbH
  */
@@ -106,14 +113,23 @@ abstract class FlowBase {
     protected Exception wrapAccessTokenErrorResponse(final OAuth2AccessTokenErrorResponse tokenError) {
 
         var oauth2Error = tokenError.getError();
+        final IOException wrapped;
         if (oauth2Error != null) {
-            return createLoginFailedException(oauth2Error.getErrorString(), tokenError.getErrorDescription());
+            wrapped = createLoginFailedException(oauth2Error.getErrorString(), //
+                    tokenError.getErrorDescription(), //
+                    Optional.ofNullable(tokenError.getErrorUri()).map(Object::toString).orElse(null));
         } else {
             var response = tokenError.getResponse();
-            return new IOException(String.format("Could not retrieve access token (HTTP %d - %s)", //
+            wrapped = new IOException(String.format("Could not retrieve access token (HTTP %d - %s)", //
                     response.getCode(), //
                     Optional.ofNullable(response.getMessage()).orElse("no message provided")));
         }
+
+        // keeps the HTTP response accessible, e.g. to detect throttling
+        if (wrapped.getCause() == null) {
+            wrapped.initCause(tokenError);
+        }
+        return wrapped;
     }
 
     /**
@@ -123,12 +139,21 @@ abstract class FlowBase {
      *            The error code.
      * @param errorDescription
      *            The error description.
+     * @param errorUri
+     *            The URI of a page with information about the error. May be null.
      *
      * @return the wrapped exception with a nicer error message.
      */
-    protected IOException createLoginFailedException(final String error, final String errorDescription) {
-        return new IOException(String.format("Could not retrieve access token (%s - %s", //
+    protected IOException createLoginFailedException(final String error, final String errorDescription,
+            final String errorUri) {
+
+        return new IdentityProviderException(String.format("Could not retrieve access token (%s - %s", //
+                error, //
+                Optional.ofNullable(errorDescription).orElse("no message provided")), //
+                "Could not retrieve access token", //
+                null, //
                 error, //
-                Optional.ofNullable(errorDescription).orElse("no message provided")));
+                errorDescription, //
+                errorUri);
     }
 }
@@ -0,0 +1,366 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.URI;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.scribejava.core.httpclient.AbstractAsyncOnlyHttpClient;
+import com.github.scribejava.core.httpclient.multipart.MultipartPayload;
+import com.github.scribejava.core.httpclient.multipart.MultipartUtils;
+import com.github.scribejava.core.model.OAuthAsyncRequestCallback;
+import com.github.scribejava.core.model.OAuthRequest.ResponseConverter;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.model.Verb;
+
+/**
+ * Scribejava {@link com.github.scribejava.core.httpclient.HttpClient} that is
+ * based on {@link java.net.http.HttpClient}. In contrast to scribejava's
+ * default client, which is based on {@link java.net.HttpURLConnection}, it
+ * supports HTTP/2 and executes requests asynchronously, i.e. without blocking a
+ * thread while waiting for the response.
+ *
+ * <p>
+ * All instances with equal {@link JavaNetHttpClientConfig}s (that are created
+ * while the same default {@link Authenticator} is set) share the same
+ * underlying {@link java.net.http.HttpClient}, hence connections to the token
+ * endpoint are reused across {@link com.github.scribejava.core.oauth.OAuth20Service}
+ * instances (with HTTP/2, requests are multiplexed over a single connection).
+ * For this reason, {@link #close()} does nothing.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class JavaNetHttpClient extends AbstractAsyncOnlyHttpClient {
+
+    private static final String AUTHORIZATION = "Authorization";
+
+    /**
+     * Headers that are set by {@link java.net.http.HttpClient} itself and must not
+     * be set on a request.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.addAll(Set.of(CONTENT_LENGTH, "Connection", "Expect", "Host", "Upgrade"));
+    }
+
+    /**
+     * Shared clients without authenticator. Requests that carry their own
+     * Authorization header (e.g. HTTP Basic client authentication) are always sent
+     * by one of these, because {@link java.net.http.HttpClient} drops such headers
+     * if it has an authenticator.
+     */
+    private static final Map<JavaNetHttpClientConfig, java.net.http.HttpClient> UNAUTHENTICATED_CLIENTS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Shared clients with the current default {@link Authenticator}. A client keeps
+     * the authenticator it has been built with, hence the clients are replaced
+     * once the default authenticator changes (authenticators have identity
+     * semantics). Replaced clients are garbage collected, together with their
+     * selector thread, once no instance uses them anymore.
+     */
+    private static final AtomicReference<AuthenticatedClients> AUTHENTICATED_CLIENTS =
+            new AtomicReference<>(new AuthenticatedClients(null, Map.of()));
+
+    private record AuthenticatedClients(Authenticator authenticator,
+            Map<JavaNetHttpClientConfig, java.net.http.HttpClient> clients) {
+    }
+
+    private final JavaNetHttpClientConfig m_config;
+
+    private final JavaNetHttpClientConfig m_clientConfig;
+
+    private final Authenticator m_authenticator;
+
+    private final java.net.http.HttpClient m_client;
+
+    /**
+     * Creates a new instance with the default configuration.
+     */
+    public JavaNetHttpClient() {
+        this(JavaNetHttpClientConfig.defaultConfig());
+    }
+
+    /**
+     * Creates a new instance with the given configuration.
+     *
+     * @param config
+     *            The configuration to use.
+     */
+    public JavaNetHttpClient(final JavaNetHttpClientConfig config) {
+        m_config = Objects.requireNonNull(config, "Configuration must not be null");
+        // the deadline is enforced by the service, not by the underlying client
+        m_clientConfig = config.withDeadline(null);
+        m_authenticator = Authenticator.getDefault();
+        m_client = getSharedClient(m_clientConfig, m_authenticator);
+    }
+
+    private static java.net.http.HttpClient getSharedClient(final JavaNetHttpClientConfig config,
+            final Authenticator authenticator) {
+
+        if (authenticator == null) {
+            return UNAUTHENTICATED_CLIENTS.computeIfAbsent(config, c -> createClient(c, null));
+        }
+
+        while (true) {
+            final var current = AUTHENTICATED_CLIENTS.get();
+            if (current.authenticator() == authenticator) {
+                return current.clients().computeIfAbsent(config, c -> createClient(c, authenticator));
+            }
+            // the default authenticator has changed, drop the clients of the previous one
+            AUTHENTICATED_CLIENTS.compareAndSet(current,
+                    new AuthenticatedClients(authenticator, new ConcurrentHashMap<>()));
+        }
+    }
+
+    private static java.net.http.HttpClient createClient(final JavaNetHttpClientConfig config,
+            final Authenticator authenticator) {
+
+        final var builder = java.net.http.HttpClient.newBuilder() //
+                .version(config.version()) //
+                .connectTimeout(config.connectTimeout()) //
+                .proxy(config.proxySelector()) //
+                .followRedirects(Redirect.NORMAL);
+
+        // the default authenticator provides the proxy credentials (if any)
+        if (authenticator != null) {
+            builder.authenticator(authenticator);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the configuration of this client.
+     */
+    public JavaNetHttpClientConfig getConfig() {
+        return m_config;
+    }
+
+    /**
+     * @return the underlying client, which is shared with other instances.
+     */
+    java.net.http.HttpClient getUnderlyingClient() {
+        return m_client;
+    }
+
+    @Override
+    public void close() {
+        // the underlying client is shared and lives as long as the JVM
+    }
+
+    @Override
+    public <T> Future<T> executeAsync(final String userAgent, final Map<String, String> headers, final Verb httpVerb,
+            final String completeUrl, final byte[] bodyContents, final OAuthAsyncRequestCallback<T> callback,
+            final ResponseConverter<T> converter) {
+
+        return sendAsync(userAgent, headers, httpVerb, completeUrl, bodyContents, null, callback, converter);
+    }
+
+    @Override
+    public <T> Future<T> executeAsync(final String userAgent, final Map<String, String> headers, final Verb httpVerb,
+            final String completeUrl, final String bodyContents, final OAuthAsyncRequestCallback<T> callback,
+            final ResponseConverter<T> converter) {
+
+        final var body = bodyContents != null ? bodyContents.getBytes(StandardCharsets.UTF_8) : null;
+        return sendAsync(userAgent, headers, httpVerb, completeUrl, body, null, callback, converter);
+    }
+
+    @Override
+    public <T> Future<T> executeAsync(final String userAgent, final Map<String, String> headers, final Verb httpVerb,
+            final String completeUrl, final MultipartPayload bodyContents, final OAuthAsyncRequestCallback<T> callback,
+            final ResponseConverter<T> converter) {
+
+        final var allHeaders = new HashMap<>(headers);
+        allHeaders.putAll(bodyContents.getHeaders());
+        final byte[] body;
+        try {
+            body = MultipartUtils.getPayload(bodyContents).toByteArray();
+        } catch (IOException e) {
+            return notify(CompletableFuture.failedFuture(e), callback);
+        }
+        return sendAsync(userAgent, allHeaders, httpVerb, completeUrl, body, null, callback, converter);
+    }
+
+    @Override
+    public <T> Future<T> executeAsync(final String userAgent, final Map<String, String> headers, final Verb httpVerb,
+            final String completeUrl, final File bodyContents, final OAuthAsyncRequestCallback<T> callback,
+            final ResponseConverter<T> converter) {
+
+        return sendAsync(userAgent, headers, httpVerb, completeUrl, null, bodyContents, callback, converter);
+    }
+
+    @SuppressWarnings("java:S107") // mirrors the signature of executeAsync()
+    private <T> CompletableFuture<T> sendAsync(final String userAgent, final Map<String, String> headers,
+            final Verb httpVerb, final String completeUrl, final byte[] bodyBytes, final File bodyFile,
+            final OAuthAsyncRequestCallback<T> callback, final ResponseConverter<T> converter) {
+
+        final CompletableFuture<T> future;
+        try {
+            final var request = createRequest(userAgent, headers, httpVerb, completeUrl, bodyBytes, bodyFile);
+            future = getClient(request).sendAsync(request, BodyHandlers.ofByteArray()) //
+                    .thenApply(response -> convert(response, converter));
+        } catch (IOException | RuntimeException e) { // NOSONAR report all failures through the future
+            return notify(CompletableFuture.failedFuture(e), callback);
+        }
+        return notify(future, callback);
+    }
+
+    private java.net.http.HttpClient getClient(final HttpRequest request) {
+        if (m_authenticator != null && request.headers().firstValue(AUTHORIZATION).isPresent()) {
+            return getSharedClient(m_clientConfig, null);
+        }
+        return m_client;
+    }
+
+    private static <T> CompletableFuture<T> notify(final CompletableFuture<T> future,
+            final OAuthAsyncRequestCallback<T> callback) {
+
+        if (callback == null) {
+            return future;
+        }
+
+        return future.whenComplete((result, error) -> {
+            if (error != null) {
+                callback.onThrowable(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                callback.onCompleted(result);
+            }
+        });
+    }
+
+    private HttpRequest createRequest(final String userAgent, final Map<String, String> headers, final Verb httpVerb,
+            final String completeUrl, final byte[] bodyBytes, final File bodyFile) throws IOException {
+
+        final var builder = HttpRequest.newBuilder(URI.create(completeUrl)) //
+                .timeout(m_config.readTimeout());
+
+        var hasContentType = false;
+        for (final var header : headers.entrySet()) {
+            if (RESTRICTED_HEADERS.contains(header.getKey())) {
+                continue;
+            }
+            hasContentType |= CONTENT_TYPE.equalsIgnoreCase(header.getKey());
+            builder.header(header.getKey(), header.getValue());
+        }
+
+        if (userAgent != null) {
+            builder.header("User-Agent", userAgent);
+        }
+
+        final BodyPublisher publisher;
+        if (httpVerb.isPermitBody() && (bodyBytes != null || bodyFile != null)) {
+            if (!hasContentType) {
+                builder.header(CONTENT_TYPE, DEFAULT_CONTENT_TYPE);
+            }
+            publisher = bodyFile != null //
+                    ? BodyPublishers.ofFile(bodyFile.toPath()) //
+                    : BodyPublishers.ofByteArray(bodyBytes);
+        } else if (httpVerb.isRequiresBody()) {
+            publisher = BodyPublishers.ofByteArray(new byte[0]);
+        } else {
+            publisher = BodyPublishers.noBody();
+        }
+
+        return builder.method(httpVerb.name(), publisher).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T convert(final HttpResponse<byte[]> httpResponse, final ResponseConverter<T> converter) {
+        final var responseHeaders = new HashMap<String, String>();
+        httpResponse.headers().map().forEach((name, values) -> {
+            if (!values.isEmpty()) {
+                responseHeaders.put(name, values.get(0));
+            }
+        });
+
+        final var response = new Response(httpResponse.statusCode(), //
+                null, //
+                responseHeaders, //
+                new ByteArrayInputStream(httpResponse.body()));
+
+        if (converter == null) {
+            // AbstractAsyncOnlyHttpClient.execute() expects the response itself
+            return (T)response;
+        }
+
+        try {
+            return converter.convert(response);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        } finally {
+            try {
+                response.close();
+            } catch (IOException e) { // NOSONAR nothing to do
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.net.ProxySelector;
+import java.net.http.HttpClient.Version;
+import java.time.Duration;
+import java.util.Objects;
+
+import com.github.scribejava.core.httpclient.HttpClientConfig;
+
+/**
+ * Configuration of a {@link JavaNetHttpClient}. Instances are immutable. Since
+ * {@link JavaNetHttpClient} instances with equal configurations share the same
+ * underlying {@link java.net.http.HttpClient} (and thus its connections),
+ * configurations should be reused where possible.
+ *
+ * @param connectTimeout
+ *            The timeout for establishing a connection.
+ * @param readTimeout
+ *            The timeout for receiving the response to a request, once the
+ *            request has been sent.
+ * @param proxySelector
+ *            The proxy selector to use. The default configuration uses the
+ *            system-wide default {@link ProxySelector}, which honors the proxy
+ *            settings of the KNIME Analytics Platform.
+ * @param version
+ *            The preferred HTTP version. With {@link Version#HTTP_2}, HTTP/2 is
+ *            negotiated with servers that support it, and HTTP/1.1 is used
+ *            otherwise.
+ * @param deadline
+ *            The maximum duration of a token request made by a
+ *            {@link CustomOAuth20Service} that uses this configuration, including
+ *            the time spent waiting for the {@link TokenEndpointRateLimiter} and
+ *            failing over to alternative token endpoints. May be null, in which
+ *            case only the connect and read timeouts apply.
+ *
+ * @author agent
+ * @since 5.9
+ */
+public record JavaNetHttpClientConfig(Duration connectTimeout, Duration readTimeout, ProxySelector proxySelector,
+        Version version, Duration deadline) implements HttpClientConfig {
+
+    /**
+     * The default connect timeout.
+     */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The default read timeout.
+     */
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * Validates the components.
+     *
+     * @param connectTimeout
+     * @param readTimeout
+     * @param proxySelector
+     * @param version
+     * @param deadline
+     */
+    public JavaNetHttpClientConfig {
+        Objects.requireNonNull(connectTimeout, "Connect timeout must not be null");
+        Objects.requireNonNull(readTimeout, "Read timeout must not be null");
+        Objects.requireNonNull(proxySelector, "Proxy selector must not be null");
+        Objects.requireNonNull(version, "HTTP version must not be null");
+        if (connectTimeout.isNegative() || connectTimeout.isZero() || readTimeout.isNegative()
+                || readTimeout.isZero()) {
+            throw new IllegalArgumentException("Timeouts must be positive");
+        }
+        if (deadline != null && (deadline.isNegative() || deadline.isZero())) {
+            throw new IllegalArgumentException("Deadline must be positive");
+        }
+    }
+
+    /**
+     * Creates a configuration without a deadline.
+     *
+     * @param connectTimeout
+     *            The timeout for establishing a connection.
+     * @param readTimeout
+     *            The timeout for receiving the response to a request.
+     * @param proxySelector
+     *            The proxy selector to use.
+     * @param version
+     *            The preferred HTTP version.
+     */
+    public JavaNetHttpClientConfig(final Duration connectTimeout, final Duration readTimeout,
+            final ProxySelector proxySelector, final Version version) {
+        this(connectTimeout, readTimeout, proxySelector, version, null);
+    }
+
+    /**
+     * @return the default configuration.
+     */
+    public static JavaNetHttpClientConfig defaultConfig() {
+        return new JavaNetHttpClientConfig(DEFAULT_CONNECT_TIMEOUT, //
+                DEFAULT_READ_TIMEOUT, //
+                ProxySelector.getDefault(), //
+                Version.HTTP_2);
+    }
+
+    @Override
+    public JavaNetHttpClientConfig createDefaultConfig() {
+        return defaultConfig();
+    }
+
+    /**
+     * @param timeout
+     *            The new connect timeout.
+     * @return a copy of this configuration with the given connect timeout.
+     */
+    public JavaNetHttpClientConfig withConnectTimeout(final Duration timeout) {
+        return new JavaNetHttpClientConfig(timeout, readTimeout, proxySelector, version, deadline);
+    }
+
+    /**
+     * @param timeout
+     *            The new read timeout.
+     * @return a copy of this configuration with the given read timeout.
+     */
+    public JavaNetHttpClientConfig withReadTimeout(final Duration timeout) {
+        return new JavaNetHttpClientConfig(connectTimeout, timeout, proxySelector, version, deadline);
+    }
+
+    /**
+     * @param selector
+     *            The new proxy selector.
+     * @return a copy of this configuration with the given proxy selector.
+     */
+    public JavaNetHttpClientConfig withProxySelector(final ProxySelector selector) {
+        return new JavaNetHttpClientConfig(connectTimeout, readTimeout, selector, version, deadline);
+    }
+
+    /**
+     * @param httpVersion
+     *            The new preferred HTTP version.
+     * @return a copy of this configuration with the given HTTP version.
+     */
+    public JavaNetHttpClientConfig withVersion(final Version httpVersion) {
+        return new JavaNetHttpClientConfig(connectTimeout, readTimeout, proxySelector, httpVersion, deadline);
+    }
+
+    /**
+     * @param requestDeadline
+     *            The new deadline of token requests. May be null.
+     * @return a copy of this configuration with the given deadline.
+     */
+    public JavaNetHttpClientConfig withDeadline(final Duration requestDeadline) {
+        return new JavaNetHttpClientConfig(connectTimeout, readTimeout, proxySelector, version, requestDeadline);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.knime.core.node.NodeLogger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.oauth.OAuth20Service;
+
+/**
+ * Short-lived cache of token endpoint error responses that are deterministic,
+ * i.e. which the identity provider will return again for the same request, such
+ * as <tt>invalid_client</tt> (e.g. revoked client secret) or
+ * <tt>invalid_scope</tt>. While an error response is cached, identical requests
+ * are not sent to the token endpoint, but the cached response is replayed, so
+ * that callers fail right away with the original error details (see
+ * {@link FlowBase#wrapAccessTokenErrorResponse}).
+ *
+ * <p>
+ * Requests are identified by a fingerprint of the service configuration and
+ * the request parameters, hence a change of the settings (e.g. a new client
+ * secret) results in a new request that is sent to the token endpoint. The time
+ * to live of cached errors can be set with the system property
+ * <tt>knime.oauth2.tokenendpoint.negativeCacheTtl</tt> (in seconds, default:
+ * 60, 0 disables the cache).
+ * </p>
+ *
+ * @author agent
+ */
+final class NegativeResponseCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(NegativeResponseCache.class);
+
+    static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+
+    static final int DEFAULT_MAX_SIZE = 1000;
+
+    /**
+     * OAuth2 error codes (RFC 6749, section 5.2) that do not go away when the
+     * same request is sent again.
+     */
+    private static final Set<String> DETERMINISTIC_ERRORS = Set.of("invalid_request", //
+            "invalid_client", //
+            "invalid_grant", //
+            "unauthorized_client", //
+            "unsupported_grant_type", //
+            "invalid_scope");
+
+    /**
+     * Request parameters that differ between otherwise identical requests, e.g.
+     * signed client assertions with a unique ID.
+     */
+    private static final Set<String> VOLATILE_PARAMETERS = Set.of("client_assertion");
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final NegativeResponseCache INSTANCE = new NegativeResponseCache(//
+            Duration.ofSeconds(Long.getLong("knime.oauth2.tokenendpoint.negativeCacheTtl", DEFAULT_TTL.toSeconds())),
+            DEFAULT_MAX_SIZE, //
+            Clock.systemUTC());
+
+    private record CachedResponse(int code, String message, Map<String, String> headers, String body,
+            Instant expiresAt) {
+
+        Response replay() {
+            return new Response(code, message, headers, body);
+        }
+    }
+
+    private final Map<String, CachedResponse> m_responses = new ConcurrentHashMap<>();
+
+    private final Duration m_ttl;
+
+    private final int m_maxSize;
+
+    private final Clock m_clock;
+
+    NegativeResponseCache(final Duration ttl, final int maxSize, final Clock clock) {
+        m_ttl = ttl;
+        m_maxSize = maxSize;
+        m_clock = clock;
+    }
+
+    static NegativeResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    boolean isEnabled() {
+        return !m_ttl.isNegative() && !m_ttl.isZero();
+    }
+
+    /**
+     * Computes the fingerprint of a request.
+     *
+     * @param service
+     *            The service that sends the request.
+     * @param request
+     *            The request.
+     * @return the fingerprint.
+     */
+    static String fingerprint(final OAuth20Service service, final OAuthRequest request) {
+        final var fields = new TreeMap<String, String>();
+        fields.put("service", OAuth20ServicePool.fingerprint(service));
+        fields.put("url", request.getUrl());
+        fields.put("verb", request.getVerb().name());
+        for (var param : request.getQueryStringParams().getParams()) {
+            fields.merge("query." + param.getKey(), param.getValue(), (first, second) -> first + "\n" + second);
+        }
+        for (var param : request.getBodyParams().getParams()) {
+            if (!VOLATILE_PARAMETERS.contains(param.getKey())) {
+                fields.merge("body." + param.getKey(), param.getValue(), (first, second) -> first + "\n" + second);
+            }
+        }
+        return OAuth20ServicePool.digest(fields);
+    }
+
+    /**
+     * @param fingerprint
+     *            The fingerprint of a request.
+     * @return a replay of the cached error response to the request, or an empty
+     *         {@link Optional} if there is none.
+     */
+    Optional<Response> lookup(final String fingerprint) {
+        final var cached = m_responses.get(fingerprint);
+        if (cached == null) {
+            return Optional.empty();
+        }
+
+        if (!m_clock.instant().isBefore(cached.expiresAt())) {
+            m_responses.remove(fingerprint, cached);
+            return Optional.empty();
+        }
+
+        LOGGER.debug("Not sending token request, because the identity provider has recently rejected it");
+        return Optional.of(cached.replay());
+    }
+
+    /**
+     * Caches the given response, if it is a deterministic error response.
+     *
+     * @param fingerprint
+     *            The fingerprint of the request.
+     * @param response
+     *            The response to the request.
+     * @throws IOException
+     *             if reading the response body failed.
+     */
+    void record(final String fingerprint, final Response response) throws IOException {
+        // RFC 6749 error responses use HTTP 400, or 401 for failed client authentication
+        if (response.getCode() != 400 && response.getCode() != 401) {
+            return;
+        }
+
+        // the body is buffered by the response, so that it can still be read by the
+        // token extractor
+        final var body = response.getBody();
+        final var error = parseErrorCode(body);
+        if (error == null || !DETERMINISTIC_ERRORS.contains(error)) {
+            return;
+        }
+
+        final var now = m_clock.instant();
+        if (m_responses.size() >= m_maxSize) {
+            m_responses.values().removeIf(cached -> !now.isBefore(cached.expiresAt()));
+            if (m_responses.size() >= m_maxSize) {
+                return;
+            }
+        }
+
+        m_responses.put(fingerprint, new CachedResponse(response.getCode(), //
+                response.getMessage(), //
+                new HashMap<>(response.getHeaders()), //
+                body, //
+                now.plus(m_ttl)));
+    }
+
+    /**
+     * @return the value of the top-level "error" field of the given JSON body, or
+     *         null if there is none.
+     */
+    private static String parseErrorCode(final String body) {
+        if (body == null) {
+            return null;
+        }
+
+        try (var parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var field = parser.getCurrentName();
+                final var token = parser.nextToken();
+                if ("error".equals(field) && token == JsonToken.VALUE_STRING) {
+                    return parser.getText();
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) { // NOSONAR not an RFC 6749 error response
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of cached responses.
+     */
+    int size() {
+        return m_responses.size();
+    }
+}
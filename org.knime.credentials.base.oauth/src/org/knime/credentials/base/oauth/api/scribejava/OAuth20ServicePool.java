@@ -0,0 +1,320 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import com.github.scribejava.core.oauth.OAuth20Service;
+
+/**
+ * A bounded pool of {@link OAuth20Service} instances, which allows token
+ * refreshes to reuse existing services (and their HTTP clients), instead of
+ * creating and closing a new service for every refresh.
+ *
+ * <p>
+ * Services are pooled by a fingerprint of their configuration, which comprises
+ * the API (class, token, authorization and introspection endpoints, alternative
+ * token endpoints, request method and client authentication mechanism), the
+ * client id and secret, the callback, the default scope, the response type,
+ * additional request body fields and the timeouts of the HTTP client. Secrets
+ * are only kept as part of a SHA-256 digest. Two services with the same
+ * fingerprint are considered interchangeable.
+ * </p>
+ *
+ * <p>
+ * Every supplier created by this pool holds a lease on its service, which is
+ * released once the supplier (and hence the credential that uses it) has been
+ * garbage collected. Evicted services are closed as soon as they are not leased
+ * anymore, whereas leased services remain usable after their eviction. Code that
+ * obtains a service from a supplier created by this pool must not close it, see
+ * {@link #isPooled(Supplier)}.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class OAuth20ServicePool {
+
+    /**
+     * The default maximum number of pooled services.
+     */
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    private static final OAuth20ServicePool INSTANCE = new OAuth20ServicePool(DEFAULT_MAX_SIZE);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Map<String, PooledService> m_services;
+
+    OAuth20ServicePool(final int maxSize) {
+        m_services = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, PooledService> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+
+                final var evicted = eldest.getValue();
+                evicted.m_evicted = true;
+                if (evicted.m_leases == 0) {
+                    closeQuietly(evicted.m_service);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return the process-wide service pool.
+     */
+    public static OAuth20ServicePool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds the given service to the pool, unless there already is a pooled service
+     * with the same configuration, and returns a supplier for the pooled service.
+     * The returned supplier only holds on to the service, but not to whatever
+     * (e.g. node settings) was used to create it.
+     *
+     * @param service
+     *            A newly created service, which is closed if an equivalent service
+     *            is already pooled. Hence, it must only be used through the
+     *            returned supplier.
+     * @return a supplier that provides the pooled service, which must not be
+     *         closed. The supplier leases the service until it is garbage
+     *         collected.
+     */
+    public Supplier<OAuth20Service> pooled(final OAuth20Service service) {
+        final var fingerprint = fingerprint(service);
+        final PooledService pooled;
+        synchronized (m_services) {
+            pooled = m_services.computeIfAbsent(fingerprint, k -> new PooledService(fingerprint, service));
+            pooled.m_leases++;
+        }
+
+        if (pooled.m_service != service) {
+            closeQuietly(service);
+        }
+        return new PooledServiceSupplier(this, pooled);
+    }
+
+    /**
+     * @param serviceSupplier
+     *            A service supplier.
+     * @return true if the given supplier provides pooled services, which must not
+     *         be closed by the caller, false otherwise.
+     */
+    public static boolean isPooled(final Supplier<OAuth20Service> serviceSupplier) {
+        return serviceSupplier instanceof PooledServiceSupplier;
+    }
+
+    /**
+     * @return the current number of pooled services.
+     */
+    int size() {
+        synchronized (m_services) {
+            return m_services.size();
+        }
+    }
+
+    /**
+     * Releases the lease of the given supplier right away, instead of when it is
+     * garbage collected. The supplier must not be used afterwards.
+     */
+    static void release(final Supplier<OAuth20Service> serviceSupplier) {
+        ((PooledServiceSupplier)serviceSupplier).m_cleanable.clean();
+    }
+
+    private OAuth20Service get(final PooledService pooled) {
+        synchronized (m_services) {
+            if (!pooled.m_evicted) {
+                // marks the service as recently used
+                m_services.get(pooled.m_fingerprint);
+            } else if (m_services.putIfAbsent(pooled.m_fingerprint, pooled) == null) {
+                // re-adds the service, which has been evicted in the meantime
+                pooled.m_evicted = false;
+            }
+            return pooled.m_service;
+        }
+    }
+
+    private void release(final PooledService pooled) {
+        synchronized (m_services) {
+            pooled.m_leases--;
+            if (pooled.m_leases == 0 && pooled.m_evicted) {
+                closeQuietly(pooled.m_service);
+            }
+        }
+    }
+
+    private static void closeQuietly(final OAuth20Service service) {
+        try {
+            service.close();
+        } catch (IOException e) { // NOSONAR the service is not used anymore
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the given service's configuration.
+     */
+    static String fingerprint(final OAuth20Service service) {
+        final var api = service.getApi();
+
+        final var fields = new TreeMap<String, String>();
+        fields.put("apiClass", api.getClass().getName());
+        fields.put("tokenEndpoint", api.getAccessTokenEndpoint());
+        fields.put("refreshEndpoint", api.getRefreshTokenEndpoint());
+        fields.put("authorizationUrl", api.getAuthorizationUrl(service.getResponseType(), service.getApiKey(),
+                service.getCallback(), service.getDefaultScope(), null, null));
+        fields.put("verb", api.getAccessTokenVerb().name());
+        fields.put("clientAuthentication", api.getClientAuthentication().getClass().getName());
+        fields.put("apiKey", service.getApiKey());
+        fields.put("apiSecret", service.getApiSecret());
+        fields.put("callback", service.getCallback());
+        fields.put("defaultScope", service.getDefaultScope());
+        fields.put("responseType", service.getResponseType());
+        if (api instanceof CustomApi20 customApi) {
+            fields.put("alternativeTokenEndpoints", String.join(" ", customApi.getAlternativeTokenEndpoints()));
+            fields.put("hedgeRequests", Boolean.toString(customApi.isHedgeRequests()));
+            fields.put("introspectionEndpoint", customApi.getIntrospectionEndpoint());
+            fields.put("deviceAuthorizationEndpoint", customApi.getDeviceAuthorizationUrl());
+        }
+        if (service instanceof CustomOAuth20Service customService) {
+            customService.getAdditionalRequestBodyFields()//
+                    .forEach((key, value) -> fields.put("field." + key, value));
+
+            final var httpClientConfig = customService.getHttpClientConfig();
+            if (httpClientConfig != null) {
+                fields.put("connectTimeout", httpClientConfig.connectTimeout().toString());
+                fields.put("readTimeout", httpClientConfig.readTimeout().toString());
+                fields.put("deadline", Objects.toString(httpClientConfig.deadline(), null));
+            }
+        }
+
+        return digest(fields);
+    }
+
+    /**
+     * Computes a SHA-256 digest over the given fields, which is returned as a hex
+     * string.
+     */
+    static String digest(final SortedMap<String, String> fields) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            fields.forEach((key, value) -> {
+                // length-prefix the values, so that different field splits
+                // cannot produce the same digest input
+                final var bytes = Objects.toString(value, "\0").getBytes(StandardCharsets.UTF_8);
+                digest.update(key.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte)'=');
+                digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+                digest.update((byte)':');
+                digest.update(bytes);
+            });
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A service in the pool, which is guarded by the lock on the pool's map.
+     */
+    private static final class PooledService {
+
+        private final String m_fingerprint;
+
+        private final OAuth20Service m_service;
+
+        private int m_leases;
+
+        private boolean m_evicted;
+
+        PooledService(final String fingerprint, final OAuth20Service service) {
+            m_fingerprint = fingerprint;
+            m_service = service;
+        }
+    }
+
+    private static final class PooledServiceSupplier implements Supplier<OAuth20Service> {
+
+        private final OAuth20ServicePool m_pool;
+
+        private final PooledService m_pooled;
+
+        private final Cleaner.Cleanable m_cleanable;
+
+        PooledServiceSupplier(final OAuth20ServicePool pool, final PooledService pooled) {
+            m_pool = pool;
+            m_pooled = pooled;
+            // the cleaning action must not refer to the supplier itself
+            m_cleanable = CLEANER.register(this, () -> pool.release(pooled));
+        }
+
+        @Override
+        public OAuth20Service get() {
+            return m_pool.get(m_pooled);
+        }
+    }
+}
@@ -0,0 +1,505 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.credentials.base.oauth.api.JWKSVerifier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.model.Verb;
+
+/**
+ * Process-wide cache of OpenID Connect provider metadata, which is discovered
+ * from the <tt>/.well-known/openid-configuration</tt> document of an issuer
+ * (OpenID Connect Discovery 1.0).
+ *
+ * <p>
+ * Metadata is kept in memory and persisted in the KNIME home directory, so that
+ * only the very first discovery of an issuer requires a request to the identity
+ * provider. Once the cached metadata is older than its maximum age (taken from
+ * the Cache-Control header of the response, see {@link #DEFAULT_MAX_AGE}), it
+ * is still returned, but revalidated in the background with a conditional
+ * request (ETag/Last-Modified). Hence, resolving the endpoints of an issuer
+ * never waits for the identity provider, unless it has never been discovered
+ * before.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class OpenIdConfigurationCache {
+
+    /**
+     * The path of the discovery document, relative to the issuer URL.
+     */
+    public static final String WELL_KNOWN_PATH = "/.well-known/openid-configuration";
+
+    /**
+     * The maximum age of cached metadata, if the identity provider does not
+     * specify one.
+     */
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofHours(1);
+
+    /**
+     * Bounds for the maximum age specified by the identity provider.
+     */
+    private static final Duration MIN_MAX_AGE = Duration.ofMinutes(1);
+
+    private static final Duration MAX_MAX_AGE = Duration.ofDays(1);
+
+    private static final Pattern MAX_AGE_PATTERN = Pattern.compile("max-age\\s*=\\s*\"?(\\d+)\"?");
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(OpenIdConfigurationCache.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final Executor REVALIDATION_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        final var thread = new Thread(r, "KNIME-OpenID-Discovery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final OpenIdConfigurationCache INSTANCE = new OpenIdConfigurationCache(//
+            Path.of(KNIMEConstants.getKNIMEHomeDir(), "oauth2", "openid-configuration"), //
+            new JavaNetHttpClient(), //
+            Clock.systemUTC());
+
+    /**
+     * The endpoints of an OpenID Connect provider. Apart from the issuer, each
+     * endpoint may be null, if the provider does not specify it.
+     *
+     * @param issuer
+     *            The issuer URL.
+     * @param authorizationEndpoint
+     *            The URL of the authorization endpoint.
+     * @param tokenEndpoint
+     *            The URL of the token endpoint.
+     * @param introspectionEndpoint
+     *            The URL of the token introspection endpoint (RFC 7662).
+     * @param jwksUri
+     *            The URL of the JSON Web Key Set, which contains the keys to
+     *            verify token signatures with.
+     * @param deviceAuthorizationEndpoint
+     *            The URL of the device authorization endpoint (RFC 8628).
+     */
+    public record ProviderMetadata(String issuer, String authorizationEndpoint, String tokenEndpoint,
+            String introspectionEndpoint, String jwksUri, String deviceAuthorizationEndpoint) {
+    }
+
+    private record CachedConfiguration(ProviderMetadata metadata, String document, String etag,
+            String lastModified, Instant staleAfter) {
+
+        boolean isStale(final Instant now) {
+            return !now.isBefore(staleAfter);
+        }
+
+        CachedConfiguration withStaleAfter(final Instant newStaleAfter) {
+            return new CachedConfiguration(metadata, document, etag, lastModified, newStaleAfter);
+        }
+    }
+
+    private final Map<String, CompletableFuture<CachedConfiguration>> m_entries = new ConcurrentHashMap<>();
+
+    private final Set<String> m_revalidating = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, JWKSVerifier> m_verifiers = new ConcurrentHashMap<>();
+
+    private final Path m_cacheDir;
+
+    private final JavaNetHttpClient m_httpClient;
+
+    private final Clock m_clock;
+
+    /**
+     * @param cacheDir
+     *            The directory to persist metadata in, or null to only keep it in
+     *            memory.
+     */
+    OpenIdConfigurationCache(final Path cacheDir, final JavaNetHttpClient httpClient, final Clock clock) {
+        m_cacheDir = cacheDir;
+        m_httpClient = httpClient;
+        m_clock = clock;
+    }
+
+    /**
+     * @return the process-wide cache.
+     */
+    public static OpenIdConfigurationCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Provides the metadata of the given issuer. Metadata that is cached in memory
+     * or on disk is returned right away (and revalidated in the background if it
+     * is stale), otherwise it is discovered from the identity provider.
+     *
+     * @param issuer
+     *            The issuer URL, e.g. <tt>https://login.example.com/tenant</tt>.
+     * @return the {@link ProviderMetadata} of the issuer.
+     * @throws IOException
+     *             if the metadata was not cached and could not be discovered.
+     */
+    public ProviderMetadata getMetadata(final String issuer) throws IOException {
+        final var key = normalizeIssuer(issuer);
+
+        while (true) {
+            final var existing = m_entries.get(key);
+            if (existing != null) {
+                return resolve(key, existing);
+            }
+
+            final var future = new CompletableFuture<CachedConfiguration>();
+            if (m_entries.putIfAbsent(key, future) == null) {
+                load(key, future);
+                return resolve(key, future);
+            }
+        }
+    }
+
+    /**
+     * Provides a {@link JWKSVerifier} for the key set of the given issuer. The
+     * verifier is shared by all callers, so that the key set is only fetched once.
+     *
+     * @param issuer
+     *            The issuer URL.
+     * @return a {@link JWKSVerifier} for the "jwks_uri" of the issuer.
+     * @throws IOException
+     *             if the metadata could not be discovered, or does not specify a
+     *             key set.
+     */
+    public JWKSVerifier getJWKSVerifier(final String issuer) throws IOException {
+        final var jwksUri = getMetadata(issuer).jwksUri();
+        if (jwksUri == null) {
+            throw new IOException(String.format("The OpenID configuration of %s does not specify a jwks_uri", issuer));
+        }
+
+        try {
+            final var url = URI.create(jwksUri).toURL();
+            return m_verifiers.computeIfAbsent(jwksUri, k -> JWKSVerifier.fromURL(url));
+        } catch (IllegalArgumentException | MalformedURLException e) {
+            throw new IOException("Invalid jwks_uri: " + jwksUri, e);
+        }
+    }
+
+    private ProviderMetadata resolve(final String issuer, final CompletableFuture<CachedConfiguration> future)
+            throws IOException {
+
+        final var config = await(future);
+        if (config.isStale(m_clock.instant())) {
+            revalidateInBackground(issuer, config);
+        }
+        return config.metadata();
+    }
+
+    /**
+     * Loads the metadata from disk or, if it has not been persisted, discovers it.
+     */
+    private void load(final String issuer, final CompletableFuture<CachedConfiguration> future) {
+        try {
+            var config = readFromDisk(issuer);
+            if (config == null) {
+                config = discover(issuer, null);
+                writeToDisk(issuer, config);
+            }
+            future.complete(config);
+        } catch (Exception e) { // NOSONAR propagated to all waiting callers
+            // failures are not cached
+            m_entries.remove(issuer, future);
+            future.completeExceptionally(e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void revalidateInBackground(final String issuer, final CachedConfiguration stale) {
+        if (!m_revalidating.add(issuer)) {
+            return;
+        }
+
+        REVALIDATION_EXECUTOR.execute(() -> {
+            try {
+                final var config = discover(issuer, stale);
+                m_entries.put(issuer, CompletableFuture.completedFuture(config));
+                writeToDisk(issuer, config);
+            } catch (Exception e) { // NOSONAR keep using the stale metadata
+                LOGGER.debug("Could not revalidate OpenID configuration of " + issuer, e);
+                // try again later
+                m_entries.put(issuer, CompletableFuture.completedFuture(//
+                        stale.withStaleAfter(m_clock.instant().plus(MIN_MAX_AGE))));
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            } finally {
+                m_revalidating.remove(issuer);
+            }
+        });
+    }
+
+    /**
+     * Fetches the discovery document of the given issuer. If previously cached
+     * metadata is given, the request is conditional and the cached metadata is
+     * returned (with a new expiry time) if it is still up-to-date.
+     */
+    private CachedConfiguration discover(final String issuer, final CachedConfiguration previous)
+            throws IOException, InterruptedException, ExecutionException {
+
+        final var headers = new HashMap<String, String>();
+        headers.put("Accept", "application/json");
+        if (previous != null && previous.etag() != null) {
+            headers.put("If-None-Match", previous.etag());
+        }
+        if (previous != null && previous.lastModified() != null) {
+            headers.put("If-Modified-Since", previous.lastModified());
+        }
+
+        try (var response = m_httpClient.execute(null, headers, Verb.GET, issuer + WELL_KNOWN_PATH, (byte[])null)) {
+            final var staleAfter = m_clock.instant().plus(getMaxAge(response));
+            if (response.getCode() == 304 && previous != null) {
+                return previous.withStaleAfter(staleAfter);
+            }
+
+            final var document = response.getBody();
+            if (response.getCode() != 200) {
+                throw new IOException(String.format("OpenID Connect discovery for %s failed with HTTP %d: %s", //
+                        issuer, response.getCode(), document));
+            }
+
+            return new CachedConfiguration(parseMetadata(issuer, document), //
+                    document, //
+                    getHeader(response, "ETag"), //
+                    getHeader(response, "Last-Modified"), //
+                    staleAfter);
+        }
+    }
+
+    /**
+     * Parses a discovery document. Only the endpoints of interest are parsed, all
+     * other members are skipped.
+     */
+    static ProviderMetadata parseMetadata(final String issuer, final String document) throws IOException {
+        final var fields = new HashMap<String, String>();
+        try (var parser = JSON_FACTORY.createParser(document)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("OpenID configuration is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var field = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    fields.put(field, parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        // the issuer must match exactly, to prevent impersonation (see OpenID
+        // Connect Discovery 1.0, section 4.3)
+        final var documentIssuer = fields.get("issuer");
+        if (documentIssuer == null || !normalizeIssuer(documentIssuer).equals(normalizeIssuer(issuer))) {
+            throw new IOException(String.format("OpenID configuration of %s specifies a different issuer: %s", //
+                    issuer, documentIssuer));
+        }
+
+        return new ProviderMetadata(documentIssuer, //
+                fields.get("authorization_endpoint"), //
+                fields.get("token_endpoint"), //
+                fields.get("introspection_endpoint"), //
+                fields.get("jwks_uri"), //
+                fields.get("device_authorization_endpoint"));
+    }
+
+    private static Duration getMaxAge(final Response response) {
+        final var cacheControl = getHeader(response, "Cache-Control");
+        if (cacheControl != null) {
+            final var matcher = MAX_AGE_PATTERN.matcher(cacheControl);
+            if (matcher.find()) {
+                try {
+                    final var maxAge = Duration.ofSeconds(Long.parseLong(matcher.group(1)));
+                    if (maxAge.compareTo(MIN_MAX_AGE) < 0) {
+                        return MIN_MAX_AGE;
+                    }
+                    return maxAge.compareTo(MAX_MAX_AGE) > 0 ? MAX_MAX_AGE : maxAge;
+                } catch (NumberFormatException e) { // NOSONAR use the default
+                }
+            }
+        }
+        return DEFAULT_MAX_AGE;
+    }
+
+    private static String getHeader(final Response response, final String name) {
+        return response.getHeaders().entrySet().stream() //
+                .filter(e -> name.equalsIgnoreCase(e.getKey())) //
+                .map(Map.Entry::getValue) //
+                .findFirst() //
+                .orElse(null);
+    }
+
+    private Path getCacheFile(final String issuer) {
+        final var fields = new TreeMap<String, String>();
+        fields.put("issuer", issuer);
+        return m_cacheDir.resolve(OAuth20ServicePool.digest(fields) + ".properties");
+    }
+
+    private CachedConfiguration readFromDisk(final String issuer) {
+        if (m_cacheDir == null) {
+            return null;
+        }
+
+        final var props = new Properties();
+        try (Reader reader = Files.newBufferedReader(getCacheFile(issuer), StandardCharsets.UTF_8)) {
+            props.load(reader);
+            final var document = props.getProperty("document");
+            return new CachedConfiguration(parseMetadata(issuer, document), //
+                    document, //
+                    props.getProperty("etag"), //
+                    props.getProperty("lastModified"), //
+                    Instant.ofEpochMilli(Long.parseLong(props.getProperty("staleAfter"))));
+        } catch (NoSuchFileException e) { // NOSONAR not discovered yet
+            return null;
+        } catch (IOException | RuntimeException e) { // NOSONAR discover again
+            LOGGER.debug("Ignoring unreadable cached OpenID configuration of " + issuer, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(final String issuer, final CachedConfiguration config) {
+        if (m_cacheDir == null) {
+            return;
+        }
+
+        final var props = new Properties();
+        props.setProperty("issuer", issuer);
+        props.setProperty("document", config.document());
+        props.setProperty("staleAfter", Long.toString(config.staleAfter().toEpochMilli()));
+        if (config.etag() != null) {
+            props.setProperty("etag", config.etag());
+        }
+        if (config.lastModified() != null) {
+            props.setProperty("lastModified", config.lastModified());
+        }
+
+        try {
+            Files.createDirectories(m_cacheDir);
+            // write to a temporary file first, so that concurrent readers (e.g. other
+            // KNIME instances) never see a partially written file
+            final var tempFile = Files.createTempFile(m_cacheDir, "openid-configuration", ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                    props.store(writer, null);
+                }
+                Files.move(tempFile, getCacheFile(issuer), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not persist OpenID configuration of " + issuer, e);
+        }
+    }
+
+    private static String normalizeIssuer(final String issuer) {
+        var normalized = issuer.trim();
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    private static CachedConfiguration await(final CompletableFuture<CachedConfiguration> future)
+            throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for OpenID Connect discovery");
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            } else if (cause instanceof InterruptedException) {
+                throw new InterruptedIOException("Interrupted during OpenID Connect discovery");
+            } else if (cause instanceof RuntimeException re) {
+                throw re;
+            } else {
+                throw new IOException(cause.getMessage(), cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.github.scribejava.core.exceptions.OAuthException;
+import com.github.scribejava.core.model.OAuthConstants;
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.oauth2.clientauthentication.ClientAuthentication;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * {@link ClientAuthentication} that authenticates the client with a signed JWT
+ * ({@code private_key_jwt}, see RFC 7523 and OpenID Connect Core, Section 9).
+ * The client secret must contain a PEM-encoded PKCS#8 private key (RSA or EC),
+ * which is used to sign the client assertion. The audience of the assertion is
+ * the URL of the token endpoint.
+ *
+ * <p>
+ * Private keys are parsed only once, and the resulting signers are reused.
+ * Unless unique assertions are requested (see {@link #uniqueAssertions()}),
+ * signed assertions are also cached and reused for subsequent token requests,
+ * until shortly before they expire. Some identity providers reject assertions
+ * whose {@code jti} claim has been seen before; for these, a new assertion with
+ * a random {@code jti} is signed for every token request.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class PrivateKeyJWTAuthenticationScheme implements ClientAuthentication {
+
+    /**
+     * The value of the client_assertion_type parameter.
+     */
+    public static final String JWT_BEARER_ASSERTION_TYPE = "urn:ietf:params:oauth:client-assertion-type:jwt-bearer";
+
+    /**
+     * The default validity of a client assertion.
+     */
+    public static final Duration DEFAULT_ASSERTION_LIFETIME = Duration.ofMinutes(5);
+
+    /**
+     * Cached assertions are not reused anymore once they expire within this
+     * duration, to allow for clock skew and network latency.
+     */
+    static final Duration REUSE_MARGIN = Duration.ofSeconds(30);
+
+    /**
+     * Upper bound for the number of cached signers and assertions, which prevents
+     * unbounded growth when keys are rotated frequently.
+     */
+    private static final int MAX_CACHE_SIZE = 256;
+
+    private static final PrivateKeyJWTAuthenticationScheme CACHING_INSTANCE =
+            new PrivateKeyJWTAuthenticationScheme(true, DEFAULT_ASSERTION_LIFETIME, Clock.systemUTC());
+
+    private static final PrivateKeyJWTAuthenticationScheme UNIQUE_INSTANCE =
+            new PrivateKeyJWTAuthenticationScheme(false, DEFAULT_ASSERTION_LIFETIME, Clock.systemUTC());
+
+    private final boolean m_reuseAssertions;
+
+    private final Duration m_assertionLifetime;
+
+    private final Clock m_clock;
+
+    /**
+     * Signers by the fingerprint of their private key.
+     */
+    private final Map<String, KeySigner> m_signers = new ConcurrentHashMap<>();
+
+    /**
+     * Signed assertions by the fingerprint of key, client id and audience.
+     */
+    private final Map<String, CachedAssertion> m_assertions = new ConcurrentHashMap<>();
+
+    PrivateKeyJWTAuthenticationScheme(final boolean reuseAssertions, final Duration assertionLifetime,
+            final Clock clock) {
+        m_reuseAssertions = reuseAssertions;
+        m_assertionLifetime = assertionLifetime;
+        m_clock = clock;
+    }
+
+    /**
+     * @return the instance that reuses signed assertions until shortly before they
+     *         expire.
+     */
+    public static PrivateKeyJWTAuthenticationScheme instance() {
+        return CACHING_INSTANCE;
+    }
+
+    /**
+     * @return the instance that signs a new assertion with a unique {@code jti}
+     *         for every token request, for identity providers that detect replayed
+     *         assertions.
+     */
+    public static PrivateKeyJWTAuthenticationScheme uniqueAssertions() {
+        return UNIQUE_INSTANCE;
+    }
+
+    private record KeySigner(JWSSigner signer, JWSAlgorithm algorithm) {
+    }
+
+    private record CachedAssertion(String assertion, Instant reuseUntil) {
+    }
+
+    @Override
+    public void addClientAuthentication(final OAuthRequest request, final String apiKey, final String apiSecret) {
+        if (StringUtils.isBlank(apiKey)) {
+            throw new OAuthException("Client ID is required for private key JWT authentication");
+        }
+        if (StringUtils.isBlank(apiSecret)) {
+            throw new OAuthException("Private key is required for private key JWT authentication");
+        }
+
+        request.addParameter(OAuthConstants.CLIENT_ID, apiKey);
+        request.addParameter("client_assertion_type", JWT_BEARER_ASSERTION_TYPE);
+        request.addParameter("client_assertion", getAssertion(apiKey, apiSecret, request.getUrl()));
+    }
+
+    /**
+     * Provides a signed client assertion, from the cache if possible.
+     */
+    String getAssertion(final String clientId, final String privateKeyPem, final String audience) {
+        final var keyFingerprint = fingerprint(Map.of("key", privateKeyPem));
+
+        if (!m_reuseAssertions) {
+            return sign(keyFingerprint, privateKeyPem, clientId, audience);
+        }
+
+        final var cacheKey = fingerprint(Map.of("key", keyFingerprint, "clientId", clientId, "audience", audience));
+        final var now = m_clock.instant();
+        final var cached = m_assertions.get(cacheKey);
+        if (cached != null && now.isBefore(cached.reuseUntil())) {
+            return cached.assertion();
+        }
+
+        // concurrent callers may both sign a new assertion, which is harmless
+        final var assertion = sign(keyFingerprint, privateKeyPem, clientId, audience);
+        boundedPut(m_assertions, cacheKey,
+                new CachedAssertion(assertion, now.plus(m_assertionLifetime).minus(REUSE_MARGIN)));
+        return assertion;
+    }
+
+    private String sign(final String keyFingerprint, final String privateKeyPem, final String clientId,
+            final String audience) {
+
+        final var signer = m_signers.get(keyFingerprint);
+        final var keySigner = signer != null ? signer : createSigner(privateKeyPem);
+        if (signer == null) {
+            boundedPut(m_signers, keyFingerprint, keySigner);
+        }
+
+        final var now = m_clock.instant();
+        final var claims = new JWTClaimsSet.Builder() //
+                .issuer(clientId) //
+                .subject(clientId) //
+                .audience(audience) //
+                .jwtID(UUID.randomUUID().toString()) //
+                .issueTime(Date.from(now)) //
+                .notBeforeTime(Date.from(now)) //
+                .expirationTime(Date.from(now.plus(m_assertionLifetime))) //
+                .build();
+
+        final var jwt = new SignedJWT(new JWSHeader(keySigner.algorithm()), claims);
+        try {
+            jwt.sign(keySigner.signer());
+        } catch (JOSEException e) {
+            throw new OAuthException("Failed to sign client assertion: " + e.getMessage(), e);
+        }
+        return jwt.serialize();
+    }
+
+    private static <V> void boundedPut(final Map<String, V> cache, final String key, final V value) {
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            cache.clear();
+        }
+        cache.put(key, value);
+    }
+
+    private static KeySigner createSigner(final String privateKeyPem) {
+        final var privateKey = parsePrivateKey(privateKeyPem);
+        try {
+            if (privateKey instanceof RSAPrivateKey rsaKey) {
+                return new KeySigner(new RSASSASigner(rsaKey), JWSAlgorithm.RS256);
+            } else if (privateKey instanceof ECPrivateKey ecKey) {
+                return new KeySigner(new ECDSASigner(ecKey), toAlgorithm(Curve.forECParameterSpec(ecKey.getParams())));
+            } else {
+                throw new OAuthException("Unsupported private key type: " + privateKey.getAlgorithm());
+            }
+        } catch (JOSEException e) {
+            throw new OAuthException("Unsupported private key: " + e.getMessage(), e);
+        }
+    }
+
+    private static JWSAlgorithm toAlgorithm(final Curve curve) {
+        if (Curve.P_256.equals(curve)) {
+            return JWSAlgorithm.ES256;
+        } else if (Curve.P_384.equals(curve)) {
+            return JWSAlgorithm.ES384;
+        } else if (Curve.P_521.equals(curve)) {
+            return JWSAlgorithm.ES512;
+        } else {
+            throw new OAuthException("Unsupported elliptic curve: " + curve);
+        }
+    }
+
+    /**
+     * Parses a PEM-encoded PKCS#8 private key. The BEGIN/END lines are optional,
+     * and whitespace is ignored, since keys are often pasted into password fields,
+     * which do not preserve line breaks.
+     */
+    static PrivateKey parsePrivateKey(final String privateKeyPem) {
+        final var base64 = privateKeyPem //
+                .replaceAll("-----(BEGIN|END) [A-Z ]*-----", "") //
+                .replaceAll("\\s", "");
+
+        final byte[] der;
+        try {
+            der = Base64.getDecoder().decode(base64);
+        } catch (IllegalArgumentException e) { // NOSONAR
+            throw new OAuthException("Private key is not a valid PEM-encoded PKCS#8 key");
+        }
+
+        final var keySpec = new PKCS8EncodedKeySpec(der);
+        for (final var algorithm : new String[] { "RSA", "EC" }) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePrivate(keySpec);
+            } catch (GeneralSecurityException e) { // NOSONAR try the next algorithm
+            }
+        }
+        throw new OAuthException("Private key is not a valid PKCS#8 RSA or EC key");
+    }
+
+    private static String fingerprint(final Map<String, String> fields) {
+        return OAuth20ServicePool.digest(new TreeMap<>(fields));
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local webserver that listens for the redirects of the identity provider at
+ * the end of interactive logins (see {@link AuthCodeFlow}). There is at most
+ * one listener per port, which is shared by all concurrent logins that use the
+ * port. Redirects are routed to the pending login by their <tt>state</tt>
+ * parameter. A listener is started with the first pending login on its port,
+ * and stopped once no login is pending anymore, so that the port is released.
+ *
+ * @author agent
+ */
+final class RedirectListener {
+
+    private static final String SUCCESS_MESSAGE = """
+            <html>
+                <head><title>Authentication complete</title></head>
+                <body>Authentication complete. You can close the browser.</body>
+            </html>
+            """;
+
+    private static final String ERROR_MESSAGE_FORMAT = """
+            <html>
+                <head><title>Authentication failed</title></head>
+                <body>Authentication failed. You may close the browser. Error details: <br> %s</body>
+            </html>
+            """;
+
+    /**
+     * Listeners by port. Also guards starting and stopping of listeners.
+     */
+    private static final Map<Integer, RedirectListener> LISTENERS = new HashMap<>();
+
+    private static final ExecutorService HANDLER_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        final var thread = new Thread(r, "KNIME-OAuth2-Redirect-Listener");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int m_port;
+
+    private final HttpServer m_server;
+
+    private final Map<String, CompletableFuture<Map<String, String>>> m_pendingLogins = new ConcurrentHashMap<>();
+
+    private RedirectListener(final int port) throws IOException {
+        m_port = port;
+        m_server = HttpServer.create(new InetSocketAddress(port), 10);
+        m_server.setExecutor(HANDLER_EXECUTOR);
+        m_server.createContext("/", this::handle);
+        m_server.start();
+    }
+
+    /**
+     * Registers a pending login and starts the listener on the given port, if it
+     * is not running yet. The login is unregistered once the returned future is
+     * completed, which includes a timeout (see
+     * {@link CompletableFuture#orTimeout(long, java.util.concurrent.TimeUnit)})
+     * and cancellation.
+     *
+     * @param port
+     *            The port to listen on.
+     * @param state
+     *            The state parameter of the authorization request.
+     * @return a future that is completed with the (decoded) query parameters of
+     *         the redirect.
+     * @throws IOException
+     *             if the listener could not be started, e.g. because the port is
+     *             used by another application.
+     */
+    static CompletableFuture<Map<String, String>> awaitRedirect(final int port, final String state)
+            throws IOException {
+
+        final var future = new CompletableFuture<Map<String, String>>();
+        final RedirectListener listener;
+        synchronized (LISTENERS) {
+            var existing = LISTENERS.get(port);
+            if (existing == null) {
+                existing = new RedirectListener(port);
+                LISTENERS.put(port, existing);
+            }
+            listener = existing;
+            listener.m_pendingLogins.put(state, future);
+        }
+        future.whenComplete((params, error) -> listener.unregister(state, future));
+        return future;
+    }
+
+    private void unregister(final String state, final CompletableFuture<Map<String, String>> future) {
+        synchronized (LISTENERS) {
+            m_pendingLogins.remove(state, future);
+            if (m_pendingLogins.isEmpty() && LISTENERS.remove(m_port, this)) {
+                m_server.stop(0);
+            }
+        }
+    }
+
+    /**
+     * @return whether a listener is running on the given port.
+     */
+    static boolean isListening(final int port) {
+        synchronized (LISTENERS) {
+            return LISTENERS.containsKey(port);
+        }
+    }
+
+    private void handle(final HttpExchange exchange) {
+        final var params = parseQuery(exchange.getRequestURI().getRawQuery());
+        final var state = params.get("state");
+        final var future = state != null ? m_pendingLogins.get(state) : null;
+
+        if (future == null) {
+            // not the redirect of a pending login (e.g. a login that has timed out, or
+            // a request by the browser for the favicon), so there is nothing to complete
+            sendResponse(exchange, 400, String.format(ERROR_MESSAGE_FORMAT, "Unknown or expired login"));
+            return;
+        }
+
+        if (params.containsKey("code")) {
+            sendResponse(exchange, 200, SUCCESS_MESSAGE);
+        } else {
+            final var error = Optional.ofNullable(params.get("error")).orElse("unknown error");
+            final var description = Optional.ofNullable(params.get("error_description")).orElse("not provided");
+            sendResponse(exchange, 200, String.format(ERROR_MESSAGE_FORMAT, //
+                    escapeHtml(error + " - " + description)));
+        }
+        future.complete(params);
+    }
+
+    /**
+     * Parses the query string of a redirect. Parameter names are case-insensitive,
+     * only the first value of each parameter is kept.
+     */
+    static Map<String, String> parseQuery(final String rawQuery) {
+        final var params = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        if (rawQuery != null) {
+            for (var param : rawQuery.split("&")) {
+                final var keyValue = param.split("=", 2);
+                if (keyValue.length == 2) {
+                    params.putIfAbsent(URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8),
+                            URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return Collections.unmodifiableMap(params);
+    }
+
+    private static String escapeHtml(final String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static void sendResponse(final HttpExchange exchange, final int code, final String response) {
+        final var bytes = response.getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (var os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        } catch (IOException e) { // NOSONAR
+            // do nothing, browser may have already closed connection
+        } finally {
+            exchange.close();
+        }
+    }
+}
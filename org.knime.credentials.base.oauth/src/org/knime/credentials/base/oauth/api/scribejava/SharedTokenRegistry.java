@@ -0,0 +1,257 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.knime.credentials.base.Credential;
+
+import com.github.scribejava.core.oauth.OAuth20Service;
+
+/**
+ * Process-wide registry that allows several nodes to share the same
+ * {@link Credential}, if they would send identical token requests to the
+ * identity provider. This is useful for non-interactive grants (client
+ * credentials, password), where many nodes in a workflow often use the same
+ * configuration. Instead of each node acquiring its own access token, the first
+ * node acquires it and all matching nodes reuse it. Since the shared credentials
+ * refresh their access token on their own (with a single in-flight refresh),
+ * one valid access token serves all of them.
+ *
+ * <p>
+ * Shared credentials are reference counted: Each node holds a {@link Lease},
+ * which it must close when it does not need the credential anymore (e.g. on
+ * reset). Once the last lease has been closed, the credential is removed from
+ * the registry, and the next node acquires a new one.
+ * </p>
+ *
+ * <p>
+ * Credentials are keyed by a fingerprint of the effective token request, see
+ * {@link #fingerprint(OAuth20Service, Map)}. Secrets are only kept as part of a
+ * SHA-256 digest.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class SharedTokenRegistry {
+
+    private static final SharedTokenRegistry INSTANCE = new SharedTokenRegistry();
+
+    private final Map<String, Entry> m_entries = new HashMap<>();
+
+    SharedTokenRegistry() {
+    }
+
+    /**
+     * @return the process-wide registry.
+     */
+    public static SharedTokenRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Computes the fingerprint of a token request.
+     *
+     * @param service
+     *            The service that sends the token request. Its configuration (see
+     *            {@link OAuth20ServicePool}) is part of the fingerprint.
+     * @param grantParameters
+     *            The parameters of the grant, e.g. grant type, scopes, username
+     *            and password. Values may be null.
+     * @return the fingerprint, as a hex string.
+     */
+    public static String fingerprint(final OAuth20Service service, final Map<String, String> grantParameters) {
+        final var fields = new TreeMap<String, String>();
+        fields.put("service", OAuth20ServicePool.fingerprint(service));
+        grantParameters.forEach((key, value) -> fields.put("grant." + key, value));
+        return OAuth20ServicePool.digest(fields);
+    }
+
+    /**
+     * Provides a shared credential for the given fingerprint. If there is none yet,
+     * then the given loader is invoked on the given executor to acquire it.
+     * Concurrent calls with the same fingerprint share a single invocation of the
+     * loader, which does not depend on any one of the callers: A caller that gives
+     * up waiting closes its lease, while the others keep waiting. Only once the
+     * last lease has been closed, a pending invocation of the loader is
+     * interrupted. If the loader fails, then the failure is propagated to all
+     * waiting callers and nothing is registered.
+     *
+     * @param fingerprint
+     *            The fingerprint of the token request, see
+     *            {@link #fingerprint(OAuth20Service, Map)}.
+     * @param loader
+     *            Acquires a new credential.
+     * @param executor
+     *            The executor to invoke the loader on.
+     * @return a {@link Lease} on the shared credential, which must be closed once
+     *         the credential is not needed anymore.
+     */
+    public Lease acquire(final String fingerprint, final Callable<Credential> loader,
+            final ExecutorService executor) {
+
+        final Entry entry;
+        final boolean mustLoad;
+        synchronized (m_entries) {
+            final var existing = m_entries.get(fingerprint);
+            mustLoad = existing == null;
+            entry = mustLoad ? new Entry() : existing;
+            if (mustLoad) {
+                m_entries.put(fingerprint, entry);
+            }
+            entry.m_refCount++;
+        }
+
+        if (mustLoad) {
+            final var load = executor.submit(() -> load(fingerprint, entry, loader));
+            synchronized (m_entries) {
+                entry.m_load = load;
+            }
+        }
+
+        return new Lease(this, fingerprint, entry);
+    }
+
+    private void load(final String fingerprint, final Entry entry, final Callable<Credential> loader) {
+        try {
+            entry.m_credential.complete(loader.call());
+        } catch (Exception e) { // NOSONAR propagate to all waiting callers
+            // failures are not shared with later callers
+            synchronized (m_entries) {
+                m_entries.remove(fingerprint, entry);
+            }
+            entry.m_credential.completeExceptionally(e);
+        }
+    }
+
+    private void release(final String fingerprint, final Entry entry) {
+        synchronized (m_entries) {
+            entry.m_refCount--;
+            if (entry.m_refCount == 0) {
+                m_entries.remove(fingerprint, entry);
+                // nobody waits for a pending load anymore
+                if (entry.m_load != null) {
+                    entry.m_load.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of currently shared credentials.
+     */
+    int size() {
+        synchronized (m_entries) {
+            return m_entries.size();
+        }
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<Credential> m_credential = new CompletableFuture<>();
+
+        /**
+         * Guarded by the entries map of the registry.
+         */
+        private int m_refCount;
+
+        /**
+         * The invocation of the loader. Guarded by the entries map of the registry.
+         */
+        private Future<?> m_load;
+    }
+
+    /**
+     * A lease on a shared credential, which must be closed once the credential is
+     * not needed anymore. Closing a lease more than once has no effect.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final SharedTokenRegistry m_registry;
+
+        private final String m_fingerprint;
+
+        private final Entry m_entry;
+
+        private boolean m_closed;
+
+        private Lease(final SharedTokenRegistry registry, final String fingerprint, final Entry entry) {
+            m_registry = registry;
+            m_fingerprint = fingerprint;
+            m_entry = entry;
+        }
+
+        /**
+         * Provides the shared credential, once it has been acquired. Canceling the
+         * returned future does not affect the other leases, use {@link #close()}
+         * to give up waiting.
+         *
+         * @return a future, which provides the shared credential, or fails if the
+         *         credential could not be acquired.
+         */
+        public Future<Credential> getCredential() {
+            return m_entry.m_credential.copy();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!m_closed) {
+                m_closed = true;
+                m_registry.release(m_fingerprint, m_entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.util.ArrayList;
+
+import org.knime.credentials.base.oauth.api.ScopeSet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.scribejava.apis.openid.OpenIdOAuth2AccessToken;
+import com.github.scribejava.core.exceptions.OAuthException;
+import com.github.scribejava.core.extractors.OAuth2AccessTokenJsonExtractor;
+import com.github.scribejava.core.extractors.TokenExtractor;
+import com.github.scribejava.core.model.OAuth2AccessToken;
+import com.github.scribejava.core.model.Response;
+
+/**
+ * {@link TokenExtractor} that parses token endpoint responses in a single pass
+ * with a streaming JSON parser, instead of building a JSON tree first (which
+ * is what scribejava's {@link OAuth2AccessTokenJsonExtractor} does). The
+ * granted scopes are parsed into a {@link ScopeSet} right away, so that
+ * {@link CredentialFactory} does not need to parse them again.
+ *
+ * <p>
+ * The extractor tolerates some common deviations from RFC 6749: Numeric values
+ * may be sent as strings (e.g. {@code "expires_in": "3600"}) or with a
+ * fraction, the scopes may be sent as a JSON array instead of a
+ * space-separated string, and unknown fields are ignored.
+ * </p>
+ *
+ * <p>
+ * Tokens returned by this extractor do not retain the raw response, hence
+ * {@link OAuth2AccessToken#getRawResponse()} cannot be used on them.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class StreamingTokenExtractor implements TokenExtractor<OAuth2AccessToken> {
+
+    private static final StreamingTokenExtractor INSTANCE = new StreamingTokenExtractor();
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private StreamingTokenExtractor() {
+    }
+
+    /**
+     * @return the singleton instance.
+     */
+    public static StreamingTokenExtractor instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Access token as extracted by {@link StreamingTokenExtractor}, which
+     * additionally provides the granted scopes as a {@link ScopeSet}.
+     */
+    public static final class ParsedAccessToken extends OpenIdOAuth2AccessToken {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ScopeSet m_scopeSet; // NOSONAR can be recreated from getScope()
+
+        ParsedAccessToken(final String accessToken, final String tokenType, final Integer expiresIn,
+                final String refreshToken, final String scope, final ScopeSet scopeSet, final String idToken) {
+            super(accessToken, tokenType, expiresIn, refreshToken, scope, idToken, null);
+            m_scopeSet = scopeSet;
+        }
+
+        /**
+         * @return the granted scopes, which is empty if the token endpoint did not
+         *         return any.
+         */
+        public ScopeSet getScopeSet() {
+            return m_scopeSet != null ? m_scopeSet : ScopeSet.parse(getScope());
+        }
+    }
+
+    @Override
+    public OAuth2AccessToken extract(final Response response) throws IOException {
+        if (response.getCode() != 200) {
+            // error responses are rare, hence we let scribejava do the work
+            OAuth2AccessTokenJsonExtractor.instance().generateError(response);
+        }
+
+        try (var parser = createParser(response)) {
+            return parse(parser);
+        }
+    }
+
+    /**
+     * Creates a parser that reads the response stream, unless the body has already
+     * been read into a string (e.g. by scribejava's debug logging), or is
+     * compressed.
+     */
+    private static JsonParser createParser(final Response response) throws IOException {
+        final var stream = response.getStream();
+        if (stream != null && !"gzip".equals(response.getHeader("Content-Encoding"))) {
+            final var pushbackStream = new PushbackInputStream(stream);
+            int first;
+            try {
+                first = pushbackStream.read();
+            } catch (IOException e) { // NOSONAR the stream has been consumed and closed already
+                first = -1;
+            }
+
+            if (first != -1) {
+                pushbackStream.unread(first);
+                return JSON_FACTORY.createParser(pushbackStream);
+            }
+        }
+        return JSON_FACTORY.createParser(response.getBody());
+    }
+
+    /**
+     * Parses a token endpoint response.
+     *
+     * @param parser
+     *            The parser positioned before the JSON object of the response.
+     * @return the parsed token.
+     * @throws IOException
+     *             if the response is malformed or does not contain an access token.
+     */
+    static ParsedAccessToken parse(final JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new OAuthException("Token endpoint response is not a JSON object");
+        }
+
+        String accessToken = null;
+        String tokenType = null;
+        Integer expiresIn = null;
+        String refreshToken = null;
+        String scope = null;
+        ScopeSet scopeSet = null;
+        String idToken = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var field = parser.getCurrentName();
+            final var value = parser.nextToken();
+            switch (field) {
+                case "access_token" -> accessToken = parseString(parser, value);
+                case "token_type" -> tokenType = parseString(parser, value);
+                case "expires_in" -> expiresIn = parseSeconds(parser, value);
+                case "refresh_token" -> refreshToken = parseString(parser, value);
+                case "id_token" -> idToken = parseString(parser, value);
+                case "scope" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        scopeSet = parseScopeArray(parser);
+                        scope = scopeSet.toScopeString();
+                    } else {
+                        scope = parseString(parser, value);
+                        scopeSet = ScopeSet.parse(scope);
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (accessToken == null || accessToken.isEmpty()) {
+            throw new OAuthException("Token endpoint response does not contain an access token");
+        }
+
+        return new ParsedAccessToken(accessToken, tokenType, expiresIn, refreshToken, scope, scopeSet, idToken);
+    }
+
+    private static String parseString(final JsonParser parser, final JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        throw new OAuthException("Unexpected value for field " + parser.getCurrentName());
+    }
+
+    private static Integer parseSeconds(final JsonParser parser, final JsonToken value) throws IOException {
+        return switch (value) {
+            case VALUE_NUMBER_INT -> parser.getIntValue();
+            case VALUE_NUMBER_FLOAT -> (int)parser.getDoubleValue();
+            case VALUE_STRING -> parseSeconds(parser.getText().trim());
+            case VALUE_NULL -> null;
+            default -> throw new OAuthException("Unexpected value for field expires_in");
+        };
+    }
+
+    private static Integer parseSeconds(final String text) {
+        if (text.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return (int)Double.parseDouble(text);
+        } catch (NumberFormatException e) { // NOSONAR
+            throw new OAuthException("Invalid value for field expires_in: " + text);
+        }
+    }
+
+    private static ScopeSet parseScopeArray(final JsonParser parser) throws IOException {
+        final var scopes = new ArrayList<String>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.VALUE_STRING) {
+                throw new OAuthException("Unexpected value in scope array");
+            }
+            scopes.add(parser.getText());
+        }
+        return ScopeSet.of(scopes);
+    }
+}
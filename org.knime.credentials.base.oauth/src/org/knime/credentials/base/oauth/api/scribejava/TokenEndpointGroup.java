@@ -0,0 +1,352 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.knime.core.node.NodeLogger;
+
+import com.github.scribejava.core.model.Response;
+
+/**
+ * An ordered list of equivalent token endpoints, e.g. regional replicas of an
+ * identity provider. A request is sent to the first healthy endpoint and fails
+ * over to the next one on connection errors and HTTP 5xx responses; an endpoint
+ * that failed is considered unhealthy for a while and tried last. Optionally, if
+ * the first endpoint does not answer within its 95th latency percentile, a
+ * hedged duplicate of the request is sent to the next endpoint and the first
+ * response is used.
+ *
+ * <p>
+ * Latency and health are tracked per endpoint URL across all groups. Hedging
+ * only has an effect when requests are executed asynchronously, e.g. with
+ * {@link JavaNetHttpClient}, and it must only be used for requests that can
+ * safely be sent twice.
+ * </p>
+ *
+ * @author agent
+ */
+final class TokenEndpointGroup {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TokenEndpointGroup.class);
+
+    /**
+     * How long an endpoint is tried last after it has failed.
+     */
+    static final Duration UNHEALTHY_PERIOD = Duration.ofSeconds(30);
+
+    /**
+     * The hedging delay as long as there are too few latency samples.
+     */
+    static final Duration DEFAULT_HEDGE_DELAY = Duration.ofSeconds(1);
+
+    private static final Duration MIN_HEDGE_DELAY = Duration.ofMillis(10);
+
+    private static final int LATENCY_SAMPLES = 100;
+
+    private static final int MIN_LATENCY_SAMPLES = 10;
+
+    private static final Map<String, EndpointStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+    private final List<String> m_endpoints;
+
+    private final boolean m_hedge;
+
+    /**
+     * @param endpoints
+     *            The URLs of the token endpoints, in order of preference.
+     * @param hedge
+     *            Whether to send hedged requests.
+     */
+    TokenEndpointGroup(final List<String> endpoints, final boolean hedge) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one token endpoint is required");
+        }
+        m_endpoints = List.copyOf(endpoints);
+        m_hedge = hedge;
+    }
+
+    List<String> getEndpoints() {
+        return m_endpoints;
+    }
+
+    boolean isHedging() {
+        return m_hedge;
+    }
+
+    private static EndpointStatistics statistics(final String endpoint) {
+        return STATISTICS.computeIfAbsent(endpoint, url -> new EndpointStatistics());
+    }
+
+    /**
+     * @return the given latency percentile of the endpoint, or an empty
+     *         {@link Optional} if there are too few samples.
+     */
+    static Optional<Duration> getLatencyPercentile(final String endpoint, final double percentile) {
+        return statistics(endpoint).percentile(percentile);
+    }
+
+    /**
+     * Forgets the latency and health of all endpoints.
+     */
+    static void resetStatistics() {
+        STATISTICS.clear();
+    }
+
+    private record Attempt(String endpoint, CompletableFuture<Response> future, long startNanos) {
+    }
+
+    /**
+     * Executes a request against the endpoints of this group.
+     *
+     * @param sender
+     *            Sends the request to the given endpoint URL.
+     * @param hedgeAllowed
+     *            Whether the request can safely be sent twice. If false, no hedged
+     *            request is sent, regardless of the settings of this group.
+     * @param deadline
+     *            The deadline by which a response must have been received.
+     * @return the first response that is not an HTTP 5xx response, or the last 5xx
+     *         response if all endpoints have failed.
+     * @throws IOException
+     *             if no endpoint could be reached, or the deadline has expired.
+     * @throws InterruptedException
+     *             if the current thread was interrupted while waiting.
+     */
+    Response execute(final Function<String, CompletableFuture<Response>> sender, final boolean hedgeAllowed,
+            final TokenRequestDeadline deadline) throws IOException, InterruptedException {
+
+        final var order = orderEndpoints();
+        final var completions = new LinkedBlockingQueue<Attempt>();
+        final var pending = new ArrayList<Attempt>();
+        var next = 0;
+        var hedged = !(m_hedge && hedgeAllowed);
+        Response lastErrorResponse = null;
+        Throwable lastFailure = null;
+
+        pending.add(launch(order.get(next++), sender, completions));
+        try {
+            while (true) {
+                final Attempt completed;
+                if (!hedged && next < order.size()) {
+                    completed = completions.poll(deadline.limit(hedgeDelay(pending.get(0).endpoint())).toNanos(),
+                            TimeUnit.NANOSECONDS);
+                    if (completed == null) {
+                        if (deadline.remainingNanos() == 0) {
+                            throw deadline.timeoutException();
+                        }
+                        LOGGER.debugWithFormat("Sending hedged token request to %s", order.get(next));
+                        pending.add(launch(order.get(next++), sender, completions));
+                        hedged = true;
+                        continue;
+                    }
+                } else {
+                    completed = completions.poll(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+                    if (completed == null) {
+                        throw deadline.timeoutException();
+                    }
+                }
+                pending.remove(completed);
+
+                final var stats = statistics(completed.endpoint());
+                final var failure = getFailure(completed.future());
+                if (failure == null && completed.future().join().getCode() < 500) {
+                    stats.recordLatency(System.nanoTime() - completed.startNanos());
+                    stats.markHealthy();
+                    return completed.future().join();
+                }
+
+                stats.markUnhealthy();
+                if (failure != null) {
+                    lastFailure = failure;
+                    LOGGER.debugWithFormat("Token endpoint %s failed (%s)", completed.endpoint(), failure.getMessage());
+                } else {
+                    lastErrorResponse = completed.future().join();
+                    LOGGER.debugWithFormat("Token endpoint %s responded with HTTP %d", completed.endpoint(),
+                            lastErrorResponse.getCode());
+                }
+
+                if (pending.isEmpty()) {
+                    if (next < order.size() && deadline.remainingNanos() == 0) {
+                        throw deadline.timeoutException();
+                    } else if (next < order.size()) {
+                        pending.add(launch(order.get(next++), sender, completions));
+                    } else if (lastErrorResponse != null) {
+                        return lastErrorResponse;
+                    } else {
+                        throw toIOException(lastFailure);
+                    }
+                }
+            }
+        } finally {
+            pending.forEach(attempt -> attempt.future().cancel(true));
+        }
+    }
+
+    private static Attempt launch(final String endpoint, final Function<String, CompletableFuture<Response>> sender,
+            final LinkedBlockingQueue<Attempt> completions) {
+
+        final var startNanos = System.nanoTime();
+        CompletableFuture<Response> future;
+        try {
+            future = sender.apply(endpoint);
+        } catch (RuntimeException e) { // NOSONAR treated like a connection error
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        final var attempt = new Attempt(endpoint, future, startNanos);
+        future.whenComplete((response, error) -> completions.offer(attempt));
+        return attempt;
+    }
+
+    private static Throwable getFailure(final CompletableFuture<Response> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (RuntimeException e) { // NOSONAR e.g. cancellation
+            return e;
+        }
+    }
+
+    private static IOException toIOException(final Throwable failure) {
+        if (failure instanceof IOException ioe) {
+            return ioe;
+        } else if (failure instanceof ExecutionException && failure.getCause() instanceof IOException ioe) {
+            return ioe;
+        } else {
+            return new IOException(failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * @return the endpoints, healthy ones first (in configured order), followed by
+     *         unhealthy ones (those that failed longest ago first).
+     */
+    private List<String> orderEndpoints() {
+        final var now = System.nanoTime();
+        final var healthy = new ArrayList<String>();
+        final var unhealthy = new ArrayList<String>();
+        for (var endpoint : m_endpoints) {
+            if (statistics(endpoint).isHealthy(now)) {
+                healthy.add(endpoint);
+            } else {
+                unhealthy.add(endpoint);
+            }
+        }
+        unhealthy.sort(Comparator.comparingLong(endpoint -> statistics(endpoint).m_unhealthyUntilNanos));
+        healthy.addAll(unhealthy);
+        return healthy;
+    }
+
+    private static Duration hedgeDelay(final String endpoint) {
+        final var p95 = statistics(endpoint).percentile(0.95).orElse(DEFAULT_HEDGE_DELAY);
+        return p95.compareTo(MIN_HEDGE_DELAY) < 0 ? MIN_HEDGE_DELAY : p95;
+    }
+
+    /**
+     * Latency samples and health of one endpoint.
+     */
+    private static final class EndpointStatistics {
+
+        private final long[] m_latencies = new long[LATENCY_SAMPLES];
+
+        private int m_samples;
+
+        private int m_nextSample;
+
+        private volatile long m_unhealthyUntilNanos;
+
+        private volatile boolean m_unhealthy;
+
+        synchronized void recordLatency(final long nanos) {
+            m_latencies[m_nextSample] = nanos;
+            m_nextSample = (m_nextSample + 1) % LATENCY_SAMPLES;
+            m_samples = Math.min(m_samples + 1, LATENCY_SAMPLES);
+        }
+
+        synchronized Optional<Duration> percentile(final double percentile) {
+            if (m_samples < MIN_LATENCY_SAMPLES) {
+                return Optional.empty();
+            }
+            final var sorted = Arrays.copyOf(m_latencies, m_samples);
+            Arrays.sort(sorted);
+            final var index = Math.min(m_samples - 1, (int)Math.ceil(percentile * m_samples) - 1);
+            return Optional.of(Duration.ofNanos(sorted[Math.max(0, index)]));
+        }
+
+        void markUnhealthy() {
+            m_unhealthyUntilNanos = System.nanoTime() + UNHEALTHY_PERIOD.toNanos();
+            m_unhealthy = true;
+        }
+
+        void markHealthy() {
+            m_unhealthy = false;
+        }
+
+        boolean isHealthy(final long now) {
+            return !m_unhealthy || now - m_unhealthyUntilNanos >= 0;
+        }
+    }
+}
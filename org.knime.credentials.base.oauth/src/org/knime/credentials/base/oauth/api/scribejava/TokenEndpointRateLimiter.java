@@ -0,0 +1,714 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.Platform;
+import org.knime.core.node.NodeLogger;
+
+import com.github.scribejava.core.model.Response;
+
+/**
+ * Executor-wide limiter for requests to OAuth2 token endpoints. Requests are
+ * limited per host (and port) of the token endpoint by
+ * <ul>
+ * <li>a token bucket, which bounds the rate of requests (while allowing short
+ * bursts), and</li>
+ * <li>a cap on the number of in-flight requests.</li>
+ * </ul>
+ * Requests that cannot be sent right away are queued in FIFO order. Each
+ * request waits at most until its deadline; if the limiter can tell in advance
+ * that a permit will not become available before the deadline, the request
+ * fails right away. When the token endpoint responds with HTTP 429 (too many
+ * requests) and a <tt>Retry-After</tt> header, no further requests of the same
+ * client are sent to the host before the given time, since identity providers
+ * usually limit the request rate per client. Other clients, e.g. those of a
+ * {@link ClientPool}, are not held up by this. A <tt>Retry-After</tt> header on
+ * HTTP 503 (service unavailable) holds up all requests to the host.
+ *
+ * <p>
+ * The rate limit and the in-flight cap are disabled by default, i.e. only
+ * <tt>Retry-After</tt> headers are honored. They are configured with the
+ * following preferences of the <tt>org.knime.credentials.base.oauth</tt>
+ * plug-in, which can be set in a customization profile (e.g.
+ * <tt>/instance/org.knime.credentials.base.oauth/tokenendpoint.rate=10</tt>).
+ * A system property with the same name, prefixed with <tt>knime.oauth2.</tt>
+ * (e.g. <tt>knime.oauth2.tokenendpoint.rate</tt>), takes precedence over the
+ * preference.
+ * </p>
+ * <ul>
+ * <li><tt>tokenendpoint.rate</tt>: requests per second and host (default:
+ * {@value #DEFAULT_RATE}, a non-positive value disables the rate limit).</li>
+ * <li><tt>tokenendpoint.burst</tt>: maximum number of requests in a burst
+ * (default: {@value #DEFAULT_BURST}).</li>
+ * <li><tt>tokenendpoint.maxInFlight</tt>: maximum number of in-flight requests
+ * per host (default: {@value #DEFAULT_MAX_IN_FLIGHT}, a non-positive value
+ * disables the cap).</li>
+ * <li><tt>tokenendpoint.maxQueueTime</tt>: maximum number of seconds a request
+ * waits for a permit (default: 60).</li>
+ * </ul>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class TokenEndpointRateLimiter {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TokenEndpointRateLimiter.class);
+
+    /**
+     * The default number of requests per second and host, which disables the rate
+     * limit.
+     */
+    public static final double DEFAULT_RATE = 0;
+
+    /**
+     * The default maximum number of requests in a burst.
+     */
+    public static final int DEFAULT_BURST = 20;
+
+    /**
+     * The default maximum number of in-flight requests per host, which disables
+     * the cap.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 0;
+
+    /**
+     * The default maximum time a request waits for a permit.
+     */
+    public static final Duration DEFAULT_MAX_QUEUE_TIME = Duration.ofSeconds(60);
+
+    private static final String PREFERENCES_QUALIFIER = "org.knime.credentials.base.oauth";
+
+    private static final String PREFERENCE_PREFIX = "tokenendpoint.";
+
+    private static final String PROPERTY_PREFIX = "knime.oauth2." + PREFERENCE_PREFIX;
+
+    /**
+     * Upper bound for the Retry-After period, to protect against nonsensical
+     * values.
+     */
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(10);
+
+    /**
+     * Queue times above this threshold are logged.
+     */
+    private static final Duration LOG_QUEUE_TIME_THRESHOLD = Duration.ofSeconds(1);
+
+    /**
+     * The number of hosts above which idle hosts are dropped.
+     */
+    static final int DEFAULT_MAX_HOSTS = 100;
+
+    private static final TokenEndpointRateLimiter INSTANCE = // NOSONAR
+            new TokenEndpointRateLimiter(Config.fromPreferences());
+
+    /**
+     * The configuration of a {@link TokenEndpointRateLimiter}.
+     *
+     * @param rate
+     *            Requests per second and host. A non-positive value disables the
+     *            rate limit.
+     * @param burst
+     *            The maximum number of requests in a burst.
+     * @param maxInFlight
+     *            The maximum number of in-flight requests per host. A non-positive
+     *            value disables the cap.
+     * @param maxQueueTime
+     *            The maximum time a request waits for a permit.
+     */
+    public record Config(double rate, int burst, int maxInFlight, Duration maxQueueTime) {
+
+        /**
+         * @return the configuration from the preferences and system properties (see
+         *         {@link TokenEndpointRateLimiter}).
+         */
+        public static Config fromPreferences() {
+            return new Config(get("rate", Double::parseDouble, DEFAULT_RATE), //
+                    get("burst", Integer::parseInt, DEFAULT_BURST), //
+                    get("maxInFlight", Integer::parseInt, DEFAULT_MAX_IN_FLIGHT), //
+                    Duration.ofSeconds(get("maxQueueTime", Long::parseLong, DEFAULT_MAX_QUEUE_TIME.toSeconds())));
+        }
+
+        private static <V> V get(final String name, final Function<String, V> parser, final V defaultValue) {
+            var value = System.getProperty(PROPERTY_PREFIX + name);
+            if (value == null) {
+                final var preferences = Platform.getPreferencesService();
+                value = preferences != null //
+                        ? preferences.getString(PREFERENCES_QUALIFIER, PREFERENCE_PREFIX + name, null, null) //
+                        : null;
+            }
+            if (value == null || value.isBlank()) {
+                return defaultValue;
+            }
+
+            try {
+                return parser.apply(value.trim());
+            } catch (NumberFormatException e) { // NOSONAR
+                LOGGER.warnWithFormat("Ignoring invalid value '%s' of setting %s%s", value, PREFERENCE_PREFIX, name);
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Statistics about the requests to one host.
+     *
+     * @param granted
+     *            The number of requests that were granted a permit.
+     * @param timedOut
+     *            The number of requests that did not get a permit before their
+     *            deadline.
+     * @param throttled
+     *            The number of responses with a <tt>Retry-After</tt> header that
+     *            were honored.
+     * @param totalQueueTime
+     *            The total time that granted requests have spent waiting for a
+     *            permit.
+     * @param maxQueueTime
+     *            The maximum time a granted request has spent waiting for a
+     *            permit.
+     * @param queued
+     *            The number of requests currently waiting for a permit.
+     * @param inFlight
+     *            The number of requests currently in flight.
+     */
+    public record Statistics(long granted, long timedOut, long throttled, Duration totalQueueTime,
+            Duration maxQueueTime, int queued, int inFlight) {
+
+        /**
+         * @return the average time that granted requests have spent waiting for a
+         *         permit.
+         */
+        public Duration averageQueueTime() {
+            return granted == 0 ? Duration.ZERO : totalQueueTime.dividedBy(granted);
+        }
+    }
+
+    /**
+     * A permit to send one request. It must be closed once the response has been
+     * received.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final HostLimiter m_host;
+
+        private final String m_clientId;
+
+        private final AtomicBoolean m_closed = new AtomicBoolean();
+
+        private Permit(final HostLimiter host, final String clientId) {
+            m_host = host;
+            m_clientId = clientId;
+        }
+
+        /**
+         * Honors the <tt>Retry-After</tt> header of the given response, if the
+         * token endpoint has throttled the request (HTTP 429 or 503).
+         *
+         * @param response
+         *            The response to the request.
+         */
+        @SuppressWarnings("resource")
+        public void onResponse(final Response response) {
+            if (response.getCode() != 429 && response.getCode() != 503) {
+                return;
+            }
+
+            getRetryAfter(response, Instant.now()).ifPresent(retryAfter -> {
+                final var capped = retryAfter.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : retryAfter;
+                LOGGER.debugWithFormat("Token endpoint %s asked to retry after %s", m_host.m_name, capped);
+                m_host.backOff(response.getCode() == 429 ? m_clientId : null, capped);
+            });
+        }
+
+        /**
+         * Releases the in-flight slot of this permit.
+         */
+        @Override
+        public void close() {
+            if (m_closed.compareAndSet(false, true)) {
+                m_host.release();
+            }
+        }
+    }
+
+    private final Config m_config;
+
+    private final int m_maxHosts;
+
+    private final Map<String, HostLimiter> m_hosts = new ConcurrentHashMap<>();
+
+    TokenEndpointRateLimiter(final Config config) {
+        this(config, DEFAULT_MAX_HOSTS);
+    }
+
+    TokenEndpointRateLimiter(final Config config, final int maxHosts) {
+        m_config = config;
+        m_maxHosts = maxHosts;
+    }
+
+    /**
+     * @return the executor-wide limiter.
+     */
+    public static TokenEndpointRateLimiter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the configuration of this limiter.
+     */
+    public Config getConfig() {
+        return m_config;
+    }
+
+    /**
+     * Waits for a permit to send a request to the given token endpoint, at most
+     * for the configured maximum queue time.
+     *
+     * @param tokenEndpointUrl
+     *            The URL of the token endpoint.
+     * @param clientId
+     *            The ID of the client that sends the request. May be null.
+     * @return the {@link Permit}, which must be closed after the request.
+     * @throws IOException
+     *             if no permit became available in time, or if the current thread
+     *             was interrupted while waiting.
+     */
+    public Permit acquire(final String tokenEndpointUrl, final String clientId) throws IOException {
+        return acquire(tokenEndpointUrl, clientId, m_config.maxQueueTime());
+    }
+
+    /**
+     * Waits for a permit to send a request to the given token endpoint, at most
+     * for the given duration.
+     *
+     * @param tokenEndpointUrl
+     *            The URL of the token endpoint.
+     * @param clientId
+     *            The ID of the client that sends the request. May be null.
+     * @param maxQueueTime
+     *            How long to wait at most.
+     * @return the {@link Permit}, which must be closed after the request.
+     * @throws IOException
+     *             if no permit became available in time, or if the current thread
+     *             was interrupted while waiting.
+     */
+    public Permit acquire(final String tokenEndpointUrl, final String clientId, final Duration maxQueueTime)
+            throws IOException {
+
+        final var hostKey = toHostKey(tokenEndpointUrl);
+        final var normalizedClientId = clientId != null ? clientId : "";
+        final var deadlineNanos = System.nanoTime() + maxQueueTime.toNanos();
+        while (true) {
+            final var host = m_hosts.computeIfAbsent(hostKey, HostLimiter::new);
+            if (host.acquire(normalizedClientId, deadlineNanos)) {
+                dropIdleHostsIfNecessary();
+                return new Permit(host, normalizedClientId);
+            }
+            // the host has been dropped concurrently, since it was idle
+        }
+    }
+
+    /**
+     * Drops idle hosts, if there are too many. A host is idle, if its state does
+     * not differ from the state of a new host, hence dropping it does not change
+     * how requests are limited.
+     */
+    private void dropIdleHostsIfNecessary() {
+        if (m_hosts.size() > m_maxHosts) {
+            final var now = System.nanoTime();
+            m_hosts.values().removeIf(host -> host.dropIfIdle(now));
+        }
+    }
+
+    /**
+     * @return the number of hosts, whose requests are currently limited.
+     */
+    int getHostCount() {
+        return m_hosts.size();
+    }
+
+    /**
+     * @return statistics for each token endpoint host, sorted by host. Hosts that
+     *         have been idle are dropped once there are many hosts, together with
+     *         their statistics.
+     */
+    public Map<String, Statistics> getStatistics() {
+        final var statistics = new TreeMap<String, Statistics>();
+        m_hosts.forEach((name, host) -> statistics.put(name, host.getStatistics()));
+        return statistics;
+    }
+
+    private static String toHostKey(final String url) {
+        try {
+            final var uri = URI.create(url);
+            if (uri.getHost() != null) {
+                return uri.getPort() >= 0 ? (uri.getHost() + ":" + uri.getPort()) : uri.getHost();
+            }
+        } catch (IllegalArgumentException e) { // NOSONAR fall back to the URL itself
+        }
+        return url;
+    }
+
+    /**
+     * Parses the <tt>Retry-After</tt> header of the given response, which is
+     * either a number of seconds or an HTTP date.
+     *
+     * @param response
+     *            The response. May be null.
+     * @param now
+     *            The current time, to resolve an HTTP date against.
+     * @return the duration after which to retry, or an empty {@link Optional} if
+     *         the response has no (valid) <tt>Retry-After</tt> header.
+     */
+    static Optional<Duration> getRetryAfter(final Response response, final Instant now) {
+        if (response == null) {
+            return Optional.empty();
+        }
+
+        final var retryAfter = response.getHeaders().entrySet().stream()//
+                .filter(header -> "Retry-After".equalsIgnoreCase(header.getKey()) && header.getValue() != null)//
+                .map(header -> header.getValue().trim())//
+                .findFirst();
+        if (retryAfter.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.get()))));
+        } catch (NumberFormatException e) { // NOSONAR try HTTP date next
+        }
+
+        try {
+            final var retryAt = ZonedDateTime.parse(retryAfter.get(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            final var duration = Duration.between(now, retryAt.toInstant());
+            return Optional.of(duration.isNegative() ? Duration.ZERO : duration);
+        } catch (DateTimeParseException e) { // NOSONAR
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * A queued request. Tickets are compared by identity.
+     */
+    private static final class Ticket {
+
+        private final String m_clientId;
+
+        Ticket(final String clientId) {
+            m_clientId = clientId;
+        }
+    }
+
+    /**
+     * Token bucket, in-flight cap and FIFO queue for one host.
+     */
+    private final class HostLimiter {
+
+        private final String m_name;
+
+        private final ReentrantLock m_lock = new ReentrantLock();
+
+        private final Condition m_changed = m_lock.newCondition();
+
+        private final ArrayDeque<Ticket> m_queue = new ArrayDeque<>();
+
+        /**
+         * Per client ID, until when requests are held up due to Retry-After.
+         */
+        private final Map<String, Long> m_clientBlockedUntilNanos = new HashMap<>();
+
+        private double m_availablePermits;
+
+        private long m_lastRefillNanos;
+
+        private long m_blockedUntilNanos;
+
+        private int m_inFlight;
+
+        private long m_granted;
+
+        private long m_timedOut;
+
+        private long m_throttled;
+
+        private long m_totalQueueNanos;
+
+        private long m_maxQueueNanos;
+
+        private boolean m_dropped;
+
+        HostLimiter(final String name) {
+            m_name = name;
+            m_availablePermits = Math.max(1, m_config.burst());
+            m_lastRefillNanos = System.nanoTime();
+            m_blockedUntilNanos = m_lastRefillNanos;
+        }
+
+        /**
+         * @return true if the permit has been granted, false if this host has been
+         *         dropped and must not be used anymore.
+         */
+        boolean acquire(final String clientId, final long deadlineNanos) throws IOException {
+            final var ticket = new Ticket(clientId);
+            final var enqueuedNanos = System.nanoTime();
+
+            m_lock.lock();
+            try {
+                if (m_dropped) {
+                    return false;
+                }
+                m_queue.addLast(ticket);
+                while (true) {
+                    final var now = System.nanoTime();
+                    refill(now);
+
+                    final var position = position(ticket, now);
+                    if (position == 0 && canGrant(ticket, now)) {
+                        grant(now - enqueuedNanos);
+                        return true;
+                    }
+
+                    final var earliestGrant = estimateEarliestGrant(ticket, now, position);
+                    if (now - deadlineNanos >= 0 || earliestGrant - deadlineNanos > 0) {
+                        m_timedOut++;
+                        throw new IOException(String.format("Timed out waiting to send a request to token "
+                                + "endpoint %s (%d other requests queued, %d in flight)", //
+                                m_name, m_queue.size() - 1, m_inFlight));
+                    }
+
+                    // wait until a permit might be available, or until signalled that a
+                    // request has completed or the queue has moved
+                    final var waitNanos = earliestGrant - now > 0 ? (earliestGrant - now) : (deadlineNanos - now);
+                    m_changed.awaitNanos(waitNanos);
+                }
+            } catch (InterruptedException e) { // NOSONAR
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to send a request to token endpoint "
+                        + m_name);
+            } finally {
+                m_queue.remove(ticket);
+                m_changed.signalAll();
+                m_lock.unlock();
+            }
+        }
+
+        private boolean canGrant(final Ticket ticket, final long now) {
+            return (m_config.maxInFlight() <= 0 || m_inFlight < m_config.maxInFlight()) //
+                    && !isBlocked(ticket, now) //
+                    && (isRateUnlimited() || m_availablePermits >= 1);
+        }
+
+        private long blockedUntil(final Ticket ticket) {
+            final var clientBlockedUntil = m_clientBlockedUntilNanos.get(ticket.m_clientId);
+            return clientBlockedUntil != null && clientBlockedUntil - m_blockedUntilNanos > 0 //
+                    ? clientBlockedUntil //
+                    : m_blockedUntilNanos;
+        }
+
+        private boolean isBlocked(final Ticket ticket, final long now) {
+            return blockedUntil(ticket) - now > 0;
+        }
+
+        private void grant(final long queueNanos) {
+            if (!isRateUnlimited()) {
+                m_availablePermits -= 1;
+            }
+            m_inFlight++;
+            m_granted++;
+            m_totalQueueNanos += queueNanos;
+            m_maxQueueNanos = Math.max(m_maxQueueNanos, queueNanos);
+
+            if (queueNanos > LOG_QUEUE_TIME_THRESHOLD.toNanos()) {
+                LOGGER.debugWithFormat("Request to token endpoint %s was queued for %d ms", m_name,
+                        TimeUnit.NANOSECONDS.toMillis(queueNanos));
+            }
+        }
+
+        private boolean isRateUnlimited() {
+            return m_config.rate() <= 0;
+        }
+
+        private void refill(final long now) {
+            if (!isRateUnlimited()) {
+                final var elapsedSeconds = (now - m_lastRefillNanos) / 1e9;
+                m_availablePermits = Math.min(Math.max(1, m_config.burst()), //
+                        m_availablePermits + elapsedSeconds * m_config.rate());
+            }
+            m_lastRefillNanos = now;
+        }
+
+        /**
+         * @return the number of queued requests ahead of the given one. Requests of
+         *         clients that are held up due to Retry-After do not count, so that
+         *         they do not hold up the requests of other clients.
+         */
+        private int position(final Ticket ticket, final long now) {
+            var position = 0;
+            for (var queued : m_queue) {
+                if (queued == ticket) {
+                    break;
+                }
+                if (!isBlocked(queued, now)) {
+                    position++;
+                }
+            }
+            return position;
+        }
+
+        /**
+         * Estimates when the request at the given queue position can be granted at
+         * the earliest. In-flight requests are not taken into account, since it is
+         * unknown when they complete.
+         */
+        private long estimateEarliestGrant(final Ticket ticket, final long now, final int position) {
+            final var blockedUntil = blockedUntil(ticket);
+            var earliest = blockedUntil - now > 0 ? blockedUntil : now;
+            if (!isRateUnlimited()) {
+                final var missingPermits = position + 1 - m_availablePermits;
+                if (missingPermits > 0) {
+                    earliest = Math.max(earliest, now + (long)Math.ceil(missingPermits / m_config.rate() * 1e9));
+                }
+            }
+            return earliest;
+        }
+
+        /**
+         * Drops this host, if it is idle, i.e. if no requests are queued or in
+         * flight, no requests are held up due to Retry-After, and the token bucket
+         * is full.
+         *
+         * @return whether the host has been dropped.
+         */
+        boolean dropIfIdle(final long now) {
+            m_lock.lock();
+            try {
+                refill(now);
+                m_clientBlockedUntilNanos.values().removeIf(until -> until - now <= 0);
+                m_dropped = m_queue.isEmpty() //
+                        && m_inFlight == 0 //
+                        && m_blockedUntilNanos - now <= 0 //
+                        && m_clientBlockedUntilNanos.isEmpty() //
+                        && (isRateUnlimited() || m_availablePermits >= Math.max(1, m_config.burst()));
+                return m_dropped;
+            } finally {
+                m_lock.unlock();
+            }
+        }
+
+        void release() {
+            m_lock.lock();
+            try {
+                m_inFlight--;
+                m_changed.signalAll();
+            } finally {
+                m_lock.unlock();
+            }
+        }
+
+        /**
+         * Holds up the requests of the given client, or all requests if the client
+         * is null.
+         */
+        void backOff(final String clientId, final Duration retryAfter) {
+            m_lock.lock();
+            try {
+                final var now = System.nanoTime();
+                final var blockedUntil = now + retryAfter.toNanos();
+                if (clientId == null) {
+                    if (blockedUntil - m_blockedUntilNanos > 0) {
+                        m_blockedUntilNanos = blockedUntil;
+                    }
+                } else {
+                    // entries that have run out are dropped on the way
+                    m_clientBlockedUntilNanos.values().removeIf(until -> until - now <= 0);
+                    m_clientBlockedUntilNanos.merge(clientId, blockedUntil,
+                            (existing, updated) -> updated - existing > 0 ? updated : existing);
+                }
+                m_throttled++;
+            } finally {
+                m_lock.unlock();
+            }
+        }
+
+        Statistics getStatistics() {
+            m_lock.lock();
+            try {
+                return new Statistics(m_granted, //
+                        m_timedOut, //
+                        m_throttled, //
+                        Duration.ofNanos(m_totalQueueNanos), //
+                        Duration.ofNanos(m_maxQueueNanos), //
+                        m_queue.size(), //
+                        m_inFlight);
+            } finally {
+                m_lock.unlock();
+            }
+        }
+    }
+}
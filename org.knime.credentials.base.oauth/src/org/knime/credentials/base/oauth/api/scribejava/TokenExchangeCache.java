@@ -0,0 +1,318 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.knime.credentials.base.oauth.api.AccessTokenAccessor;
+import org.knime.credentials.base.oauth.api.AccessTokenCredential;
+import org.knime.credentials.base.oauth.api.AccessTokenWithScopesCredential;
+import org.knime.credentials.base.oauth.api.ScopeSet;
+
+import com.github.scribejava.core.oauth.OAuth20Service;
+
+/**
+ * Process-wide cache of access tokens that were obtained with the token
+ * exchange grant (see {@link TokenExchangeFlow}). Exchanged tokens are cached
+ * per token endpoint configuration, subject token, audience and set of scopes,
+ * so that exchanging the same subject token again does not cause a request to
+ * the identity provider. Concurrent exchanges with the same key share a single
+ * request.
+ *
+ * <p>
+ * An exchanged token never outlives its subject token: Its expiry time is
+ * capped at the expiry time of the subject token, and it is evicted from the
+ * cache once it has expired. Once the subject token has been refreshed,
+ * subsequent exchanges use the new subject token (and hence a new cache key).
+ * Subject tokens are only kept as part of a SHA-256 digest.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class TokenExchangeCache {
+
+    /**
+     * The default maximum number of cached tokens.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final TokenExchangeCache INSTANCE = new TokenExchangeCache(DEFAULT_MAX_SIZE, Clock.systemUTC());
+
+    private final Map<String, Entry> m_entries = new ConcurrentHashMap<>();
+
+    private final int m_maxSize;
+
+    private final Clock m_clock;
+
+    TokenExchangeCache(final int maxSize, final Clock clock) {
+        m_maxSize = maxSize;
+        m_clock = clock;
+    }
+
+    /**
+     * @return the process-wide cache.
+     */
+    public static TokenExchangeCache getInstance() {
+        return INSTANCE;
+    }
+
+    private record ExchangedToken(String accessToken, String tokenType, Instant expiresAfter, ScopeSet scopes) {
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<ExchangedToken> m_future = new CompletableFuture<>();
+
+        boolean isExpired(final Instant now) {
+            if (!m_future.isDone() || m_future.isCompletedExceptionally()) {
+                return false;
+            }
+            final var expiresAfter = m_future.join().expiresAfter();
+            return expiresAfter != null && !now.isBefore(expiresAfter);
+        }
+    }
+
+    /**
+     * Creates a credential that exchanges the current access token of the given
+     * subject for access tokens with the requested scopes.
+     *
+     * @param serviceSupplier
+     *            Supplies the service for the token endpoint.
+     * @param subject
+     *            Provides the subject token.
+     * @param audience
+     *            The audience of the exchanged tokens. May be null.
+     * @return a new {@link AccessTokenWithScopesCredential}.
+     */
+    public AccessTokenWithScopesCredential createCredential(final Supplier<OAuth20Service> serviceSupplier,
+            final AccessTokenAccessor subject, final String audience) {
+
+        return new AccessTokenWithScopesCredential(//
+                scopes -> exchangeUnchecked(serviceSupplier, subject, audience, scopes), //
+                false, //
+                AccessTokenWithScopesCredential.DEFAULT_MAX_CACHED_TOKENS, //
+                m_clock);
+    }
+
+    /**
+     * Exchanges the current access token of the given subject for an access token
+     * with the given audience and scopes, or provides a cached one.
+     *
+     * @param serviceSupplier
+     *            Supplies the service for the token endpoint.
+     * @param subject
+     *            Provides the subject token.
+     * @param audience
+     *            The audience of the exchanged token. May be null.
+     * @param scopes
+     *            The scopes of the exchanged token.
+     * @return a refreshable {@link AccessTokenCredential}, which exchanges the
+     *         (then current) subject token again when it has expired.
+     * @throws IOException
+     *             if the token exchange failed.
+     */
+    public AccessTokenCredential exchange(final Supplier<OAuth20Service> serviceSupplier,
+            final AccessTokenAccessor subject, final String audience, final Set<String> scopes) throws IOException {
+
+        final var scopeSet = ScopeSet.of(scopes);
+        final var subjectToken = subject.getAccessToken();
+        final var subjectExpiresAfter = subject.getExpiresAfter().orElse(null);
+        final var service = serviceSupplier.get();
+
+        final String key;
+        try {
+            final var fields = new TreeMap<String, String>();
+            fields.put("service", OAuth20ServicePool.fingerprint(service));
+            fields.put("subjectToken", subjectToken);
+            fields.put("audience", audience);
+            fields.put("scopes", scopeSet.toScopeString());
+            key = OAuth20ServicePool.digest(fields);
+        } finally {
+            CredentialFactory.release(serviceSupplier, service);
+        }
+
+        final var token = await(lookup(key, serviceSupplier, subjectToken, subjectExpiresAfter, audience, scopeSet));
+        return new AccessTokenCredential(token.accessToken(), //
+                token.expiresAfter(), //
+                token.tokenType(), //
+                token.scopes(), //
+                () -> exchangeUnchecked(serviceSupplier, subject, audience, scopes), //
+                m_clock);
+    }
+
+    private AccessTokenCredential exchangeUnchecked(final Supplier<OAuth20Service> serviceSupplier,
+            final AccessTokenAccessor subject, final String audience, final Set<String> scopes) {
+        try {
+            return exchange(serviceSupplier, subject, audience, scopes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("java:S107")
+    private CompletableFuture<ExchangedToken> lookup(final String key, final Supplier<OAuth20Service> serviceSupplier,
+            final String subjectToken, final Instant subjectExpiresAfter, final String audience,
+            final ScopeSet scopes) {
+
+        final var now = m_clock.instant();
+        while (true) {
+            final var existing = m_entries.get(key);
+            if (existing != null && !existing.isExpired(now)) {
+                return existing.m_future;
+            }
+
+            final var entry = new Entry();
+            final var won = existing == null //
+                    ? m_entries.putIfAbsent(key, entry) == null //
+                    : m_entries.replace(key, existing, entry);
+            if (won) {
+                evictIfNecessary(now);
+                doExchange(key, entry, serviceSupplier, subjectToken, subjectExpiresAfter, audience, scopes);
+                return entry.m_future;
+            }
+        }
+    }
+
+    @SuppressWarnings("java:S107")
+    private void doExchange(final String key, final Entry entry, final Supplier<OAuth20Service> serviceSupplier,
+            final String subjectToken, final Instant subjectExpiresAfter, final String audience,
+            final ScopeSet scopes) {
+
+        final var service = serviceSupplier.get();
+        try {
+            final var requestedAt = m_clock.instant();
+            final var scribeToken = new TokenExchangeFlow(service, //
+                    subjectToken, //
+                    TokenExchangeFlow.ACCESS_TOKEN_TYPE, //
+                    audience).login(scopes.toScopeString());
+
+            var expiresAfter = scribeToken.getExpiresIn() != null //
+                    ? requestedAt.plusSeconds(scribeToken.getExpiresIn()) //
+                    : null;
+            if (subjectExpiresAfter != null && (expiresAfter == null || subjectExpiresAfter.isBefore(expiresAfter))) {
+                expiresAfter = subjectExpiresAfter;
+            }
+
+            final var grantedScopes = scribeToken instanceof StreamingTokenExtractor.ParsedAccessToken parsedToken //
+                    ? parsedToken.getScopeSet() //
+                    : ScopeSet.parse(scribeToken.getScope());
+
+            entry.m_future.complete(new ExchangedToken(scribeToken.getAccessToken(), //
+                    scribeToken.getTokenType(), //
+                    expiresAfter, //
+                    grantedScopes.isEmpty() ? scopes : grantedScopes));
+        } catch (Exception e) { // NOSONAR propagated to all waiting callers
+            // failures are not cached
+            m_entries.remove(key, entry);
+            entry.m_future.completeExceptionally(e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            CredentialFactory.release(serviceSupplier, service);
+        }
+    }
+
+    private static ExchangedToken await(final CompletableFuture<ExchangedToken> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for token exchange");
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            } else if (cause instanceof InterruptedException) {
+                throw new InterruptedIOException("Interrupted during token exchange");
+            } else if (cause instanceof RuntimeException re) {
+                throw re;
+            } else {
+                throw new IOException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /**
+     * Removes expired tokens and, if the cache is still too large, arbitrary
+     * completed entries.
+     */
+    private void evictIfNecessary(final Instant now) {
+        if (m_entries.size() <= m_maxSize) {
+            return;
+        }
+
+        m_entries.entrySet().removeIf(e -> e.getValue().isExpired(now));
+        final var iterator = m_entries.entrySet().iterator();
+        while (m_entries.size() > m_maxSize && iterator.hasNext()) {
+            if (iterator.next().getValue().m_future.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of cached tokens (including in-flight exchanges).
+     */
+    int size() {
+        return m_entries.size();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.util.Objects;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.github.scribejava.core.model.OAuth2AccessToken;
+import com.github.scribejava.core.model.OAuth2AccessTokenErrorResponse;
+import com.github.scribejava.core.model.OAuthConstants;
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.oauth.OAuth20Service;
+
+/**
+ * Implementation of the OAuth 2.0 Token Exchange grant (RFC 8693), which
+ * exchanges a subject token (e.g. the access token of a user) for an access
+ * token for another audience (e.g. a downstream service).
+ *
+ * @author agent
+ * @since 5.9
+ */
+public class TokenExchangeFlow extends FlowBase {
+
+    /**
+     * The grant type of the token exchange grant.
+     */
+    public static final String GRANT_TYPE = "urn:ietf:params:oauth:grant-type:token-exchange";
+
+    /**
+     * Token type identifier for OAuth 2.0 access tokens.
+     */
+    public static final String ACCESS_TOKEN_TYPE = "urn:ietf:params:oauth:token-type:access_token";
+
+    private final String m_subjectToken;
+
+    private final String m_subjectTokenType;
+
+    private final String m_audience;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param service
+     *            The {@link OAuth20Service} instance to use.
+     * @param subjectToken
+     *            The token to exchange.
+     * @param subjectTokenType
+     *            The type of the token to exchange, e.g.
+     *            {@link #ACCESS_TOKEN_TYPE}.
+     * @param audience
+     *            The audience of the requested token. May be null.
+     */
+    public TokenExchangeFlow(final OAuth20Service service, final String subjectToken, final String subjectTokenType,
+            final String audience) {
+        super(service);
+        m_subjectToken = Objects.requireNonNull(subjectToken, "Subject token must not be null");
+        m_subjectTokenType = Objects.requireNonNull(subjectTokenType, "Subject token type must not be null");
+        m_audience = audience;
+    }
+
+    @SuppressWarnings("resource")
+    @Override
+    public OAuth2AccessToken login(final String scopes) throws Exception {
+        final var service = getService();
+        final var api = service.getApi();
+
+        final var request = new OAuthRequest(api.getAccessTokenVerb(), api.getAccessTokenEndpoint());
+        api.getClientAuthentication().addClientAuthentication(request, service.getApiKey(), service.getApiSecret());
+        request.addParameter(OAuthConstants.GRANT_TYPE, GRANT_TYPE);
+        request.addParameter("subject_token", m_subjectToken);
+        request.addParameter("subject_token_type", m_subjectTokenType);
+        if (StringUtils.isNotBlank(m_audience)) {
+            request.addParameter("audience", m_audience);
+        }
+        if (StringUtils.isNotBlank(scopes)) {
+            request.addParameter(OAuthConstants.SCOPE, scopes);
+        }
+
+        try (var response = service.execute(request)) {
+            return api.getAccessTokenExtractor().extract(response);
+        } catch (OAuth2AccessTokenErrorResponse e) {
+            throw wrapAccessTokenErrorResponse(e);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.knime.credentials.base.oauth.api.ScopeSet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Response;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+
+/**
+ * Process-wide cache of token introspection results (RFC 7662). Introspection
+ * tells the expiry time, the scopes and whether an opaque access token is
+ * still active, which cannot be determined from the token itself.
+ *
+ * <p>
+ * Results are cached per token endpoint configuration, introspection endpoint
+ * and access token for a limited time (see {@link #DEFAULT_TTL}), but never
+ * beyond the expiry time of the token. Concurrent introspections of the same
+ * token share a single request. Failures are not cached. Access tokens are only
+ * kept as part of a SHA-256 digest.
+ * </p>
+ *
+ * @author agent
+ * @since 5.9
+ */
+public final class TokenIntrospector {
+
+    /**
+     * The default time to cache introspection results. Can be overridden with the
+     * <tt>knime.oauth2.introspection.cacheTtl</tt> system property (in seconds).
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    /**
+     * The default maximum number of cached results.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final TokenIntrospector INSTANCE = new TokenIntrospector(//
+            Duration.ofSeconds(Long.getLong("knime.oauth2.introspection.cacheTtl", DEFAULT_TTL.toSeconds())), //
+            DEFAULT_MAX_SIZE, //
+            Clock.systemUTC());
+
+    /**
+     * The result of a token introspection.
+     *
+     * @param active
+     *            Whether the token is active, i.e. has been issued by the identity
+     *            provider, has not been revoked and has not expired.
+     * @param expiresAfter
+     *            The instant when the token expires. May be null.
+     * @param scopes
+     *            The scopes of the token, which may be empty.
+     */
+    public record Result(boolean active, Instant expiresAfter, ScopeSet scopes) {
+    }
+
+    private final class Entry {
+
+        private final CompletableFuture<Result> m_future = new CompletableFuture<>();
+
+        private volatile Instant m_staleAfter;
+
+        boolean isStale(final Instant now) {
+            final var staleAfter = m_staleAfter;
+            return staleAfter != null && !now.isBefore(staleAfter);
+        }
+
+        void complete(final Result result) {
+            var staleAfter = m_clock.instant().plus(m_ttl);
+            if (result.expiresAfter() != null && result.expiresAfter().isBefore(staleAfter)) {
+                staleAfter = result.expiresAfter();
+            }
+            m_staleAfter = staleAfter;
+            m_future.complete(result);
+        }
+    }
+
+    private final Map<String, Entry> m_entries = new ConcurrentHashMap<>();
+
+    private final Duration m_ttl;
+
+    private final int m_maxSize;
+
+    private final Clock m_clock;
+
+    TokenIntrospector(final Duration ttl, final int maxSize, final Clock clock) {
+        m_ttl = ttl;
+        m_maxSize = maxSize;
+        m_clock = clock;
+    }
+
+    /**
+     * @return the process-wide introspector.
+     */
+    public static TokenIntrospector getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Introspects the given access token, or provides a cached result.
+     *
+     * @param serviceSupplier
+     *            Supplies the service, whose client credentials are used to
+     *            authenticate against the introspection endpoint.
+     * @param introspectionUrl
+     *            The URL of the introspection endpoint.
+     * @param accessToken
+     *            The access token to introspect.
+     * @return the introspection {@link Result}.
+     * @throws IOException
+     *             if the introspection failed.
+     */
+    public Result introspect(final Supplier<OAuth20Service> serviceSupplier, final String introspectionUrl,
+            final String accessToken) throws IOException {
+
+        final var service = serviceSupplier.get();
+        final String key;
+        try {
+            final var fields = new TreeMap<String, String>();
+            fields.put("service", OAuth20ServicePool.fingerprint(service));
+            fields.put("introspectionUrl", introspectionUrl);
+            fields.put("accessToken", accessToken);
+            key = OAuth20ServicePool.digest(fields);
+        } finally {
+            CredentialFactory.release(serviceSupplier, service);
+        }
+
+        final var now = m_clock.instant();
+        while (true) {
+            final var existing = m_entries.get(key);
+            if (existing != null && !existing.isStale(now)) {
+                return await(existing.m_future);
+            }
+
+            final var entry = new Entry();
+            final var won = existing == null //
+                    ? m_entries.putIfAbsent(key, entry) == null //
+                    : m_entries.replace(key, existing, entry);
+            if (won) {
+                evictIfNecessary(now);
+                doIntrospect(key, entry, serviceSupplier, introspectionUrl, accessToken);
+                return await(entry.m_future);
+            }
+        }
+    }
+
+    private void doIntrospect(final String key, final Entry entry, final Supplier<OAuth20Service> serviceSupplier,
+            final String introspectionUrl, final String accessToken) {
+
+        final var service = serviceSupplier.get();
+        try {
+            final var request = new OAuthRequest(Verb.POST, introspectionUrl);
+            service.getApi().getClientAuthentication().addClientAuthentication(request, service.getApiKey(),
+                    service.getApiSecret());
+            request.addBodyParameter("token", accessToken);
+            request.addBodyParameter("token_type_hint", "access_token");
+
+            try (var response = service.execute(request)) {
+                entry.complete(parseResult(response));
+            }
+        } catch (Exception e) { // NOSONAR propagated to all waiting callers
+            // failures are not cached
+            m_entries.remove(key, entry);
+            entry.m_future.completeExceptionally(e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            CredentialFactory.release(serviceSupplier, service);
+        }
+    }
+
+    /**
+     * Parses an introspection response. Only the "active", "exp" and "scope"
+     * members are of interest, all others are skipped.
+     */
+    static Result parseResult(final Response response) throws IOException {
+        final var body = response.getBody();
+        if (response.getCode() != 200) {
+            throw new IOException(String.format("Token introspection failed with HTTP %d: %s", //
+                    response.getCode(), body));
+        }
+
+        var active = false;
+        Instant expiresAfter = null;
+        var scopes = ScopeSet.empty();
+        try (var parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Token introspection response is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var field = parser.getCurrentName();
+                final var token = parser.nextToken();
+                if ("active".equals(field) && token.isBoolean()) {
+                    active = parser.getBooleanValue();
+                } else if ("exp".equals(field) && token.isNumeric()) {
+                    expiresAfter = Instant.ofEpochSecond(parser.getLongValue());
+                } else if ("scope".equals(field) && token == JsonToken.VALUE_STRING) {
+                    scopes = ScopeSet.parse(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new Result(active, expiresAfter, scopes);
+    }
+
+    private static Result await(final CompletableFuture<Result> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) { // NOSONAR
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for token introspection");
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            } else if (cause instanceof InterruptedException) {
+                throw new InterruptedIOException("Interrupted during token introspection");
+            } else if (cause instanceof RuntimeException re) {
+                throw re;
+            } else {
+                throw new IOException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /**
+     * Removes stale results and, if the cache is still too large, arbitrary
+     * completed entries.
+     */
+    private void evictIfNecessary(final Instant now) {
+        if (m_entries.size() <= m_maxSize) {
+            return;
+        }
+
+        m_entries.entrySet().removeIf(e -> e.getValue().isStale(now));
+        final var iterator = m_entries.entrySet().iterator();
+        while (m_entries.size() > m_maxSize && iterator.hasNext()) {
+            if (iterator.next().getValue().m_future.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of cached results (including in-flight introspections).
+     */
+    int size() {
+        return m_entries.size();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth.api.scribejava;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The point in time by which a token request must have completed, including the
+ * time spent waiting for the {@link TokenEndpointRateLimiter} and failing over
+ * to alternative token endpoints. A deadline may also be unbounded.
+ *
+ * @author agent
+ */
+final class TokenRequestDeadline {
+
+    private static final TokenRequestDeadline NONE = new TokenRequestDeadline(null, 0);
+
+    private final Duration m_timeout;
+
+    private final long m_deadlineNanos;
+
+    private TokenRequestDeadline(final Duration timeout, final long deadlineNanos) {
+        m_timeout = timeout;
+        m_deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param timeout
+     *            The maximum duration of the token request, or null for an
+     *            unbounded deadline.
+     * @return a deadline that expires after the given duration from now.
+     */
+    static TokenRequestDeadline after(final Duration timeout) {
+        return timeout != null //
+                ? new TokenRequestDeadline(timeout, System.nanoTime() + timeout.toNanos()) //
+                : NONE;
+    }
+
+    /**
+     * @return an unbounded deadline.
+     */
+    static TokenRequestDeadline none() {
+        return NONE;
+    }
+
+    boolean isBounded() {
+        return m_timeout != null;
+    }
+
+    /**
+     * @return the remaining time in nanoseconds (at least zero), or
+     *         {@link Long#MAX_VALUE} if the deadline is unbounded.
+     */
+    long remainingNanos() {
+        return isBounded() ? Math.max(0, m_deadlineNanos - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return the given duration, or the remaining time if that is shorter.
+     */
+    Duration limit(final Duration duration) {
+        final var remaining = remainingNanos();
+        return remaining < duration.toNanos() ? Duration.ofNanos(remaining) : duration;
+    }
+
+    /**
+     * Waits for the given future until the deadline has expired. The future is
+     * cancelled if the deadline expires or the current thread is interrupted.
+     *
+     * @throws IOException
+     *             if the deadline has expired.
+     */
+    <T> T await(final Future<T> future) throws InterruptedException, ExecutionException, IOException {
+        try {
+            return isBounded() ? future.get(remainingNanos(), TimeUnit.NANOSECONDS) : future.get();
+        } catch (TimeoutException e) { // NOSONAR replaced by a more descriptive exception
+            future.cancel(true);
+            throw timeoutException();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the exception to throw when the deadline has expired.
+     */
+    IOException timeoutException() {
+        return new IOException(String.format("Token request did not complete within %d ms", //
+                m_timeout.toMillis()));
+    }
+}
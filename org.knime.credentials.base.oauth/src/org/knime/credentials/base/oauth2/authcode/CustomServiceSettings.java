@@ -91,16 +91,13 @@ class CustomServiceSettings extends TokenEndpointSettings {
     public void validate() throws InvalidSettingsException {
         super.validate();
 
-        if (StringUtils.isEmpty(m_authorizationUrl)) {
+        if (StringUtils.isEmpty(m_authorizationUrl) && !isDiscoveryEnabled()) {
             throw new InvalidSettingsException("Authorization endpoint URL is required");
         }
     }
 
     @Override
     public CustomApi20 createApi() {
-        return new CustomApi20(m_tokenUrl, //
-                m_authorizationUrl, //
-                m_tokenRequestMethod.toScribeVerb(), //
-                m_clientAuthMechanism.toScribeClientAuthentication());
+        return createApi(m_authorizationUrl);
     }
 }
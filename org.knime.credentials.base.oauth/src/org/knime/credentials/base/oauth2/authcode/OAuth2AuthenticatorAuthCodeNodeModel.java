@@ -48,9 +48,14 @@
  */
 package org.knime.credentials.base.oauth2.authcode;
 
+import java.util.function.Supplier;
+
+import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.webui.node.impl.WebUINodeConfiguration;
+import org.knime.credentials.base.Credential;
 import org.knime.credentials.base.CredentialCache;
 import org.knime.credentials.base.GenericTokenHolder;
 import org.knime.credentials.base.oauth.api.JWTCredential;
@@ -97,9 +102,10 @@ final class OAuth2AuthenticatorAuthCodeNodeModel
     }
 
     @Override
-    protected OAuth2AccessToken fetchOAuth2AccessToken(final OAuth2AuthenticatorAuthCodeSettings settings,
-            final OAuth20Service service) throws Exception {
-        return m_tokenHolder.getToken();
+    protected Credential requestCredential(final PortObject[] inObjects,
+            final OAuth2AuthenticatorAuthCodeSettings settings, final Supplier<OAuth20Service> serviceSupplier,
+            final ExecutionContext exec) throws Exception {
+        return fromScribeToken(m_tokenHolder.getToken(), serviceSupplier, settings);
     }
 
     @Override
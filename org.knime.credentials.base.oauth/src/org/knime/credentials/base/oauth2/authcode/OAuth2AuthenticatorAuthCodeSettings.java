@@ -48,6 +48,7 @@
  */
 package org.knime.credentials.base.oauth2.authcode;
 
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.UUID;
 
@@ -61,6 +62,7 @@ import org.knime.core.webui.node.dialog.defaultdialog.widget.handler.WidgetHandl
 import org.knime.credentials.base.GenericTokenHolder;
 import org.knime.credentials.base.oauth.api.nodesettings.AbstractTokenCacheKeyPersistor;
 import org.knime.credentials.base.oauth.api.scribejava.AuthCodeFlow;
+import org.knime.credentials.base.oauth.api.scribejava.JavaNetHttpClient;
 import org.knime.credentials.base.oauth2.base.ConfidentialAppSettings;
 import org.knime.credentials.base.oauth2.base.OAuth2AuthenticatorSettings;
 import org.knime.credentials.base.oauth2.base.PublicAppSettings;
@@ -166,6 +168,9 @@ class OAuth2AuthenticatorAuthCodeSettings implements OAuth2AuthenticatorSettings
             try {
                 var tokenHolder = GenericTokenHolder.store(fetchAccessToken(settings, context));
                 return tokenHolder.getCacheKey();
+            } catch (UncheckedIOException e) { // e.g. the OpenID Connect discovery of the endpoints failed
+                LOG.debug("Interactive login failed: " + e.getCause().getMessage(), e);
+                throw new WidgetHandlerException(e.getCause().getMessage());
             } catch (Exception e) {
                 LOG.debug("Interactive login failed: " + e.getMessage(), e);
                 throw new WidgetHandlerException(e.getMessage());
@@ -212,11 +217,14 @@ class OAuth2AuthenticatorAuthCodeSettings implements OAuth2AuthenticatorSettings
     @Override
     public OAuth20Service createService(final CredentialsProvider credsProvider) {
         final DefaultApi20 api;
+        final JavaNetHttpClient httpClient;
 
         if (m_serviceType == ServiceType.CUSTOM) {
             api = m_customService.createApi();
+            httpClient = m_customService.createHttpClient();
         } else {
             api = m_standardService.getApi();
+            httpClient = new JavaNetHttpClient();
         }
 
         final ServiceBuilder builder;
@@ -228,6 +236,7 @@ class OAuth2AuthenticatorAuthCodeSettings implements OAuth2AuthenticatorSettings
         }
 
         builder.callback(m_redirectUrl);
+        builder.httpClient(httpClient);
 
         return builder.build(api);
     }
@@ -48,12 +48,26 @@
  */
 package org.knime.credentials.base.oauth2.base;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.webui.node.impl.WebUINodeConfiguration;
 import org.knime.credentials.base.Credential;
 import org.knime.credentials.base.node.AuthenticatorNodeModel;
 import org.knime.credentials.base.oauth.api.scribejava.CredentialFactory;
+import org.knime.credentials.base.oauth.api.scribejava.OAuth20ServicePool;
+import org.knime.credentials.base.oauth.api.scribejava.SharedTokenRegistry;
+import org.knime.credentials.base.oauth.api.scribejava.TokenGrant;
 
 import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.oauth.OAuth20Service;
@@ -70,6 +84,20 @@ import com.github.scribejava.core.oauth.OAuth20Service;
 public abstract class OAuth2AuthenticatorNodeModel<T extends OAuth2AuthenticatorSettings>
         extends AuthenticatorNodeModel<T> {
 
+    private static final long CANCELLATION_POLL_MILLIS = 100;
+
+    /**
+     * Runs token requests, so that the node can be canceled while waiting for the
+     * token endpoint.
+     */
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        final var thread = new Thread(r, "KNIME-OAuth2-Token-Fetcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SharedTokenRegistry.Lease m_sharedToken;
+
     /**
      * Constructor.
      *
@@ -86,22 +114,175 @@ public abstract class OAuth2AuthenticatorNodeModel<T extends OAuth2Authenticator
     protected Credential createCredential(final PortObject[] inObjects, final ExecutionContext exec, final T settings)
             throws Exception {
 
-        try (var service = settings.createService(getCredentialsProvider())) {
-            var scribeJavaToken = fetchOAuth2AccessToken(settings, service);
-            return CredentialFactory.fromScribeToken(scribeJavaToken,
-                    () -> settings.createService(getCredentialsProvider()));
+        // the pooled service is reused by all later token refreshes with the same
+        // configuration, and closed by the pool once it has been evicted and the
+        // credentials using it have been garbage collected
+        final var serviceSupplier = OAuth20ServicePool.getInstance().pooled(createService(settings));
+
+        final var grantParameters = getTokenSharingParameters(settings);
+        if (grantParameters == null) {
+            final var future =
+                    FETCH_EXECUTOR.submit(() -> requestCredential(inObjects, settings, serviceSupplier, exec));
+            try {
+                return awaitCredential(future, exec);
+            } finally {
+                // interrupts the token request if the node has been canceled
+                future.cancel(true);
+            }
+        }
+
+        // nodes that would send identical token requests share one credential. It is
+        // requested independently of the node that happens to be first, so that
+        // canceling one node does not fail the others
+        final var fingerprint = SharedTokenRegistry.fingerprint(serviceSupplier.get(), grantParameters);
+        releaseSharedToken();
+        final var lease = SharedTokenRegistry.getInstance()//
+                .acquire(fingerprint, () -> requestCredential(inObjects, settings, serviceSupplier, null), //
+                        FETCH_EXECUTOR);
+        try {
+            final var credential = awaitCredential(lease.getCredential(), exec);
+            m_sharedToken = lease;
+            return credential;
+        } catch (Exception e) { // NOSONAR rethrown
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the service from the settings. A failed OpenID Connect discovery of
+     * the endpoints is reported as the {@link IOException} that caused it.
+     *
+     * @param settings
+     *            The current node settings.
+     * @return the newly created service.
+     * @throws IOException
+     *             if the endpoints could not be discovered.
+     * @since 5.9
+     */
+    protected OAuth20Service createService(final T settings) throws IOException {
+        try {
+            return settings.createService(getCredentialsProvider());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Waits for the credential, while checking whether the node has been canceled.
+     */
+    private static Credential awaitCredential(final Future<Credential> future, final ExecutionContext exec)
+            throws Exception { // NOSONAR
+
+        try {
+            while (true) {
+                try {
+                    return future.get(CANCELLATION_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) { // NOSONAR keep waiting
+                    exec.checkCanceled();
+                }
+            }
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            } else if (cause instanceof Error err) {
+                throw err;
+            }
+            throw e;
         }
     }
 
     /**
-     * Subclasses must implement this method to fetch a {@link OAuth2AccessToken}
-     * using the scribejava library.
+     * Subclasses must implement this method to request the credential from the
+     * token endpoint. This method is invoked on a background thread, which is
+     * interrupted when the node is canceled. Subclasses that fetch a scribejava
+     * token can turn it into a refreshable credential with
+     * {@link #fromScribeToken(OAuth2AccessToken, Supplier, OAuth2AuthenticatorSettings)}.
      *
+     * @param inObjects
+     *            The input objects of the node.
      * @param settings
-     * @param service
-     * @return the scribejava {@link OAuth2AccessToken}
+     *            The current node settings.
+     * @param serviceSupplier
+     *            Supplies the pooled {@link OAuth20Service}, which must not be
+     *            closed.
+     * @param exec
+     *            The execution context of the node, or null if the credential is
+     *            shared with other nodes (see
+     *            {@link #getTokenSharingParameters(OAuth2AuthenticatorSettings)}).
+     * @return the credential.
      * @throws Exception
+     * @since 5.9
      */
-    protected abstract OAuth2AccessToken fetchOAuth2AccessToken(final T settings, final OAuth20Service service)
-            throws Exception; // NOSONAR
+    protected abstract Credential requestCredential(PortObject[] inObjects, T settings,
+            Supplier<OAuth20Service> serviceSupplier, ExecutionContext exec) throws Exception; // NOSONAR
+
+    /**
+     * Creates a credential from a scribejava token, which refreshes the token with
+     * the given service, or performs the grant of
+     * {@link #createReacquisitionGrant(OAuth2AuthenticatorSettings)} again.
+     *
+     * @param scribeJavaToken
+     *            The token fetched by the node.
+     * @param serviceSupplier
+     *            Supplies the pooled {@link OAuth20Service}.
+     * @param settings
+     *            The current node settings.
+     * @return the credential.
+     * @since 5.9
+     */
+    protected Credential fromScribeToken(final OAuth2AccessToken scribeJavaToken,
+            final Supplier<OAuth20Service> serviceSupplier, final T settings) {
+
+        return CredentialFactory.fromScribeToken(scribeJavaToken, //
+                serviceSupplier, //
+                createReacquisitionGrant(settings));
+    }
+
+    @Override
+    protected void reset() {
+        super.reset();
+        releaseSharedToken();
+    }
+
+    private void releaseSharedToken() {
+        if (m_sharedToken != null) {
+            m_sharedToken.close();
+            m_sharedToken = null;
+        }
+    }
+
+    /**
+     * Subclasses that use a non-interactive grant can override this method to
+     * allow the node to share its credential with other nodes that send identical
+     * token requests (see {@link SharedTokenRegistry}). The returned parameters
+     * must comprise everything that goes into the token request, apart from the
+     * configuration of the {@link OAuth20Service}, which is taken into account
+     * anyway. The default implementation returns null, i.e. the credential is not
+     * shared.
+     *
+     * @param settings
+     *            The current node settings.
+     * @return the parameters of the grant (e.g. grant type and scopes), or null if
+     *         the credential must not be shared.
+     */
+    protected Map<String, String> getTokenSharingParameters(final T settings) {
+        return null; // NOSONAR null means no sharing
+    }
+
+    /**
+     * Subclasses that use a non-interactive grant (e.g. client credentials) can
+     * override this method to provide a {@link TokenGrant}, which is performed
+     * again to acquire a new access token, once the current one has expired and
+     * cannot be refreshed with a refresh token. The default implementation returns
+     * null, i.e. expired access tokens can only be refreshed with a refresh token.
+     *
+     * @param settings
+     *            The current node settings.
+     * @return the {@link TokenGrant} to re-acquire access tokens with, or null.
+     */
+    protected TokenGrant createReacquisitionGrant(final T settings) {
+        return null;
+    }
 }
@@ -54,6 +54,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.credentials.base.oauth.api.ScopeSet;
 import org.knime.credentials.base.oauth2.base.Sections.ScopesSection;
 import org.knime.node.parameters.Widget;
 import org.knime.node.parameters.WidgetGroup;
@@ -121,6 +122,18 @@ public class ScopeSettings implements WidgetGroup, Persistable {
         return String.join(" ", Arrays.stream(m_scopes).map(s -> s.m_scope.trim()).toList());
     }
 
+    /**
+     * @return the scopes as a {@link ScopeSet}. Blank scopes are skipped.
+     * @since 5.9
+     */
+    public ScopeSet toScopeSet() {
+        return ScopeSet.of(Arrays.stream(m_scopes)//
+                .map(s -> s.m_scope)//
+                .filter(StringUtils::isNotBlank)//
+                .map(String::trim)//
+                .toArray(String[]::new));
+    }
+
     private static final class ScopeArrayPersistor implements NodeParametersPersistor<Scope[]> {
 
         static final String CONFIG_KEY = "scopes";
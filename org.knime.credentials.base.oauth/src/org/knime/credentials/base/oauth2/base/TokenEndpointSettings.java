@@ -48,15 +48,27 @@
  */
 package org.knime.credentials.base.oauth2.base;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+
 import org.apache.commons.lang3.StringUtils;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.node.parameters.NodeParameters;
 import org.knime.credentials.base.oauth.api.scribejava.CustomApi20;
+import org.knime.credentials.base.oauth.api.scribejava.JavaNetHttpClient;
+import org.knime.credentials.base.oauth.api.scribejava.JavaNetHttpClientConfig;
+import org.knime.credentials.base.oauth.api.scribejava.OpenIdConfigurationCache;
+import org.knime.credentials.base.oauth.api.scribejava.OpenIdConfigurationCache.ProviderMetadata;
+import org.knime.credentials.base.oauth.api.scribejava.PrivateKeyJWTAuthenticationScheme;
 import org.knime.credentials.base.oauth2.base.OAuth2AuthenticatorSettings.IsStandardService;
 import org.knime.credentials.base.oauth2.base.Sections.ServiceSection;
 import org.knime.node.parameters.Widget;
 import org.knime.node.parameters.WidgetGroup;
+import org.knime.node.parameters.array.ArrayWidget;
 import org.knime.node.parameters.layout.Layout;
+import org.knime.node.parameters.migration.Migrate;
 import org.knime.node.parameters.updates.Effect;
 import org.knime.node.parameters.updates.Effect.EffectType;
 import org.knime.node.parameters.widget.choices.Label;
@@ -77,6 +89,13 @@ import com.github.scribejava.core.oauth2.clientauthentication.RequestBodyAuthent
 @Effect(predicate = IsStandardService.class, type = EffectType.HIDE)
 public class TokenEndpointSettings implements NodeParameters, WidgetGroup {
 
+    /**
+     * The default overall deadline of a token request in seconds.
+     *
+     * @since 5.9
+     */
+    public static final int DEFAULT_REQUEST_DEADLINE = 120;
+
     /**
      * The URL of the token endpoint.
      */
@@ -101,13 +120,140 @@ public class TokenEndpointSettings implements NodeParameters, WidgetGroup {
             description = """
                     How to transfer Client/App ID and secret to the service endpoints. HTTP Basic Auth is the
                     most common mechanism, but some services expect these values to be part of the form-encoded
-                    request body.
+                    request body. With Private Key JWT, the secret must be a PEM-encoded PKCS#8 private key (RSA or
+                    EC), which is used to sign a client assertion (RFC 7523).
                         """, //
             advanced = true)
     @Layout(ServiceSection.Custom.Bottom.class)
     @ValueSwitchWidget
     public ClientAuthenticationType m_clientAuthMechanism = ClientAuthenticationType.HTTP_BASIC_AUTH;
 
+    /**
+     * The URL of an alternative token endpoint.
+     *
+     * @since 5.9
+     */
+    public static final class AlternativeTokenUrl implements NodeParameters {
+
+        /**
+         * The URL of the alternative token endpoint.
+         */
+        @Widget(title = "URL", description = "The URL of an alternative token endpoint.")
+        public String m_url;
+    }
+
+    /**
+     * Alternative token endpoints, which are used if the token endpoint fails.
+     *
+     * @since 5.9
+     */
+    @Widget(title = "Alternative token endpoint URLs", //
+            description = """
+                    Allows to specify the URLs of equivalent token endpoints, e.g. other regions of the same
+                    identity provider. If the token endpoint is unreachable or fails with a server error (HTTP 5xx),
+                    the token request is sent to the alternative token endpoints in the given order. An endpoint that
+                    has failed is tried last for the next 30 seconds.
+                    """, //
+            advanced = true)
+    @ArrayWidget(elementLayout = ArrayWidget.ElementLayout.HORIZONTAL_SINGLE_LINE, addButtonText = "Add URL")
+    @Layout(ServiceSection.Custom.Bottom.class)
+    @Migrate(loadDefaultIfAbsent = true)
+    public AlternativeTokenUrl[] m_alternativeTokenUrls = new AlternativeTokenUrl[0];
+
+    /**
+     * Whether to send hedged requests to the alternative token endpoints.
+     *
+     * @since 5.9
+     */
+    @Widget(title = "Send hedged requests", //
+            description = """
+                    If alternative token endpoint URLs are specified and the token endpoint does not respond within
+                    its usual response time (95th percentile), the token request is additionally sent to the next
+                    token endpoint and the first response is used. This reduces the impact of slow responses at the
+                    cost of additional requests. Requests that redeem an authorization code or refresh token are
+                    never sent twice.
+                    """, //
+            advanced = true)
+    @Layout(ServiceSection.Custom.Bottom.class)
+    @Migrate(loadDefaultIfAbsent = true)
+    public boolean m_hedgeRequests;
+
+    /**
+     * The URL of the token introspection endpoint.
+     *
+     * @since 5.9
+     */
+    @Widget(title = "Token introspection endpoint URL", //
+            description = """
+                    Optional URL of the token introspection endpoint (RFC 7662) of the OAuth2 service. If
+                    specified and the service issues opaque (non-JWT) access tokens, their expiry time and scopes
+                    are obtained from the introspection endpoint, which allows to refresh them before they expire.
+                    Introspection results are cached for a few minutes.
+                    """, //
+            advanced = true)
+    @Layout(ServiceSection.Custom.Bottom.class)
+    @Migrate(loadDefaultIfAbsent = true)
+    public String m_introspectionUrl;
+
+    /**
+     * The connect timeout in seconds.
+     *
+     * @since 5.9
+     */
+    @Widget(title = "Connect timeout (seconds)", //
+            description = "The maximum time to wait for a connection to the token endpoint to be established.", //
+            advanced = true)
+    @Layout(ServiceSection.Custom.Bottom.class)
+    @Migrate(loadDefaultIfAbsent = true)
+    public int m_connectTimeout = (int)JavaNetHttpClientConfig.DEFAULT_CONNECT_TIMEOUT.toSeconds();
+
+    /**
+     * The read timeout in seconds.
+     *
+     * @since 5.9
+     */
+    @Widget(title = "Read timeout (seconds)", //
+            description = "The maximum time to wait for the response of the token endpoint, once the request "
+                    + "has been sent.", //
+            advanced = true)
+    @Layout(ServiceSection.Custom.Bottom.class)
+    @Migrate(loadDefaultIfAbsent = true)
+    public int m_readTimeout = (int)JavaNetHttpClientConfig.DEFAULT_READ_TIMEOUT.toSeconds();
+
+    /**
+     * The overall deadline of a token request in seconds.
+     *
+     * @since 5.9
+     */
+    @Widget(title = "Token request deadline (seconds)", //
+            description = """
+                    The maximum overall duration of a token request, including the time spent waiting due to rate
+                    limiting and failing over to alternative token endpoints. The deadline also applies to the
+                    token requests made when the access token is refreshed later on.
+                    """, //
+            advanced = true)
+    @Layout(ServiceSection.Custom.Bottom.class)
+    @Migrate(loadDefaultIfAbsent = true)
+    public int m_requestDeadline = DEFAULT_REQUEST_DEADLINE;
+
+    /**
+     * The URL of the OpenID Connect issuer to discover the endpoints from. May be
+     * null.
+     *
+     * @since 5.9
+     */
+    @Widget(title = "Issuer URL (OpenID Connect discovery)", //
+            description = """
+                    Optional URL of an OpenID Connect issuer, e.g. https://login.example.com/tenant. If specified,
+                    endpoint URLs that are left empty are discovered from the OpenID configuration of the issuer
+                    (/.well-known/openid-configuration). The first discovery of an issuer delays the first token
+                    request, and fails the node if the issuer cannot be reached. Afterwards, the configuration is
+                    cached on disk and revalidated in the background.
+                    """)
+    @Layout(ServiceSection.Custom.Top.class)
+    @Migrate(loadDefaultIfAbsent = true)
+    public String m_issuerUrl;
+
     /**
      * Enum for choices on how to provide app ID and secret to the token endpoint.
      */
@@ -122,17 +268,26 @@ public class TokenEndpointSettings implements NodeParameters, WidgetGroup {
          * Use form-encoded request body fields.
          */
         @Label("Request Body")
-        REQUEST_BODY;
+        REQUEST_BODY,
+
+        /**
+         * Use a client assertion that is signed with a private key
+         * (private_key_jwt).
+         *
+         * @since 5.9
+         */
+        @Label("Private Key JWT")
+        PRIVATE_KEY_JWT;
 
         /**
          * @return the corresponding scribejava {@link ClientAuthentication} to use.
          */
         public ClientAuthentication toScribeClientAuthentication() {
-            if (this == ClientAuthenticationType.HTTP_BASIC_AUTH) {
-                return HttpBasicAuthenticationScheme.instance();
-            } else {
-                return RequestBodyAuthenticationScheme.instance();
-            }
+            return switch (this) {
+                case HTTP_BASIC_AUTH -> HttpBasicAuthenticationScheme.instance();
+                case REQUEST_BODY -> RequestBodyAuthenticationScheme.instance();
+                case PRIVATE_KEY_JWT -> PrivateKeyJWTAuthenticationScheme.instance();
+            };
         }
     }
 
@@ -166,8 +321,8 @@ public class TokenEndpointSettings implements NodeParameters, WidgetGroup {
      */
     @Override
     public void validate() throws InvalidSettingsException {
-        if (StringUtils.isEmpty(m_tokenUrl)) {
-            throw new InvalidSettingsException("Please specify the token endpoint URL to use");
+        if (StringUtils.isEmpty(m_tokenUrl) && !isDiscoveryEnabled()) {
+            throw new InvalidSettingsException("Please specify the token endpoint URL or issuer URL to use");
         }
 
         if (m_tokenRequestMethod == null) {
@@ -178,15 +333,119 @@ public class TokenEndpointSettings implements NodeParameters, WidgetGroup {
             throw new InvalidSettingsException("Please specify the client/app authentication mechanism to use");
         }
 
+        if (m_connectTimeout <= 0 || m_readTimeout <= 0 || m_requestDeadline <= 0) {
+            throw new InvalidSettingsException("Timeouts and deadline must be positive");
+        }
+
+        for (var alternative : m_alternativeTokenUrls) {
+            if (StringUtils.isBlank(alternative.m_url)) {
+                throw new InvalidSettingsException("Please specify the alternative token endpoint URL or remove it");
+            }
+        }
+
+    }
+
+    /**
+     * @return whether endpoint URLs are discovered from an OpenID Connect issuer.
+     * @since 5.9
+     */
+    public boolean isDiscoveryEnabled() {
+        return StringUtils.isNotBlank(m_issuerUrl);
     }
 
     /**
      * @return a scribejava {@link CustomApi20} configured from the settings here.
+     * @throws UncheckedIOException
+     *             if the endpoints had to be discovered, but the discovery failed.
      */
     public CustomApi20 createApi() {
-        return new CustomApi20(m_tokenUrl, //
-                "", //
+        return createApi("");
+    }
+
+    /**
+     * Creates a scribejava {@link CustomApi20} with the given authorization
+     * endpoint URL. If an issuer URL is specified, empty endpoint URLs are taken
+     * from its (usually cached) OpenID configuration.
+     *
+     * @param authorizationUrl
+     *            The URL of the authorization endpoint. May be empty.
+     * @return a scribejava {@link CustomApi20} configured from the settings here.
+     * @throws UncheckedIOException
+     *             if the endpoints had to be discovered, but the discovery failed.
+     * @since 5.9
+     */
+    protected CustomApi20 createApi(final String authorizationUrl) {
+        return createApi(authorizationUrl, "");
+    }
+
+    /**
+     * Creates a scribejava {@link CustomApi20} with the given authorization and
+     * device authorization endpoint URLs. If an issuer URL is specified, empty
+     * endpoint URLs are taken from its (usually cached) OpenID configuration.
+     *
+     * @param authorizationUrl
+     *            The URL of the authorization endpoint. May be empty.
+     * @param deviceAuthorizationUrl
+     *            The URL of the device authorization endpoint (RFC 8628). May be
+     *            empty.
+     * @return a scribejava {@link CustomApi20} configured from the settings here.
+     * @throws UncheckedIOException
+     *             if the endpoints had to be discovered, but the discovery failed.
+     * @since 5.9
+     */
+    protected CustomApi20 createApi(final String authorizationUrl, final String deviceAuthorizationUrl) {
+        var tokenUrl = m_tokenUrl;
+        var authUrl = authorizationUrl;
+        var introspectionUrl = StringUtils.trimToNull(m_introspectionUrl);
+        var deviceAuthUrl = StringUtils.trimToNull(deviceAuthorizationUrl);
+
+        if (isDiscoveryEnabled()) {
+            final var metadata = discoverMetadata();
+            if (StringUtils.isEmpty(tokenUrl)) {
+                tokenUrl = metadata.tokenEndpoint();
+            }
+            if (StringUtils.isEmpty(authUrl) && metadata.authorizationEndpoint() != null) {
+                authUrl = metadata.authorizationEndpoint();
+            }
+            if (introspectionUrl == null) {
+                introspectionUrl = metadata.introspectionEndpoint();
+            }
+            if (deviceAuthUrl == null) {
+                deviceAuthUrl = metadata.deviceAuthorizationEndpoint();
+            }
+            if (tokenUrl == null) {
+                throw new UncheckedIOException(new IOException(String.format(
+                        "The OpenID configuration of %s does not specify a token endpoint", m_issuerUrl.trim())));
+            }
+        }
+
+        return new CustomApi20(tokenUrl, //
+                authUrl, //
                 m_tokenRequestMethod.toScribeVerb(), //
-                m_clientAuthMechanism.toScribeClientAuthentication());
+                m_clientAuthMechanism.toScribeClientAuthentication(), //
+                Arrays.stream(m_alternativeTokenUrls).map(alternative -> alternative.m_url.trim()).toList(), //
+                m_hedgeRequests, //
+                introspectionUrl, //
+                deviceAuthUrl);
+    }
+
+    private ProviderMetadata discoverMetadata() {
+        try {
+            return OpenIdConfigurationCache.getInstance().getMetadata(m_issuerUrl);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return a {@link JavaNetHttpClient} with the configured timeouts and
+     *         deadline.
+     * @since 5.9
+     */
+    public JavaNetHttpClient createHttpClient() {
+        return new JavaNetHttpClient(JavaNetHttpClientConfig.defaultConfig()//
+                .withConnectTimeout(Duration.ofSeconds(m_connectTimeout))//
+                .withReadTimeout(Duration.ofSeconds(m_readTimeout))//
+                .withDeadline(Duration.ofSeconds(m_requestDeadline)));
     }
 }
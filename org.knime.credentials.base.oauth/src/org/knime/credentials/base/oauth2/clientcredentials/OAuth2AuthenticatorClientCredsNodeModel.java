@@ -48,14 +48,25 @@
  */
 package org.knime.credentials.base.oauth2.clientcredentials;
 
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.webui.node.impl.WebUINodeConfiguration;
+import org.knime.credentials.base.Credential;
+import org.knime.credentials.base.oauth.api.ScopeSet;
 import org.knime.credentials.base.oauth.api.scribejava.ClientCredentialsFlow;
+import org.knime.credentials.base.oauth.api.scribejava.ClientPool;
+import org.knime.credentials.base.oauth.api.scribejava.OAuth20ServicePool;
+import org.knime.credentials.base.oauth.api.scribejava.TokenGrant;
 import org.knime.credentials.base.oauth2.base.OAuth2AuthenticatorNodeModel;
 
-import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.oauth.OAuth20Service;
 
 /**
@@ -89,6 +100,8 @@ class OAuth2AuthenticatorClientCredsNodeModel
                 additionalRequestField.validate();
             }
         }
+
+        settings.validateAdditionalClients(getCredentialsProvider(), false);
     }
 
     @Override
@@ -98,12 +111,54 @@ class OAuth2AuthenticatorClientCredsNodeModel
         // additional validation step to ensure that credentials flow variable is
         // present (this was not done during configure())
         settings.m_app.validateOnExecute(getCredentialsProvider());
+        settings.validateAdditionalClients(getCredentialsProvider(), true);
+    }
+
+    @Override
+    protected Credential requestCredential(final PortObject[] inObjects,
+            final OAuth2AuthenticatorClientCredsSettings settings, final Supplier<OAuth20Service> serviceSupplier,
+            final ExecutionContext exec) throws Exception {
+
+        if (!settings.hasAdditionalClients()) {
+            final var scribeJavaToken =
+                    new ClientCredentialsFlow(serviceSupplier.get()).login(settings.m_scopes.toScopeString());
+            return fromScribeToken(scribeJavaToken, serviceSupplier, settings);
+        }
+
+        // token requests are spread across all clients/apps, each of which
+        // refreshes its tokens with its own pooled service
+        final List<OAuth20Service> additionalServices;
+        try {
+            additionalServices = settings.createAdditionalServices(getCredentialsProvider());
+        } catch (UncheckedIOException e) {
+            // the OpenID Connect discovery of the endpoints failed
+            throw e.getCause();
+        }
+
+        final var servicePool = OAuth20ServicePool.getInstance();
+        final var serviceSuppliers = new ArrayList<Supplier<OAuth20Service>>();
+        serviceSuppliers.add(serviceSupplier);
+        additionalServices.forEach(service -> serviceSuppliers.add(servicePool.pooled(service)));
+
+        return new ClientPool(serviceSuppliers, //
+                createReacquisitionGrant(settings), //
+                settings.m_clientSelection.toSelection()).createCredential();
     }
 
     @Override
-    protected OAuth2AccessToken fetchOAuth2AccessToken(final OAuth2AuthenticatorClientCredsSettings settings,
-            final OAuth20Service service) throws Exception {
+    protected TokenGrant createReacquisitionGrant(final OAuth2AuthenticatorClientCredsSettings settings) {
+        final var scopes = settings.m_scopes.toScopeString();
+        return service -> new ClientCredentialsFlow(service).login(scopes);
+    }
 
-        return new ClientCredentialsFlow(service).login(settings.m_scopes.toScopeString());
+    @Override
+    protected Map<String, String> getTokenSharingParameters(final OAuth2AuthenticatorClientCredsSettings settings) {
+        if (settings.hasAdditionalClients()) {
+            // the fingerprint only covers the first client/app, hence a pool of clients
+            // is not shared
+            return null; // NOSONAR null means no sharing
+        }
+        return Map.of("grant_type", "client_credentials", //
+                "scope", ScopeSet.parse(settings.m_scopes.toScopeString()).toScopeString());
     }
 }
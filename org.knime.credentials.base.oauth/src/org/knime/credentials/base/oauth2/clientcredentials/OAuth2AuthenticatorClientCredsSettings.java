@@ -48,11 +48,16 @@
  */
 package org.knime.credentials.base.oauth2.clientcredentials;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.credentials.base.node.CredentialsSettings;
+import org.knime.credentials.base.node.CredentialsSettings.CredentialsFlowVarChoicesProvider;
+import org.knime.credentials.base.oauth.api.scribejava.ClientPool;
 import org.knime.node.parameters.NodeParameters;
 import org.knime.credentials.base.oauth.api.scribejava.CustomOAuth2ServiceBuilder;
 import org.knime.credentials.base.oauth2.base.ConfidentialAppSettings;
@@ -66,6 +71,10 @@ import org.knime.node.parameters.layout.After;
 import org.knime.node.parameters.layout.HorizontalLayout;
 import org.knime.node.parameters.layout.Layout;
 import org.knime.node.parameters.layout.Section;
+import org.knime.node.parameters.migration.Migrate;
+import org.knime.node.parameters.widget.choices.ChoicesProvider;
+import org.knime.node.parameters.widget.choices.Label;
+import org.knime.node.parameters.widget.choices.ValueSwitchWidget;
 import org.knime.credentials.base.oauth2.base.TokenEndpointSettings;
 
 import com.github.scribejava.core.oauth.OAuth20Service;
@@ -87,6 +96,15 @@ final class OAuth2AuthenticatorClientCredsSettings implements OAuth2Authenticato
     public interface AdditionalFieldsSection {
     }
 
+    /**
+     * A section for (optional) additional clients/apps.
+     */
+    @Section(title = "Additional clients/apps")
+    @Advanced
+    @After(AdditionalFieldsSection.class)
+    public interface ClientPoolSection {
+    }
+
     TokenEndpointSettings m_service = new TokenEndpointSettings();
 
     ConfidentialAppSettings m_app = new ConfidentialAppSettings();
@@ -121,12 +139,108 @@ final class OAuth2AuthenticatorClientCredsSettings implements OAuth2Authenticato
     @Layout(AdditionalFieldsSection.class)
     AdditionalRequestField[] m_additionalRequestFields = new AdditionalRequestField[0];
 
+    static final class AdditionalClient implements NodeParameters, CredentialsSettings {
+
+        @Widget(title = "ID and Secret (flow variable)", //
+                description = "Specifies the credentials flow variable with the ID and secret of an additional "
+                        + "client/app.")
+        @ChoicesProvider(CredentialsFlowVarChoicesProvider.class)
+        String m_flowVariable;
+
+        @Override
+        public String flowVariableName() {
+            return m_flowVariable;
+        }
+    }
+
+    @Widget(title = "Additional clients/apps", //
+            description = """
+                    Allows to specify the IDs and secrets of additional clients/apps, which must be registered
+                    with the same identity provider. Token requests are then spread across all clients/apps, which
+                    helps when the token endpoint limits the rate of token requests per client/app. A client/app
+                    whose token requests are throttled is temporarily not used.
+                    """, //
+            advanced = true)
+    @ArrayWidget(elementLayout = ArrayWidget.ElementLayout.HORIZONTAL_SINGLE_LINE, addButtonText = "Add client/app")
+    @Layout(ClientPoolSection.class)
+    @Migrate(loadDefaultIfAbsent = true)
+    AdditionalClient[] m_additionalClients = new AdditionalClient[0];
+
+    @Widget(title = "Client/App selection", //
+            description = """
+                    How to choose the client/app for the next token request, if additional clients/apps are
+                    specified. Round robin uses the clients/apps in turn, whereas least loaded prefers the
+                    client/app with the fewest pending token requests.
+                    """, //
+            advanced = true)
+    @ValueSwitchWidget
+    @Layout(ClientPoolSection.class)
+    @Migrate(loadDefaultIfAbsent = true)
+    ClientSelection m_clientSelection = ClientSelection.ROUND_ROBIN;
+
+    /**
+     * Enum for choices on how to choose among several clients/apps.
+     */
+    enum ClientSelection {
+        @Label("Round robin")
+        ROUND_ROBIN(ClientPool.Selection.ROUND_ROBIN),
+
+        @Label("Least loaded")
+        LEAST_LOADED(ClientPool.Selection.LEAST_LOADED);
+
+        private final ClientPool.Selection m_selection;
+
+        ClientSelection(final ClientPool.Selection selection) {
+            m_selection = selection;
+        }
+
+        ClientPool.Selection toSelection() {
+            return m_selection;
+        }
+    }
+
+    boolean hasAdditionalClients() {
+        return m_additionalClients != null && m_additionalClients.length > 0;
+    }
+
+    void validateAdditionalClients(final CredentialsProvider credsProvider, final boolean onExecute)
+            throws InvalidSettingsException {
+
+        if (m_additionalClients == null) {
+            return;
+        }
+
+        for (var client : m_additionalClients) {
+            client.validateFlowVariableIsSet();
+            if (onExecute || client.retrieve(credsProvider).isPresent()) {
+                client.validateLogin(credsProvider, "Client/App ID is required");
+                client.validateSecret(credsProvider, "Client/App secret is required");
+            }
+        }
+    }
+
     @Override
     public OAuth20Service createService(final CredentialsProvider credsProvider) {
+        return createService(m_app.login(credsProvider), m_app.secret(credsProvider));
+    }
+
+    /**
+     * @return one service per additional client/app.
+     */
+    List<OAuth20Service> createAdditionalServices(final CredentialsProvider credsProvider) {
+        final var services = new ArrayList<OAuth20Service>();
+        for (var client : m_additionalClients) {
+            services.add(createService(client.login(credsProvider), client.secret(credsProvider)));
+        }
+        return services;
+    }
+
+    private OAuth20Service createService(final String clientId, final String clientSecret) {
         final var api = m_service.createApi();
 
-        var builder = new CustomOAuth2ServiceBuilder(m_app.login(credsProvider))//
-                .apiSecret(m_app.secret(credsProvider));
+        var builder = new CustomOAuth2ServiceBuilder(clientId)//
+                .apiSecret(clientSecret)//
+                .httpClient(m_service.createHttpClient());
 
         Arrays.stream(m_additionalRequestFields)//
                 .forEach(field -> builder.additionalRequestBodyField(field.m_name, field.m_value));
@@ -0,0 +1,93 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth2.devicecode;
+
+import org.apache.commons.lang3.StringUtils;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.credentials.base.oauth.api.scribejava.CustomApi20;
+import org.knime.credentials.base.oauth2.base.OAuth2AuthenticatorSettings.IsStandardService;
+import org.knime.credentials.base.oauth2.base.Sections.ServiceSection;
+import org.knime.credentials.base.oauth2.base.TokenEndpointSettings;
+import org.knime.node.parameters.NodeParameters;
+import org.knime.node.parameters.Widget;
+import org.knime.node.parameters.layout.Layout;
+import org.knime.node.parameters.updates.Effect;
+import org.knime.node.parameters.updates.Effect.EffectType;
+
+/**
+ * {@link NodeParameters} that provides a device authorization URL field on top
+ * of what is provided by {@link TokenEndpointSettings}.
+ *
+ * @author agent
+ */
+@SuppressWarnings("restriction")
+@Effect(predicate = IsStandardService.class, type = EffectType.HIDE)
+class DeviceCodeServiceSettings extends TokenEndpointSettings {
+
+    @Widget(title = "Device authorization endpoint URL", description = """
+            The device authorization endpoint URL of the OAuth2 service (RFC 8628), which issues the user code.
+            May be left empty if it is discovered from the issuer URL.
+            """)
+    @Layout(ServiceSection.Custom.Top.class)
+    String m_deviceAuthorizationUrl;
+
+    @Override
+    public void validate() throws InvalidSettingsException {
+        super.validate();
+
+        if (StringUtils.isEmpty(m_deviceAuthorizationUrl) && !isDiscoveryEnabled()) {
+            throw new InvalidSettingsException("Device authorization endpoint URL is required");
+        }
+    }
+
+    @Override
+    public CustomApi20 createApi() {
+        return createApi("", m_deviceAuthorizationUrl);
+    }
+}
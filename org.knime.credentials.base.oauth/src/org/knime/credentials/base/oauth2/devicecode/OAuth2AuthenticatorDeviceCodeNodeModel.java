@@ -0,0 +1,134 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth2.devicecode;
+
+import java.util.function.Supplier;
+
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.webui.node.impl.WebUINodeConfiguration;
+import org.knime.credentials.base.Credential;
+import org.knime.credentials.base.oauth.api.scribejava.DeviceCodeFlow;
+import org.knime.credentials.base.oauth2.base.OAuth2AuthenticatorNodeModel;
+import org.knime.credentials.base.oauth2.base.OAuth2AuthenticatorSettings.AppType;
+
+import com.github.scribejava.core.model.DeviceAuthorization;
+import com.github.scribejava.core.oauth.OAuth20Service;
+
+/**
+ * Node model for the OAuth2 Authenticator (Device Code) node. Performs OAuth
+ * authentication using the device authorization grant (RFC 8628). The user code
+ * is shown as the progress message of the node and logged, while the node waits
+ * for the user to complete the login.
+ *
+ * @author agent
+ */
+@SuppressWarnings("restriction")
+class OAuth2AuthenticatorDeviceCodeNodeModel
+        extends OAuth2AuthenticatorNodeModel<OAuth2AuthenticatorDeviceCodeSettings> {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(OAuth2AuthenticatorDeviceCodeNodeModel.class);
+
+    /**
+     * @param configuration
+     *            The node configuration.
+     */
+    protected OAuth2AuthenticatorDeviceCodeNodeModel(final WebUINodeConfiguration configuration) {
+        super(configuration, OAuth2AuthenticatorDeviceCodeSettings.class);
+    }
+
+    @Override
+    protected void validateOnConfigure(final PortObjectSpec[] inSpecs,
+            final OAuth2AuthenticatorDeviceCodeSettings settings) throws InvalidSettingsException {
+
+        settings.m_service.validate();
+
+        if (settings.m_appType == AppType.CONFIDENTIAL) {
+            settings.m_confidentialApp.validateOnConfigure(getCredentialsProvider());
+        } else {
+            settings.m_publicApp.validate();
+        }
+
+        settings.m_scopes.validate();
+    }
+
+    @Override
+    protected void validateOnExecute(final PortObject[] inObjects,
+            final OAuth2AuthenticatorDeviceCodeSettings settings) throws InvalidSettingsException {
+
+        // additional validation steps to ensure that credentials flow variables are
+        // present (this was not done during configure())
+        if (settings.m_appType == AppType.CONFIDENTIAL) {
+            settings.m_confidentialApp.validateOnExecute(getCredentialsProvider());
+        }
+    }
+
+    @Override
+    protected Credential requestCredential(final PortObject[] inObjects,
+            final OAuth2AuthenticatorDeviceCodeSettings settings, final Supplier<OAuth20Service> serviceSupplier,
+            final ExecutionContext exec) throws Exception {
+
+        final var scribeJavaToken = new DeviceCodeFlow(serviceSupplier.get(), //
+                authorization -> exec.setMessage(promptUser(authorization)))//
+                        .login(settings.m_scopes.toScopeString());
+        return fromScribeToken(scribeJavaToken, serviceSupplier, settings);
+    }
+
+    private static String promptUser(final DeviceAuthorization authorization) {
+        final var message = String.format("To sign in, open %s and enter the code %s", //
+                authorization.getVerificationUri(), //
+                authorization.getUserCode());
+        // the console shows warnings by default
+        LOGGER.warn(message);
+        return message;
+    }
+}
@@ -48,15 +48,22 @@
  */
 package org.knime.credentials.base.oauth2.password;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortObjectSpec;
 import org.knime.core.webui.node.impl.WebUINodeConfiguration;
+import org.knime.credentials.base.Credential;
+import org.knime.credentials.base.oauth.api.ScopeSet;
 import org.knime.credentials.base.oauth.api.scribejava.PasswordFlow;
+import org.knime.credentials.base.oauth.api.scribejava.TokenGrant;
 import org.knime.credentials.base.oauth2.base.OAuth2AuthenticatorNodeModel;
 import org.knime.credentials.base.oauth2.base.OAuth2AuthenticatorSettings.AppType;
 
-import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.oauth.OAuth20Service;
 
 /**
@@ -106,12 +113,33 @@ class OAuth2AuthenticatorPasswordNodeModel
     }
 
     @Override
-    protected OAuth2AccessToken fetchOAuth2AccessToken(final OAuth2AuthenticatorPasswordSettings settings,
-            final OAuth20Service service) throws Exception {
+    protected Credential requestCredential(final PortObject[] inObjects,
+            final OAuth2AuthenticatorPasswordSettings settings, final Supplier<OAuth20Service> serviceSupplier,
+            final ExecutionContext exec) throws Exception {
 
-        return new PasswordFlow(service, //
+        final var scribeJavaToken = new PasswordFlow(serviceSupplier.get(), //
                 settings.m_usernamePassword.login(getCredentialsProvider()), //
                 settings.m_usernamePassword.secret(getCredentialsProvider()))//
                         .login(settings.m_scopes.toScopeString());
+        return fromScribeToken(scribeJavaToken, serviceSupplier, settings);
+    }
+
+    @Override
+    protected TokenGrant createReacquisitionGrant(final OAuth2AuthenticatorPasswordSettings settings) {
+        final var username = settings.m_usernamePassword.login(getCredentialsProvider());
+        final var password = settings.m_usernamePassword.secret(getCredentialsProvider());
+        final var scopes = settings.m_scopes.toScopeString();
+        return service -> new PasswordFlow(service, username, password).login(scopes);
+    }
+
+    @Override
+    protected Map<String, String> getTokenSharingParameters(final OAuth2AuthenticatorPasswordSettings settings) {
+        // the password only ends up in a digest, see SharedTokenRegistry
+        final var parameters = new HashMap<String, String>();
+        parameters.put("grant_type", "password");
+        parameters.put("scope", ScopeSet.parse(settings.m_scopes.toScopeString()).toScopeString());
+        parameters.put("username", settings.m_usernamePassword.login(getCredentialsProvider()));
+        parameters.put("password", settings.m_usernamePassword.secret(getCredentialsProvider()));
+        return parameters;
     }
 }
@@ -104,10 +104,13 @@ final class OAuth2AuthenticatorPasswordSettings implements OAuth2AuthenticatorSe
         final var api = m_service.createApi();
 
         if (m_appType == AppType.PUBLIC) {
-            return new ServiceBuilder(m_publicApp.m_appId).build(api);
+            return new ServiceBuilder(m_publicApp.m_appId)//
+                    .httpClient(m_service.createHttpClient())//
+                    .build(api);
         } else {
             return new ServiceBuilder(m_confidentialApp.login(credsProvider))//
                     .apiSecret(m_confidentialApp.secret(credsProvider))//
+                    .httpClient(m_service.createHttpClient())//
                     .build(api);
         }
     }
@@ -0,0 +1,122 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ * History
+ *   2026-10-19 (agent): created
+ */
+package org.knime.credentials.base.oauth2.tokenexchange;
+
+import java.util.function.Supplier;
+
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.webui.node.impl.WebUINodeConfiguration;
+import org.knime.credentials.base.Credential;
+import org.knime.credentials.base.CredentialPortObject;
+import org.knime.credentials.base.CredentialPortObjectSpec;
+import org.knime.credentials.base.oauth.api.AccessTokenAccessor;
+import org.knime.credentials.base.oauth.api.scribejava.TokenExchangeCache;
+import org.knime.credentials.base.oauth2.base.OAuth2AuthenticatorNodeModel;
+
+import com.github.scribejava.core.oauth.OAuth20Service;
+
+/**
+ * Node model for the OAuth2 Authenticator (Token Exchange) node. Exchanges the
+ * access token of the incoming credential for access tokens for another
+ * audience, using the token exchange grant (RFC 8693).
+ *
+ * @author agent
+ */
+@SuppressWarnings("restriction")
+class OAuth2AuthenticatorTokenExchangeNodeModel
+        extends OAuth2AuthenticatorNodeModel<OAuth2AuthenticatorTokenExchangeSettings> {
+
+    /**
+     * @param configuration
+     *            The node configuration.
+     */
+    protected OAuth2AuthenticatorTokenExchangeNodeModel(final WebUINodeConfiguration configuration) {
+        super(configuration, OAuth2AuthenticatorTokenExchangeSettings.class);
+    }
+
+    @Override
+    protected void validateOnConfigure(final PortObjectSpec[] inSpecs,
+            final OAuth2AuthenticatorTokenExchangeSettings settings) throws InvalidSettingsException {
+
+        final var type = ((CredentialPortObjectSpec)inSpecs[0]).getCredentialType();
+        if (type.isPresent() && !AccessTokenAccessor.class.isAssignableFrom(type.get().getCredentialClass())) {
+            throw new InvalidSettingsException(
+                    "Incoming credential does not provide an access token: " + type.get().getName());
+        }
+
+        settings.m_service.validate();
+        settings.m_app.validateOnConfigure(getCredentialsProvider());
+        settings.m_scopes.validate();
+    }
+
+    @Override
+    protected void validateOnExecute(final PortObject[] inObjects,
+            final OAuth2AuthenticatorTokenExchangeSettings settings) throws InvalidSettingsException {
+
+        settings.m_app.validateOnExecute(getCredentialsProvider());
+    }
+
+    @Override
+    protected Credential requestCredential(final PortObject[] inObjects,
+            final OAuth2AuthenticatorTokenExchangeSettings settings, final Supplier<OAuth20Service> serviceSupplier,
+            final ExecutionContext exec) throws Exception {
+
+        final var subject = ((CredentialPortObject)inObjects[0]).getSpec().toAccessor(AccessTokenAccessor.class);
+        final var credential = TokenExchangeCache.getInstance()//
+                .createCredential(serviceSupplier, subject, settings.getAudience());
+
+        // exchange once for the configured scopes, so that misconfigurations fail
+        // the node instead of its downstream nodes
+        credential.getAccessTokenWithScopes(settings.m_scopes.toScopeSet());
+        return credential;
+    }
+}